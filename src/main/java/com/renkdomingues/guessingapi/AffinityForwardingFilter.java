@@ -0,0 +1,231 @@
+package com.renkdomingues.guessingapi;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.net.*;
+import java.net.http.*;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.*;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Routes every game to the node that holds it when several instances of the service
+ * run side by side. Games are assigned to nodes with a {@link ConsistentHashRing}
+ * over their {@code X-Game-Id}, so any node can accept a request and will forward it
+ * to the owner if that's not itself. Requests without a game id are always served
+ * locally.
+ *
+ * To try it out on one machine, start each instance with its own port and the same
+ * node list, e.g.
+ * {@code --server.port=8081 --guessing.cluster.self=http://localhost:8081
+ * --guessing.cluster.nodes=http://localhost:8080,http://localhost:8081}.
+ *
+ * A forwarded request is marked so the owner serves it instead of forwarding it again.
+ * The mark is only honoured when it comes from another node: if
+ * {@code guessing.cluster.secret} is set, the forwarded request must carry it,
+ * otherwise it must come from the address of one of the nodes in the ring. A mark
+ * from anyone else is ignored and the request is routed as usual.
+ *
+ * The original client is passed on in {@code X-Forwarded-For}, so owners should list
+ * the other nodes' addresses in {@code guessing.fair-queue.trusted-proxies}. This
+ * runs before the {@link FairQueuingFilter}, so requests are only queued on the node
+ * that serves them.
+ */
+@Component
+@Order(1)
+public class AffinityForwardingFilter implements Filter {
+
+    private static final String GAME_ID_HEADER = "X-Game-Id";
+    private static final Logger LOG = LoggerFactory.getLogger(AffinityForwardingFilter.class);
+
+    private static final String FORWARDED_HEADER = "X-Guessing-Forwarded";
+    private static final String SECRET_HEADER = "X-Guessing-Cluster-Secret";
+    private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+    private static final List<String> COPIED_HEADERS =
+            List.of(GAME_ID_HEADER, "X-Api-Key", "Content-Type", "Accept", "Accept-Language");
+    private static final Duration FORWARD_TIMEOUT = Duration.ofSeconds(10);
+
+    private final String self;
+    private final byte[] secret;
+    private final ConsistentHashRing ring;
+    private final HttpClient client;
+    private volatile Peers peers = new Peers(Set.of(), Set.of());
+
+    public AffinityForwardingFilter(@Value("${guessing.cluster.self:}") String self,
+                                    @Value("${guessing.cluster.nodes:}") String nodes,
+                                    @Value("${guessing.cluster.virtual-nodes:" + ConsistentHashRing.DEFAULT_VIRTUAL_NODES + "}")
+                                    int virtualNodes,
+                                    @Value("${guessing.cluster.secret:}") String secret) {
+        this.self = self.strip();
+        this.secret = secret.strip().getBytes(UTF_8);
+        this.ring = new ConsistentHashRing(virtualNodes, parseNodes(nodes));
+        this.client = HttpClient.newBuilder().connectTimeout(FORWARD_TIMEOUT).build();
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        var httpRequest = (HttpServletRequest) request;
+        var owner = ownerOf(httpRequest);
+        if (owner == null || owner.equals(self)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        forward(owner, httpRequest, (HttpServletResponse) response);
+    }
+
+    public ConsistentHashRing getRing() {
+        return ring;
+    }
+
+    /**
+     * Whether requests for a game id are served by this node, i.e. whether a game with
+     * that id should be started here.
+     */
+    public boolean isLocal(String gameId) {
+        if (self.isEmpty())
+            return true;
+
+        var owner = ring.ownerOf(gameId);
+        return owner == null || owner.equals(self);
+    }
+
+    private String ownerOf(HttpServletRequest request) {
+        if (self.isEmpty() || !request.getRequestURI().startsWith("/api/"))
+            return null;
+
+        // never forward twice, even if the nodes disagree about the ring while it's resized
+        if (isForwardedByPeer(request))
+            return null;
+
+        var gameId = request.getHeader(GAME_ID_HEADER);
+        if (gameId == null || gameId.isBlank())
+            return null;
+
+        return ring.ownerOf(gameId);
+    }
+
+    private void forward(String owner, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        var uri = owner + request.getRequestURI();
+        if (request.getQueryString() != null)
+            uri += "?" + request.getQueryString();
+
+        var body = request.getInputStream().readAllBytes();
+        var builder = HttpRequest.newBuilder(URI.create(uri))
+                .timeout(FORWARD_TIMEOUT)
+                .method(request.getMethod(), body.length == 0 ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body))
+                .header(FORWARDED_HEADER, self);
+        if (secret.length > 0)
+            builder.header(SECRET_HEADER, new String(secret, UTF_8));
+
+        for (var header : COPIED_HEADERS) {
+            var value = request.getHeader(header);
+            if (value != null)
+                builder.header(header, value);
+        }
+
+        var forwardedFor = request.getHeader(FORWARDED_FOR_HEADER);
+        builder.header(FORWARDED_FOR_HEADER, forwardedFor == null ? request.getRemoteAddr()
+                : forwardedFor + ", " + request.getRemoteAddr());
+
+        HttpResponse<byte[]> forwarded;
+        try {
+            forwarded = client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        } catch (IOException e) {
+            response.sendError(502, "Could not reach " + owner);
+            return;
+        }
+
+        response.setStatus(forwarded.statusCode());
+        forwarded.headers().firstValue("Content-Type").ifPresent(response::setContentType);
+        forwarded.headers().firstValue("Retry-After").ifPresent(v -> response.setHeader("Retry-After", v));
+        response.setContentLength(forwarded.body().length);
+        response.getOutputStream().write(forwarded.body());
+    }
+
+    private boolean isForwardedByPeer(HttpServletRequest request) {
+        if (request.getHeader(FORWARDED_HEADER) == null)
+            return false;
+
+        if (secret.length > 0) {
+            var presented = request.getHeader(SECRET_HEADER);
+            return presented != null && MessageDigest.isEqual(secret, presented.getBytes(UTF_8));
+        }
+
+        try {
+            return peerAddresses().contains(InetAddress.getByName(request.getRemoteAddr()));
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    private Set<InetAddress> peerAddresses() {
+        // only resolved again when the ring changes
+        var nodes = ring.getNodes();
+        var current = peers;
+        if (current.nodes != nodes) {
+            current = new Peers(nodes, resolve(nodes));
+            peers = current;
+        }
+        return current.addresses;
+    }
+
+    private static Set<InetAddress> resolve(Set<String> nodes) {
+        var addresses = new HashSet<InetAddress>();
+        for (var node : nodes) {
+            try {
+                // a missing host would resolve to the loopback address
+                var host = URI.create(node).getHost();
+                if (host == null)
+                    throw new UnknownHostException("No host in " + node);
+
+                addresses.addAll(Arrays.asList(InetAddress.getAllByName(host)));
+            } catch (IllegalArgumentException | UnknownHostException e) {
+                LOG.warn("Could not resolve cluster node {}, requests it forwards won't be trusted", node, e);
+            }
+        }
+        return addresses;
+    }
+
+    private static List<String> parseNodes(String nodes) {
+        var parsed = new ArrayList<String>();
+        for (var node : nodes.split(",")) {
+            if (!node.isBlank())
+                parsed.add(node.strip());
+        }
+        return parsed;
+    }
+
+    private static final class Peers {
+
+        private final Set<String> nodes;
+        private final Set<InetAddress> addresses;
+
+        private Peers(Set<String> nodes, Set<InetAddress> addresses) {
+            this.nodes = nodes;
+            this.addresses = addresses;
+        }
+
+    }
+
+}
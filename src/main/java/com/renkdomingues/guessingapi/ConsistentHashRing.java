@@ -0,0 +1,87 @@
+package com.renkdomingues.guessingapi;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.*;
+
+/**
+ * Consistent hash ring with virtual nodes. Each node is placed on the ring many times
+ * so keys spread evenly, and adding or removing a node only moves the keys that
+ * belonged to (or now belong to) that node - roughly {@code 1/n} of them.
+ */
+public class ConsistentHashRing {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private final int virtualNodes;
+    private volatile NavigableMap<Long, String> ring = Collections.emptyNavigableMap();
+    private volatile Set<String> nodes = Collections.emptySet();
+
+    public ConsistentHashRing(int virtualNodes, Collection<String> nodes) {
+        if (virtualNodes < 1)
+            throw new IllegalArgumentException("There must be at least one virtual node per node");
+
+        this.virtualNodes = virtualNodes;
+        setNodes(nodes);
+    }
+
+    /**
+     * @return the node that owns the given key, or {@code null} if the ring is empty
+     */
+    public String ownerOf(String key) {
+        var current = ring;
+        if (current.isEmpty())
+            return null;
+
+        var owner = current.ceilingEntry(hash(key));
+        return owner != null ? owner.getValue() : current.firstEntry().getValue();
+    }
+
+    public synchronized void addNode(String node) {
+        var updated = new LinkedHashSet<>(nodes);
+        if (updated.add(node))
+            setNodes(updated);
+    }
+
+    public synchronized void removeNode(String node) {
+        var updated = new LinkedHashSet<>(nodes);
+        if (updated.remove(node))
+            setNodes(updated);
+    }
+
+    public synchronized void setNodes(Collection<String> nodes) {
+        var updated = new TreeMap<Long, String>();
+        for (var node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // on the (very unlikely) collision the lexicographically smaller node wins, so
+                // every instance ends up with the same ring regardless of the node order
+                updated.merge(hash(node + "#" + i), node, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+
+        this.ring = Collections.unmodifiableNavigableMap(updated);
+        this.nodes = Collections.unmodifiableSet(new LinkedHashSet<>(nodes));
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    // FNV-1a with a murmur3 finalizer, which spreads similar keys (node#1, node#2, ...)
+    // evenly across the ring
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+}
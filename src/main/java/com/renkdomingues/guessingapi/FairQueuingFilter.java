@@ -0,0 +1,169 @@
+package com.renkdomingues.guessingapi;
+
+import java.io.IOException;
+import java.util.*;
+
+import jakarta.servlet.*;
+import jakarta.servlet.http.*;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Puts every request to the game endpoints through a {@link FairRequestQueue} keyed
+ * by the client, so a few aggressive clients can't take up all of the upstream
+ * capacity and starve everyone else.
+ *
+ * Clients are identified by their {@code X-Api-Key} header if they send a known one
+ * (listed in {@code guessing.fair-queue.api-keys} or {@code guessing.fair-queue.weights}),
+ * and by their address otherwise, since anyone could make up a new key (or address)
+ * with every request to get a fresh share. API keys can be given a larger share with
+ * {@code guessing.fair-queue.weights} (e.g. {@code key1=4,key2=2}).
+ *
+ * The address is only taken from {@code X-Forwarded-For} if the request came from
+ * one of the addresses in {@code guessing.fair-queue.trusted-proxies}.
+ */
+@Component
+@Order(2)
+public class FairQueuingFilter implements Filter {
+
+    private static final String API_KEY_HEADER = "X-Api-Key";
+    private static final String FORWARDED_FOR_HEADER = "X-Forwarded-For";
+
+    private final FairRequestQueue queue;
+    private final Set<String> apiKeys;
+    private final Set<String> trustedProxies;
+
+    public FairQueuingFilter(@Value("${guessing.fair-queue.capacity:20}") int capacity,
+                             @Value("${guessing.fair-queue.per-client-limit:2}") int perClientLimit,
+                             @Value("${guessing.fair-queue.max-queued-per-client:8}") int maxQueuedPerClient,
+                             @Value("${guessing.fair-queue.max-wait-ms:2000}") long maxWaitMillis,
+                             @Value("${guessing.fair-queue.weights:}") String weights,
+                             @Value("${guessing.fair-queue.api-keys:}") String apiKeys,
+                             @Value("${guessing.fair-queue.trusted-proxies:}") String trustedProxies) {
+        var parsedWeights = parseWeights(weights);
+        this.queue = new FairRequestQueue(capacity, perClientLimit, maxQueuedPerClient, maxWaitMillis, parsedWeights);
+        this.apiKeys = new HashSet<>(parseList(apiKeys));
+        this.apiKeys.addAll(parsedWeights.keySet());
+        this.trustedProxies = new HashSet<>(parseList(trustedProxies));
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!(request instanceof HttpServletRequest) || !((HttpServletRequest) request).getRequestURI().startsWith("/api/")) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        var client = clientOf((HttpServletRequest) request);
+        boolean admitted;
+        try {
+            admitted = queue.acquire(client);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ((HttpServletResponse) response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        if (!admitted) {
+            var httpResponse = (HttpServletResponse) response;
+            httpResponse.setHeader("Retry-After", "1");
+            httpResponse.sendError(HttpServletResponse.SC_TOO_MANY_REQUESTS, "Muitas requisições, tente novamente.");
+            return;
+        }
+
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // the handler is still running, so the client keeps its place until it's done
+                request.getAsyncContext().addListener(new ReleasingListener(client));
+                async = true;
+            }
+        } finally {
+            if (!async)
+                queue.release(client);
+        }
+    }
+
+    public FairRequestQueue getQueue() {
+        return queue;
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        var apiKey = request.getHeader(API_KEY_HEADER);
+        if (apiKey != null && apiKeys.contains(apiKey.strip()))
+            return apiKey.strip();
+
+        return "ip:" + addressOf(request);
+    }
+
+    private String addressOf(HttpServletRequest request) {
+        var address = request.getRemoteAddr();
+        var forwardedFor = request.getHeader(FORWARDED_FOR_HEADER);
+        if (!trustedProxies.contains(address) || forwardedFor == null || forwardedFor.isBlank())
+            return address;
+
+        // each of our proxies appends the address it got the request from, so walking back
+        // from the end, the first hop that isn't one of them is the client. Anything before
+        // that was sent by the client itself and can be spoofed
+        var hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            var hop = hops[i].strip();
+            if (hop.isEmpty())
+                break;
+
+            address = hop;
+            if (!trustedProxies.contains(hop))
+                break;
+        }
+        return address;
+    }
+
+    private class ReleasingListener implements AsyncListener {
+
+        private final String client;
+
+        ReleasingListener(String client) {
+            this.client = client;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            // also called after timeouts and errors
+            queue.release(client);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {}
+
+        @Override
+        public void onError(AsyncEvent event) {}
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {}
+
+    }
+
+    private static List<String> parseList(String list) {
+        var parsed = new ArrayList<String>();
+        for (var entry : list.split(",")) {
+            if (!entry.isBlank())
+                parsed.add(entry.strip());
+        }
+        return parsed;
+    }
+
+    private static Map<String, Integer> parseWeights(String weights) {
+        var parsed = new HashMap<String, Integer>();
+        for (var entry : weights.split(",")) {
+            var parts = entry.split("=", 2);
+            if (parts.length == 2)
+                parsed.put(parts[0].strip(), Integer.parseInt(parts[1].strip()));
+        }
+        return parsed;
+    }
+
+}
@@ -0,0 +1,187 @@
+package com.renkdomingues.guessingapi;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.*;
+
+/**
+ * Start-time fair queue for requests coming from many clients. Every client gets a
+ * share of the capacity proportional to its weight, no matter how many requests it
+ * sends, and can never hold more than a fixed number of slots at once. Clients that
+ * pile up too many waiting requests get rejected instead of growing the queue.
+ */
+public class FairRequestQueue {
+
+    private final int capacity;
+    private final int perClientLimit;
+    private final int maxQueuedPerClient;
+    private final long maxWaitNanos;
+    private final Map<String, Integer> weights;
+
+    private final Lock lock = new ReentrantLock();
+    private final Map<String, Client> clients = new HashMap<>();
+    private final TreeSet<Ticket> waiting = new TreeSet<>();
+    private double virtualTime;
+    private long sequence;
+    private int inFlight;
+
+    public FairRequestQueue(int capacity, int perClientLimit, int maxQueuedPerClient, long maxWaitMillis,
+                            Map<String, Integer> weights) {
+        if (capacity < 1 || perClientLimit < 1)
+            throw new IllegalArgumentException("Capacity and per-client limit must be positive");
+
+        this.capacity = capacity;
+        this.perClientLimit = perClientLimit;
+        this.maxQueuedPerClient = maxQueuedPerClient;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.weights = new HashMap<>(weights);
+    }
+
+    /**
+     * Waits for a slot for the given client. Every call that returns {@code true} must
+     * be followed by a call to {@link #release(String)}.
+     *
+     * @return {@code true} if a slot was acquired, {@code false} if the client has too
+     *         many requests waiting already or the slot didn't free up in time
+     */
+    public boolean acquire(String clientId) throws InterruptedException {
+        lock.lock();
+        try {
+            var client = clients.computeIfAbsent(clientId, id -> new Client(weights.getOrDefault(id, 1)));
+            if (client.queued >= maxQueuedPerClient)
+                return false;
+
+            // the request can't start before the client's previous one has finished its
+            // (weighted) turn, which is what keeps heavy clients from crowding out the rest
+            var start = Math.max(virtualTime, client.lastFinish);
+            client.lastFinish = start + 1.0 / client.weight;
+            client.queued++;
+
+            var ticket = new Ticket(clientId, client, start, sequence++, lock.newCondition());
+            waiting.add(ticket);
+            dispatch();
+
+            var nanos = maxWaitNanos;
+            try {
+                while (!ticket.admitted) {
+                    if (nanos <= 0) {
+                        abandon(ticket);
+                        return false;
+                    }
+                    nanos = ticket.condition.awaitNanos(nanos);
+                }
+            } catch (InterruptedException e) {
+                if (ticket.admitted)
+                    release(clientId);
+                else
+                    abandon(ticket);
+                throw e;
+            }
+
+            return true;
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(String clientId) {
+        lock.lock();
+        try {
+            var client = clients.get(clientId);
+            if (client == null)
+                return;
+
+            inFlight--;
+            client.inFlight--;
+            forgetIfIdle(clientId, client);
+            dispatch();
+
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void dispatch() {
+        var iterator = waiting.iterator();
+        while (inFlight < capacity && iterator.hasNext()) {
+            var ticket = iterator.next();
+            if (ticket.client.inFlight >= perClientLimit)
+                continue; // this client is at its cap, give the next one a go
+
+            iterator.remove();
+            ticket.admitted = true;
+            ticket.client.queued--;
+            ticket.client.inFlight++;
+            inFlight++;
+            virtualTime = Math.max(virtualTime, ticket.start);
+            ticket.condition.signal();
+        }
+    }
+
+    private void abandon(Ticket ticket) {
+        waiting.remove(ticket);
+        ticket.client.queued--;
+        forgetIfIdle(ticket.clientId, ticket.client);
+    }
+
+    private void forgetIfIdle(String clientId, Client client) {
+        if (client.inFlight == 0 && client.queued == 0)
+            clients.remove(clientId);
+    }
+
+    private static final class Client {
+
+        private final int weight;
+        private double lastFinish;
+        private int inFlight;
+        private int queued;
+
+        private Client(int weight) {
+            this.weight = Math.max(1, weight);
+        }
+    }
+
+    private static final class Ticket implements Comparable<Ticket> {
+
+        private final String clientId;
+        private final Client client;
+        private final double start;
+        private final long sequence;
+        private final Condition condition;
+        private boolean admitted;
+
+        private Ticket(String clientId, Client client, double start, long sequence, Condition condition) {
+            this.clientId = clientId;
+            this.client = client;
+            this.start = start;
+            this.sequence = sequence;
+            this.condition = condition;
+        }
+
+        @Override
+        public int compareTo(Ticket o) {
+            int c = Double.compare(start, o.start);
+            return c != 0 ? c : Long.compare(sequence, o.sequence);
+        }
+    }
+
+}
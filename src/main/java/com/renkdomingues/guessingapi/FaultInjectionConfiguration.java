@@ -0,0 +1,57 @@
+package com.renkdomingues.guessingapi;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import org.eu.zajc.akiwrapper.core.transport.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.*;
+
+/**
+ * Injects latency and faults into the games' upstream exchanges when
+ * {@code guessing.faults.enabled=true}, for benchmarking how the service holds up
+ * against a degraded Akinator. The faults are described by the
+ * {@code guessing.faults.*} properties and apply to every exchange; nothing is
+ * injected unless configured.
+ *
+ * When recording or replaying (see {@link UpstreamRecordingConfiguration}), faults
+ * are injected on top of that, so a recording can be replayed offline under
+ * different conditions.
+ */
+@Configuration
+@ConditionalOnProperty(name = "guessing.faults.enabled", havingValue = "true")
+public class FaultInjectionConfiguration {
+
+    @Bean
+    @Primary
+    public FaultInjectingTransport faultInjectingTransport(UpstreamPools pools,
+                                                           Optional<ReplayTransport> replay,
+                                                           Optional<RecordingTransport> recording,
+                                                           @Value("${guessing.faults.latency-median-ms:0}") long latencyMedian,
+                                                           @Value("${guessing.faults.latency-p99-ms:0}") long latencyP99,
+                                                           @Value("${guessing.faults.server-error-rate:0}") double serverErrorRate,
+                                                           @Value("${guessing.faults.server-error-burst:1}") int serverErrorBurst,
+                                                           @Value("${guessing.faults.technical-error-rate:0}") double technicalErrorRate,
+                                                           @Value("${guessing.faults.truncation-rate:0}") double truncationRate,
+                                                           @Value("${guessing.faults.reset-rate:0}") double resetRate,
+                                                           @Value("${guessing.faults.seed:}") String seed) {
+        Transport upstream = replay.<Transport>map(t -> t)
+                .or(() -> recording.map(t -> t))
+                .orElseGet(pools::getTransport);
+
+        var profile = new FaultProfile()
+                .setServerErrors(serverErrorRate, serverErrorBurst)
+                .setTechnicalErrorRate(technicalErrorRate)
+                .setTruncationRate(truncationRate)
+                .setResetRate(resetRate);
+        if (latencyMedian > 0)
+            profile.setLatency(Duration.ofMillis(latencyMedian), Duration.ofMillis(Math.max(latencyMedian, latencyP99)));
+
+        var transport = seed.isBlank()
+                ? new FaultInjectingTransport(upstream)
+                : new FaultInjectingTransport(upstream, Long.parseLong(seed.strip()));
+        return transport.setDefaultProfile(profile);
+    }
+
+}
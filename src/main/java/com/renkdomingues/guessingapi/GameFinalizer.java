@@ -0,0 +1,78 @@
+package com.renkdomingues.guessingapi;
+
+import static java.util.concurrent.TimeUnit.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.opentelemetry.context.Context;
+
+/**
+ * Runs the work that follows the end of a game, like confirming the guess, in the
+ * background so the player gets their answer right away. Nobody waits on the result
+ * of this work (and Akiwrapper swallows its failures anyways), so it's fine for it to
+ * happen a bit later.
+ *
+ * The queue is bounded: when it fills up, or once the finalizer is shutting down, the
+ * request that's submitting work runs it itself, which slows down producers instead
+ * of piling up work or dropping it. Shutting down waits for the queued work to
+ * finish.
+ */
+@Component
+public class GameFinalizer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GameFinalizer.class);
+
+    private final ThreadPoolExecutor executor;
+    private final long shutdownTimeoutMillis;
+
+    public GameFinalizer(@Value("${guessing.finalizer.queue-capacity:1024}") int capacity,
+                         @Value("${guessing.finalizer.workers:2}") int workers,
+                         @Value("${guessing.finalizer.shutdown-timeout-ms:10000}") long shutdownTimeoutMillis) {
+        var threads = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            var thread = new Thread(r, "game-finalizer-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // unlike CallerRunsPolicy, this also runs the work after shutdown instead of
+        // silently dropping it
+        RejectedExecutionHandler callerRuns = (task, e) -> task.run();
+
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, MILLISECONDS, new ArrayBlockingQueue<>(capacity),
+                                               factory, callerRuns);
+        this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+    }
+
+    public void submit(Runnable task) {
+        // keeps the work in the trace of the request that finished the game
+        var wrapped = Context.current().wrap(task);
+        executor.execute(() -> runSafely(wrapped));
+    }
+
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(shutdownTimeoutMillis, MILLISECONDS))
+            LOG.warn("Gave up waiting for {} games to be finalized", executor.getQueue().size());
+    }
+
+    private static void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to finalize a game", e);
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.renkdomingues.guessingapi;
+
+import org.eu.zajc.akiwrapper.Akiwrapper;
+import org.eu.zajc.akiwrapper.core.entities.*;
+
+/**
+ * The state of a single game played through {@link GuessingAPI}.
+ */
+public class GameSession {
+
+    Akiwrapper aw;
+    Question question;
+    Boolean isDescription;
+    Guess guess;
+    volatile long lastUsed = System.nanoTime();
+
+    GameSession(Akiwrapper aw) {
+        this.aw = aw;
+        this.isDescription = false;
+        this.question = null;
+        this.guess = null;
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.renkdomingues.guessingapi;
+
+import static java.util.concurrent.TimeUnit.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the steps of the games, which block on Akinator, off the servlet threads.
+ * Steps get a pool of their own instead of the executor Spring MVC falls back to,
+ * which only has 8 threads (shared with anything else that's asynchronous) and an
+ * unbounded queue, so a slow Akinator would pile up steps that time out long before
+ * they get to run.
+ *
+ * The queue is bounded: when it's full, new steps are turned away right away (see
+ * {@link GuessingAPI}) rather than waiting behind the ones that are already late.
+ */
+@Component
+public class GameStepExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final AsyncTaskExecutor adapter;
+
+    public GameStepExecutor(@Value("${guessing.steps.workers:20}") int workers,
+                            @Value("${guessing.steps.queue-capacity:100}") int capacity) {
+        var threads = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            var thread = new Thread(r, "game-step-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, MILLISECONDS, new ArrayBlockingQueue<>(capacity),
+                                               factory, new ThreadPoolExecutor.AbortPolicy());
+        this.adapter = new TaskExecutorAdapter(executor);
+    }
+
+    public AsyncTaskExecutor getExecutor() {
+        return adapter;
+    }
+
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+}
@@ -1,6 +1,7 @@
 package com.renkdomingues.guessingapi;
 
 import org.json.JSONObject;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
@@ -15,7 +16,12 @@ import static org.eu.zajc.akiwrapper.core.entities.Server.GuessType.CHARACTER;
 import static org.eu.zajc.akiwrapper.core.entities.Server.Language.ENGLISH;
 import static org.eu.zajc.akiwrapper.core.entities.Server.Language.PORTUGUESE;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
 
 import javax.annotation.Nonnull;
 
@@ -23,8 +29,18 @@ import org.eu.zajc.akiwrapper.*;
 import org.eu.zajc.akiwrapper.core.entities.*;
 import org.eu.zajc.akiwrapper.core.entities.Server.*;
 import org.eu.zajc.akiwrapper.core.exceptions.ServerNotFoundException;
+import org.eu.zajc.akiwrapper.core.transport.*;
+import org.eu.zajc.akiwrapper.core.utils.*;
+import org.HdrHistogram.Histogram;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Context;
+import jakarta.servlet.http.HttpServletResponse;
 
 //@SuppressWarnings("javadoc")
 
@@ -36,12 +52,40 @@ public class GuessingAPI {
             "Y or yes, N or no, DK or don't know, P or probably, PN or probably not, or go back one step with B or back.";
     private static final Scanner IN = new Scanner(System.in).useDelimiter("\n");
 
-    private Akiwrapper aw;
-    private Question question;
-    private Boolean isDescription;
-    private Guess guess;
+    private static final String GAME_ID_HEADER = "X-Game-Id";
+    private static final int MAX_GAMES = 10_000;
+    // games untouched for this long make room for new ones once MAX_GAMES is reached
+    private static final Duration GAME_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    // a node that isn't in its own ring would never get an id it owns
+    private static final int MAX_ID_ATTEMPTS = 1_000;
+    // keeps each Akinator call within the API's 2 second SLO
+    private static final Duration CALL_TIMEOUT = Duration.ofSeconds(2);
+
+    private final GameFinalizer finalizer;
+    private final GameStepExecutor steps;
+    private final LatencyReporter latencies;
+    private final Transport transport;
+    private final AffinityForwardingFilter affinity;
+    private volatile GameSession defaultGame;
+    // least recently used first
+    private final Map<String, GameSession> games =
+            Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true));
+
+    public GuessingAPI(GameFinalizer finalizer, GameStepExecutor steps, LatencyReporter latencies,
+                       UpstreamPools pools, Optional<Transport> transport, AffinityForwardingFilter affinity){
+        this.finalizer = finalizer;
+        this.steps = steps;
+        this.latencies = latencies;
+        this.affinity = affinity;
+        // the other transports are only there when recording, replaying or injecting
+        // faults, see UpstreamRecordingConfiguration and FaultInjectionConfiguration
+        this.transport = transport.orElseGet(pools::getTransport);
+        // gets DNS and the handshakes with the hosts every game starts with out of the way
+        ConnectionWarmer.getDefault().warmBootstrap(this.transport);
+        defaultGame = newGame();
+    }
 
-    public GuessingAPI(){
+    private GameSession newGame() {
 
         boolean filterProfanity = getProfanityFilter();
         // Gets player's age. Like the Akinator's website, this will turn on the profanity
@@ -54,18 +98,17 @@ public class GuessingAPI {
         var guessType = getGuessType();
         // Gets the guess type.
 
+        Akiwrapper aw = null;
         try {
-            isDescription = false;
-            question = null;
-            guess = null;
-
             aw = new AkiwrapperBuilder().setFilterProfanity(filterProfanity)
                     .setLanguage(language)
                     .setGuessType(guessType)
+                    .setCallTimeout(CALL_TIMEOUT)
+                    .setTransport(transport)
                     .build();
         } catch (ServerNotFoundException e) {
             err.println("Unsupported combination of language and guess type");
-            return;
+            return new GameSession(null);
         }
         // Builds the Akiwrapper instance, this is what we'll be using to perform
         // operations such as answering questions, fetching guesses, etc
@@ -100,55 +143,268 @@ public class GuessingAPI {
 
         //finish(false);
         // Loses if all guesses are rejected.
+        return new GameSession(aw);
+    }
+
+    /**
+     * Starts a new game and returns its id, both in the body and in the
+     * {@code X-Game-Id} header, which the other endpoints have to be called with to
+     * play it. The id is picked so that this node owns it, see
+     * {@link AffinityForwardingFilter}. Once a game is won (or one of its steps is
+     * cancelled) its id is no longer known, and neither is the id of a game that was
+     * left idle long enough to make room for others. Calling the other endpoints without an id plays a single game
+     * shared by everyone instead.
+     */
+    @PostMapping(value = "/games", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    @ResponseStatus(HttpStatus.CREATED)
+    public String NewGame(HttpServletResponse response){
+        // checked up front as well, so a full node doesn't open an Akinator session for nothing
+        synchronized (games) {
+            makeRoom();
+        }
+
+        var gameId = newGameId();
+        var game = newGame();
+        synchronized (games) {
+            makeRoom();
+            games.put(gameId, game);
+        }
+
+        response.setHeader(GAME_ID_HEADER, gameId);
+        return new JSONObject().put("gameId", gameId).toString();
     }
 
     @GetMapping("/guess")
     @ResponseBody
-    public String Guess(){
-        question = aw.getQuestion();
-        if (question == null)
+    public WebAsyncTask<String> Guess(@RequestHeader(value = GAME_ID_HEADER, required = false) String gameId){
+        return cancellable("GET /api/guess", gameId, this::Guess);
+    }
+
+    @PostMapping("/answer")
+    @ResponseBody
+    public WebAsyncTask<String> Answer(@RequestHeader(value = GAME_ID_HEADER, required = false) String gameId,
+                                       @RequestBody String response){
+        return cancellable("POST /api/answer", gameId, game -> Answer(gameId, game, response));
+    }
+
+    /**
+     * Latency percentiles of the Akinator calls made by this node, in milliseconds, by
+     * route and by server. "interval" covers the last complete reporting interval
+     * ({@code guessing.latency.interval-ms}, a minute by default) and "total" everything
+     * from startup to the end of it. Calling this doesn't affect what others see.
+     */
+    @GetMapping(value = "/latency", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public String Latency(){
+        var snapshot = latencies.getLast();
+        return new JSONObject()
+                .put("start", snapshot.getStartTime())
+                .put("end", snapshot.getEndTime())
+                .put("routes", summarize(snapshot.getRoutes()))
+                .put("servers", summarize(snapshot.getHosts()))
+                .toString();
+    }
+
+    private static JSONObject summarize(Map<String, LatencyTracker.Latencies> latencies) {
+        var json = new JSONObject();
+        latencies.forEach((name, l) -> json.put(name, new JSONObject()
+                .put("interval", summarize(l.getInterval()))
+                .put("total", summarize(l.getTotal()))));
+        return json;
+    }
+
+    private static JSONObject summarize(Histogram histogram) {
+        // recorded in microseconds
+        return new JSONObject()
+                .put("count", histogram.getTotalCount())
+                .put("mean", histogram.getMean() / 1000)
+                .put("p50", histogram.getValueAtPercentile(50) / 1000d)
+                .put("p90", histogram.getValueAtPercentile(90) / 1000d)
+                .put("p99", histogram.getValueAtPercentile(99) / 1000d)
+                .put("p999", histogram.getValueAtPercentile(99.9) / 1000d)
+                .put("max", histogram.getMaxValue() / 1000d);
+    }
+
+    /**
+     * Turns steps away when the {@link GameStepExecutor} is full, the same way the
+     * {@link FairQueuingFilter} does when a client has too many requests queued.
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    public void Busy(HttpServletResponse response) throws IOException {
+        response.setHeader("Retry-After", "1");
+        response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Servidor ocupado, tente novamente.");
+    }
+
+    /**
+     * Runs a handler on the {@link GameStepExecutor} so that the step can be cancelled
+     * if the client disconnects (or the request times out) before it's done. Cancelling
+     * aborts the game's in-flight Akinator calls, along with any retries they were
+     * waiting for, and the calls the step would have made next. A cancelled game can't
+     * be played anymore (Akinator may have taken the step anyway), so it's dropped like
+     * a finished one. A step that's cancelled before it gets to run is skipped.
+     */
+    private WebAsyncTask<String> cancellable(String name, String gameId, Function<GameSession, String> handler) {
+        var current = new AtomicReference<GameSession>();
+        var abandoned = new AtomicBoolean();
+        var done = new AtomicBoolean();
+        var task = new WebAsyncTask<>(null, steps.getExecutor(), Context.current().wrap(() -> {
+            try {
+                return traced(name, gameId, () -> {
+                    var game = gameOf(gameId);
+                    current.set(game);
+                    // set before checking, so either this or cancel sees the other
+                    if (abandoned.get())
+                        return null;
+
+                    synchronized (game) {
+                        return handler.apply(game);
+                    }
+                });
+            } finally {
+                done.set(true);
+            }
+        }));
+
+        Callable<String> cancel = () -> {
+            abandoned.set(true);
+            var game = current.get();
+            // nothing is left to cancel once the handler is done, and the game's
+            // background work (see GameFinalizer) has to be left alone
+            if (!done.get() && game != null && game.aw != null) {
+                game.aw.cancel();
+                restart(gameId, game);
+            }
+            return null;
+        };
+        task.onError(cancel);
+        task.onTimeout(cancel);
+        return task;
+    }
+
+    private String Guess(GameSession game){
+        game.question = game.aw.getQuestion();
+        if (game.question == null)
             return "Não há perguntas disponíveis!";
 
-        int stepCount = question.getStep() + 1;
+        int stepCount = game.question.getStep() + 1;
 
         //return stepCount + ": " + question.getQuestion();
-        return question.getQuestion();
+        return game.question.getQuestion();
     }
 
-    @PostMapping("/answer")
-    @ResponseBody
-    public String Answer(@RequestBody String response){
+    private String Answer(String gameId, GameSession game, String response){
 
-        if(question == null)
+        if(game.question == null)
             return "É necessário primeiramente iniciar as perguntas /guess";
 
         JSONObject jsonResponse = new JSONObject(response.toString());
         // Obter o valor da chave "response"
         response = jsonResponse.getString("response");
 
-        if(isDescription && response.equalsIgnoreCase("y")){
-            aw.confirmGuess(guess);
-            new GuessingAPI();
+        if(game.isDescription && response.equalsIgnoreCase("y")){
+            // the player doesn't need to wait for the confirmation to go through. Confirming
+            // ends the session, but a request that got hold of this game before the restart
+            // could still be waiting for it, so it's confirmed under the same lock
+            var aw = game.aw;
+            var guess = game.guess;
+            finalizer.submit(() -> {
+                synchronized (game) {
+                    aw.confirmGuess(guess);
+                }
+            });
+            restart(gameId, game);
             return finish(true);
         }
 
-        guess = aw.suggestGuess();
+        game.guess = game.aw.suggestGuess();
 
-        String retorno = answerQuestion(aw, response);
+        String retorno = answerQuestion(game.aw, response);
         if(retorno != "")
             return retorno;
 
-        if (guess != null) {
-            if (guess.getDescription() != null) {
-                isDescription = true;
-                return guess.getName() + " " + guess.getDescription() + ". É isso que estava pensado?";
+        if (game.guess != null) {
+            if (game.guess.getDescription() != null) {
+                game.isDescription = true;
+                return game.guess.getName() + " " + game.guess.getDescription() + ". É isso que estava pensado?";
             } else {
-                isDescription = false;
-                aw.rejectLastGuess();
+                game.isDescription = false;
+                game.aw.rejectLastGuess();
             }
         }
 
-        return Guess();
+        return Guess(game);
+    }
+
+    private static String traced(String name, String gameId, Supplier<String> handler) {
+        var span = Tracing.getOpenTelemetry()
+                .getTracer("com.renkdomingues.guessingapi")
+                .spanBuilder(name)
+                .setSpanKind(SpanKind.SERVER)
+                .setAttribute("guessing.game_id", gameId == null ? "" : gameId)
+                .startSpan();
+        try (var scope = span.makeCurrent()) {
+            return handler.get();
+        } catch (RuntimeException e) {
+            Tracing.fail(span, e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    private GameSession gameOf(String gameId) {
+        if (gameId == null || gameId.isBlank()) {
+            var game = defaultGame;
+            if (game == null) {
+                synchronized (this) {
+                    if (defaultGame == null)
+                        defaultGame = newGame();
+                    game = defaultGame;
+                }
+            }
+            return game;
+        }
+
+        // only games started with NewGame are known, so clients can't fill the map up
+        // with ids of their own
+        var game = games.get(gameId);
+        if (game == null)
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown game, start one with POST /api/games");
+        game.lastUsed = nanoTime();
+        return game;
+    }
+
+    private String newGameId() {
+        for (int i = 0; i < MAX_ID_ATTEMPTS; i++) {
+            var gameId = UUID.randomUUID().toString();
+            if (affinity.isLocal(gameId))
+                return gameId;
+        }
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "This node doesn't own any game ids");
+    }
+
+    // must hold the lock on games
+    private void makeRoom() {
+        if (games.size() < MAX_GAMES)
+            return;
+
+        var eldest = games.entrySet().iterator().next();
+        if (nanoTime() - eldest.getValue().lastUsed < GAME_IDLE_TIMEOUT.toNanos())
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many games in progress");
+        games.remove(eldest.getKey());
+    }
+
+    // only if the game is still the one played under that id
+    private void restart(String gameId, GameSession game) {
+        if (gameId == null || gameId.isBlank()) {
+            synchronized (this) {
+                if (defaultGame == game)
+                    defaultGame = null;
+            }
+        } else {
+            games.remove(gameId, game);
+        }
     }
 
     private static Guess reviewSuggestedGuess(@Nonnull Akiwrapper aw) {
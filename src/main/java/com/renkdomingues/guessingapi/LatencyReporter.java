@@ -0,0 +1,62 @@
+package com.renkdomingues.guessingapi;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.util.concurrent.*;
+
+import jakarta.annotation.PreDestroy;
+
+import org.eu.zajc.akiwrapper.core.utils.LatencyTracker;
+import org.slf4j.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Takes a snapshot of the {@link LatencyTracker} on a fixed schedule and keeps the
+ * latest one around. Every snapshot closes the tracker's interval, so this is the only
+ * place that takes them: reading the latencies (see {@code /api/latency}) serves the
+ * last snapshot instead of cutting the interval short for everyone else.
+ */
+@Component
+public class LatencyReporter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LatencyReporter.class);
+
+    private final LatencyTracker tracker;
+    private final ScheduledExecutorService scheduler;
+    private volatile LatencyTracker.Snapshot last;
+
+    public LatencyReporter(@Value("${guessing.latency.interval-ms:60000}") long intervalMillis) {
+        this.tracker = LatencyTracker.getDefault();
+        // an empty one until the first interval is over
+        this.last = tracker.snapshot();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "latency-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::takeSnapshot, intervalMillis, intervalMillis, MILLISECONDS);
+    }
+
+    /**
+     * @return the snapshot taken at the end of the last complete interval
+     */
+    public LatencyTracker.Snapshot getLast() {
+        return last;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void takeSnapshot() {
+        // a task that throws is never run again
+        try {
+            last = tracker.snapshot();
+        } catch (RuntimeException e) {
+            LOG.warn("Failed to take a latency snapshot", e);
+        }
+    }
+
+}
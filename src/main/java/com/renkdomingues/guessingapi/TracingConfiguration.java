@@ -0,0 +1,42 @@
+package com.renkdomingues.guessingapi;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+import org.eu.zajc.akiwrapper.core.utils.Tracing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.*;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+
+/**
+ * Exports the service's and Akiwrapper's spans over OTLP/HTTP when
+ * {@code guessing.otel.enabled=true}. The collector is expected at
+ * {@code guessing.otel.endpoint} (by default a local one on port 4318).
+ */
+@Configuration
+@ConditionalOnProperty(name = "guessing.otel.enabled", havingValue = "true")
+public class TracingConfiguration {
+
+    @Bean(destroyMethod = "close")
+    public OpenTelemetrySdk openTelemetry(@Value("${guessing.otel.endpoint:http://localhost:4318/v1/traces}") String endpoint,
+                                          @Value("${guessing.otel.service-name:guessing-api}") String serviceName) {
+        var exporter = OtlpHttpSpanExporter.builder().setEndpoint(endpoint).build();
+        var tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(BatchSpanProcessor.builder(exporter).build())
+                .setResource(Resource.getDefault().merge(Resource.create(Attributes.of(stringKey("service.name"), serviceName))))
+                .build();
+
+        var sdk = OpenTelemetrySdk.builder().setTracerProvider(tracerProvider).build();
+        // not registered globally, since the game started on startup may have already
+        // locked GlobalOpenTelemetry to a no-op
+        Tracing.setOpenTelemetry(sdk);
+        return sdk;
+    }
+
+}
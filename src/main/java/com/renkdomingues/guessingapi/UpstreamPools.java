@@ -0,0 +1,39 @@
+package com.renkdomingues.guessingapi;
+
+import jakarta.annotation.PreDestroy;
+
+import org.eu.zajc.akiwrapper.core.transport.PooledTransport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the connection pools every game talks to Akinator through: one for the
+ * website ({@code guessing.upstream.pools.website-size} connections) and one for each
+ * game server ({@code guessing.upstream.pools.server-size} connections), so a slow
+ * game server can't use up the connections that answering questions needs.
+ *
+ * This isn't a {@code Transport} bean itself, so that the recording, replaying and
+ * fault injecting transports can wrap it without competing with it.
+ */
+@Component
+public class UpstreamPools {
+
+    private final PooledTransport transport;
+
+    public UpstreamPools(@Value("${guessing.upstream.pools.website-size:" + PooledTransport.DEFAULT_WEBSITE_POOL_SIZE + "}")
+                         int websitePoolSize,
+                         @Value("${guessing.upstream.pools.server-size:" + PooledTransport.DEFAULT_SERVER_POOL_SIZE + "}")
+                         int serverPoolSize) {
+        this.transport = PooledTransport.ofUnirest(websitePoolSize, serverPoolSize);
+    }
+
+    public PooledTransport getTransport() {
+        return transport;
+    }
+
+    @PreDestroy
+    public void close() {
+        transport.close();
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.renkdomingues.guessingapi;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.eu.zajc.akiwrapper.core.transport.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.*;
+
+/**
+ * Records the games' upstream exchanges to {@code guessing.upstream.file} when
+ * {@code guessing.upstream.mode=record}, or serves them back from it without
+ * contacting Akinator at all when {@code guessing.upstream.mode=replay}. Replays are
+ * instant unless {@code guessing.upstream.replay-latency=true}, which makes every
+ * exchange take as long as it did when recorded.
+ *
+ * A replay only goes as far as the recording, so it should be driven with the same
+ * requests (and game ids) that were recorded.
+ */
+@Configuration
+public class UpstreamRecordingConfiguration {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "guessing.upstream.mode", havingValue = "record")
+    public RecordingTransport recordingTransport(UpstreamPools pools,
+                                                 @Value("${guessing.upstream.file:upstream.akr}") String file)
+            throws IOException {
+        return new RecordingTransport(pools.getTransport(), Path.of(file));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "guessing.upstream.mode", havingValue = "replay")
+    public ReplayTransport replayTransport(@Value("${guessing.upstream.file:upstream.akr}") String file,
+                                           @Value("${guessing.upstream.replay-latency:false}") boolean replayLatency)
+            throws IOException {
+        return new ReplayTransport(Path.of(file), replayLatency);
+    }
+
+}
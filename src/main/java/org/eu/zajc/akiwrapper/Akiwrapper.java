@@ -20,6 +20,7 @@ import static java.util.stream.Collectors.toList;
 
 import java.io.ObjectInputFilter.Status;
 import java.util.List;
+import java.util.concurrent.*;
 
 import javax.annotation.*;
 
@@ -54,6 +55,12 @@ import org.eu.zajc.akiwrapper.core.exceptions.*;
  * game continues
  * </ul>
  * </ol>
+ * Every call that talks to Akinator also has an asynchronous counterpart (such as
+ * {@link #answerAsync(Answer)}) that returns a {@link CompletableFuture} without
+ * blocking the calling thread. Calls on a single instance must still be made one
+ * after another, that is, the next call should only be made once the previous
+ * future has completed.<br>
+ * <br>
  * An example of this library in action can be viewed in the {@code examples/}
  * directory of the repository.
  *
@@ -154,6 +161,22 @@ public interface Akiwrapper {
 	@Nullable
 	Question answer(Answer answer);
 
+	/**
+	 * Asynchronously sends an answer to the current {@link Question} and fetches the
+	 * next one, see {@link #answer(Answer)}.
+	 *
+	 * @param answer
+	 *            the {@link Answer} to send.
+	 *
+	 * @return a {@link CompletableFuture} completed with the next {@link Question} or
+	 *         {@code null} if there are no questions left, or completed exceptionally
+	 *         with any exception {@link #answer(Answer)} would throw.
+	 *
+	 * @see #answer(Answer)
+	 */
+	@Nonnull
+	CompletableFuture<Question> answerAsync(Answer answer);
+
 	/**
 	 * Goes one question backwards, undoing the previous {@link #answer(Answer)} call.
 	 * For example, if {@link #getQuestion()} returns a question on step {@code 5},
@@ -180,6 +203,18 @@ public interface Akiwrapper {
 	@Nonnull
 	Question undoAnswer();
 
+	/**
+	 * Asynchronously goes one question backwards, see {@link #undoAnswer()}.
+	 *
+	 * @return a {@link CompletableFuture} completed with the previous {@link Question},
+	 *         or completed exceptionally with any exception {@link #undoAnswer()} would
+	 *         throw.
+	 *
+	 * @see #undoAnswer()
+	 */
+	@Nonnull
+	CompletableFuture<Question> undoAnswerAsync();
+
 	/**
 	 * Returns a probability-sorted (the lower the index, the higher the probability) and
 	 * unmodifiable list of <b>all relevant</b> Akinator's guesses, or an empty list if
@@ -213,6 +248,35 @@ public interface Akiwrapper {
 	@Nonnull
 	List<Guess> getGuesses(int count);
 
+	/**
+	 * Asynchronously fetches <b>all relevant</b> Akinator's guesses, see
+	 * {@link #getGuesses()}.
+	 *
+	 * @return a {@link CompletableFuture} completed with a sorted list of
+	 *         {@link Guess}es.
+	 *
+	 * @see #getGuesses()
+	 */
+	@Nonnull
+	default CompletableFuture<List<Guess>> getGuessesAsync() {
+		return getGuessesAsync(0);
+	}
+
+	/**
+	 * Asynchronously fetches <b>the first N</b> Akinator's guesses, see
+	 * {@link #getGuesses(int)}.
+	 *
+	 * @param count
+	 *            the number of {@link Guess}es to get.
+	 *
+	 * @return a {@link CompletableFuture} completed with a sorted list of
+	 *         {@link Guess}es.
+	 *
+	 * @see #getGuesses(int)
+	 */
+	@Nonnull
+	CompletableFuture<List<Guess>> getGuessesAsync(int count);
+
 	/**
 	 * Returns the current {@link Question} or {@code null} if the question list has been
 	 * exhausted.<br>
@@ -274,6 +338,18 @@ public interface Akiwrapper {
 	@Nullable
 	Guess suggestGuess();
 
+	/**
+	 * Asynchronously provides a likely {@link Guess} for the current session, see
+	 * {@link #suggestGuess()}. This mutates the session's state the same way.
+	 *
+	 * @return a {@link CompletableFuture} completed with a suggested {@link Guess} or
+	 *         {@code null} if none are available
+	 *
+	 * @see #suggestGuess()
+	 */
+	@Nonnull
+	CompletableFuture<Guess> suggestGuessAsync();
+
 	/**
 	 * Confirms a {@link Guess}. While this doesn't affect the current session, because
 	 * it's called at the very end, it likely affects Akinator's algorithm and associates
@@ -288,6 +364,20 @@ public interface Akiwrapper {
 	 */
 	void confirmGuess(@Nonnull Guess guess);
 
+	/**
+	 * Asynchronously confirms a {@link Guess}, see {@link #confirmGuess(Guess)}.
+	 *
+	 * @param guess
+	 *            the {@link Guess} to confirm.
+	 *
+	 * @return a {@link CompletableFuture} completed once the guess is confirmed
+	 *
+	 * @apiNote Do not use this method in automated tests, as it introduces faulty data
+	 *          into Akinator's database, dulling the ranking algorithm.
+	 */
+	@Nonnull
+	CompletableFuture<Void> confirmGuessAsync(@Nonnull Guess guess);
+
 	/**
 	 * <b>Note:</b> this method should only be called immediately after
 	 * {@link #suggestGuess()} returns a {@link Guess} - don't send or undo answers
@@ -310,4 +400,50 @@ public interface Akiwrapper {
 	@Nullable
 	Question rejectLastGuess();
 
+	/**
+	 * Asynchronously rejects the previously suggested {@link Guess}, see
+	 * {@link #rejectLastGuess()}.
+	 *
+	 * @return a {@link CompletableFuture} completed with the replacement
+	 *         {@link Question}.
+	 *
+	 * @apiNote Do not use this method in automated tests, as it introduces faulty data
+	 *          into Akinator's database, dulling the ranking algorithm.
+	 */
+	@Nonnull
+	CompletableFuture<Question> rejectLastGuessAsync();
+
+	/**
+	 * Cancels the calls on this instance that are currently in flight, such as when the
+	 * player has gone away and their result is no longer needed. Pending retries are
+	 * dropped and ongoing exchanges are aborted where the transport allows it, and the
+	 * cancelled calls fail with a {@link CancelledException}. Cancelled calls don't
+	 * update this instance's state (although Akinator might have already processed
+	 * them).<br>
+	 * Cancelling is final: calls made afterwards fail right away with a
+	 * {@link CancelledException} too, so that a call made after the player has gone
+	 * away (but before it was in flight) is stopped as well.<br>
+	 * Cancelling the future returned by one of the asynchronous methods cancels just
+	 * that call.
+	 */
+	void cancel();
+
+	/**
+	 * Returns a {@link Flow.Publisher} of the {@link GameEvent}s that happen in this
+	 * session from the moment of subscription on, such as new questions or suggested
+	 * guesses. This lets front ends react to the session's progress without fetching
+	 * its state again after every step.<br>
+	 * Events are delivered asynchronously and only as fast as each subscriber requests
+	 * them. Undelivered events are buffered for every subscriber (up to
+	 * {@link Flow#defaultBufferSize()} of them), and once a subscriber's buffer is full,
+	 * new events are dropped for that subscriber rather than holding up the call that
+	 * caused them. Subscribers that fall behind can tell that they've missed events by
+	 * the gap in {@link GameEvent#getSequence()} (not every event advances the step).
+	 * The publisher completes after {@link #confirmGuess(Guess)}.
+	 *
+	 * @return a publisher of this session's events
+	 */
+	@Nonnull
+	Flow.Publisher<GameEvent> getEvents();
+
 }
@@ -19,7 +19,14 @@ package org.eu.zajc.akiwrapper;
 import static java.lang.String.format;
 import static org.eu.zajc.akiwrapper.core.entities.Server.GuessType.CHARACTER;
 import static org.eu.zajc.akiwrapper.core.entities.Server.Language.ENGLISH;
-import static org.eu.zajc.akiwrapper.core.utils.Servers.findServers;
+import static java.util.stream.Collectors.toList;
+import static org.eu.zajc.akiwrapper.core.utils.Servers.findServersAsync;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.*;
+import static org.eu.zajc.akiwrapper.core.utils.route.Routes.NEW_SESSION;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 import javax.annotation.*;
 
@@ -27,7 +34,11 @@ import org.eu.zajc.akiwrapper.core.entities.*;
 import org.eu.zajc.akiwrapper.core.entities.Server.*;
 import org.eu.zajc.akiwrapper.core.exceptions.*;
 import org.eu.zajc.akiwrapper.core.impl.AkiwrapperImpl;
-import org.eu.zajc.akiwrapper.core.utils.UnirestUtils;
+import org.eu.zajc.akiwrapper.core.transport.*;
+import org.eu.zajc.akiwrapper.core.utils.*;
+import org.eu.zajc.akiwrapper.core.utils.UpstreamDispatcher.Priority;
+import org.eu.zajc.akiwrapper.core.utils.route.BootstrapClient;
+import org.eu.zajc.akiwrapper.core.utils.route.Route.Endpoint;
 import org.slf4j.*;
 
 import kong.unirest.UnirestInstance;
@@ -42,6 +53,18 @@ public class AkiwrapperBuilder {
 	private static final Logger LOG = LoggerFactory.getLogger(AkiwrapperBuilder.class);
 
 	@Nullable private UnirestInstance unirest;
+	@Nullable private Transport transport;
+	@Nullable private UpstreamDispatcher dispatcher;
+	@Nullable private RetryScheduler retries;
+	@Nullable private Hedger hedger;
+	@Nullable private CircuitBreakers breakers;
+	@Nullable private Duration callTimeout;
+	@Nullable private ConnectionWarmer warmer;
+	@Nullable private RateLimiter limiter;
+	@Nullable private ConcurrencyLimiter concurrency;
+	@Nullable private RequestListener listener;
+	@Nullable private LatencyTracker latencies;
+	@Nonnull private Priority priority = Priority.INTERACTIVE;
 	private boolean filterProfanity;
 	@Nonnull private Language language;
 	@Nonnull private GuessType guessType;
@@ -129,6 +152,346 @@ public class AkiwrapperBuilder {
 		return this.unirest;
 	}
 
+	/**
+	 * Sets the {@link Transport} that the built Akiwrapper instance will make its HTTP
+	 * requests with, for example a {@link JavaHttpTransport} to use
+	 * {@link java.net.http.HttpClient} (and HTTP/2) instead of Unirest. If this is set,
+	 * {@link #getUnirestInstance()} is ignored.
+	 *
+	 * @param transport
+	 *            the {@link Transport} to be used by Akiwrapper or {@code null} to use a
+	 *            {@link UnirestTransport} over {@link #getUnirestInstance()}
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setTransport(@Nullable Transport transport) {
+		this.transport = transport;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link Transport} to be used by the built Akiwrapper instance.
+	 *
+	 * @return {@link Transport} to be used or {@code null} for a
+	 *         {@link UnirestTransport} over {@link #getUnirestInstance()}
+	 */
+	@Nullable
+	public Transport getTransport() {
+		return this.transport;
+	}
+
+	/**
+	 * Sets the {@link UpstreamDispatcher} that all requests made by the built Akiwrapper
+	 * instance will go through. Sharing one dispatcher between instances makes
+	 * background and speculative requests from all of them yield to interactive ones.
+	 *
+	 * @param dispatcher
+	 *            the {@link UpstreamDispatcher} to be used by Akiwrapper or {@code null}
+	 *            to use {@link UpstreamDispatcher#getDefault()}
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setDispatcher(@Nullable UpstreamDispatcher dispatcher) {
+		this.dispatcher = dispatcher;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link UpstreamDispatcher} to be used by the built Akiwrapper
+	 * instance.
+	 *
+	 * @return {@link UpstreamDispatcher} to be used or {@code null} for
+	 *         {@link UpstreamDispatcher#getDefault()}
+	 */
+	@Nullable
+	public UpstreamDispatcher getDispatcher() {
+		return this.dispatcher;
+	}
+
+	/**
+	 * Sets the {@link RetryScheduler} that decides how failed requests made by the built
+	 * Akiwrapper instance are retried. Instances that share a scheduler also share its
+	 * retry budget.
+	 *
+	 * @param retries
+	 *            the {@link RetryScheduler} to be used by Akiwrapper or {@code null} to
+	 *            use {@link RetryScheduler#getDefault()}
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setRetryScheduler(@Nullable RetryScheduler retries) {
+		this.retries = retries;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link RetryScheduler} to be used by the built Akiwrapper instance.
+	 *
+	 * @return {@link RetryScheduler} to be used or {@code null} for
+	 *         {@link RetryScheduler#getDefault()}
+	 */
+	@Nullable
+	public RetryScheduler getRetryScheduler() {
+		return this.retries;
+	}
+
+	/**
+	 * Sets the {@link CircuitBreakers} that keep track of failing servers. The built
+	 * Akiwrapper instance's requests fail right away while its server's circuit is
+	 * open, and servers with open circuits are skipped when creating the session.
+	 *
+	 * @param breakers
+	 *            the {@link CircuitBreakers} to be used by Akiwrapper or {@code null} to
+	 *            use {@link CircuitBreakers#getDefault()}
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setCircuitBreakers(@Nullable CircuitBreakers breakers) {
+		this.breakers = breakers;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link CircuitBreakers} to be used by the built Akiwrapper instance.
+	 *
+	 * @return {@link CircuitBreakers} to be used or {@code null} for
+	 *         {@link CircuitBreakers#getDefault()}
+	 */
+	@Nullable
+	public CircuitBreakers getCircuitBreakers() {
+		return this.breakers;
+	}
+
+	/**
+	 * Sets the time budget for each call made on the built Akiwrapper instance. The
+	 * budget covers the whole call, including waiting for a free upstream slot and
+	 * any retries: a retry is not attempted if its delay wouldn't fit in what's left
+	 * of it, and the call fails with a {@link DeadlineExceededException} once it runs
+	 * out. {@link #build()} and {@link #buildAsync()} count as a single call as well,
+	 * so fetching the server list and the API key and creating the session all share
+	 * one budget.
+	 *
+	 * @param callTimeout
+	 *            the time budget for each call or {@code null} to not limit calls
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setCallTimeout(@Nullable Duration callTimeout) {
+		this.callTimeout = callTimeout;
+		return this;
+	}
+
+	/**
+	 * Returns the time budget for each call made on the built Akiwrapper instance.
+	 *
+	 * @return the time budget for each call or {@code null} if calls aren't limited
+	 */
+	@Nullable
+	public Duration getCallTimeout() {
+		return this.callTimeout;
+	}
+
+	/**
+	 * Sets the {@link RateLimiter} that keeps the built Akiwrapper instance's requests
+	 * under Akinator's rate limits. Requests that would have to wait too long for their
+	 * host's rate limit fail with a {@link RateLimitedException}.
+	 *
+	 * @param limiter
+	 *            the {@link RateLimiter} to be used by Akiwrapper or {@code null} to use
+	 *            {@link RateLimiter#getDefault()}
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setRateLimiter(@Nullable RateLimiter limiter) {
+		this.limiter = limiter;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link RateLimiter} to be used by the built Akiwrapper instance.
+	 *
+	 * @return {@link RateLimiter} to be used or {@code null} for
+	 *         {@link RateLimiter#getDefault()}
+	 */
+	@Nullable
+	public RateLimiter getRateLimiter() {
+		return this.limiter;
+	}
+
+	/**
+	 * Sets the {@link ConcurrencyLimiter} that adapts the number of concurrent requests
+	 * the built Akiwrapper instance sends to each host to how well the host is keeping
+	 * up. Requests that find too many others waiting for their host fail with a
+	 * {@link ConcurrencyLimitExceededException}.
+	 *
+	 * @param concurrency
+	 *            the {@link ConcurrencyLimiter} to be used by Akiwrapper or {@code null}
+	 *            to use {@link ConcurrencyLimiter#getDefault()}
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setConcurrencyLimiter(@Nullable ConcurrencyLimiter concurrency) {
+		this.concurrency = concurrency;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link ConcurrencyLimiter} to be used by the built Akiwrapper instance.
+	 *
+	 * @return {@link ConcurrencyLimiter} to be used or {@code null} for
+	 *         {@link ConcurrencyLimiter#getDefault()}
+	 */
+	@Nullable
+	public ConcurrencyLimiter getConcurrencyLimiter() {
+		return this.concurrency;
+	}
+
+	/**
+	 * Sets the {@link LatencyTracker} the latencies of the built Akiwrapper instance's
+	 * requests are recorded into, by route and by host.
+	 *
+	 * @param latencies
+	 *            the {@link LatencyTracker} to be used by Akiwrapper or {@code null} to
+	 *            use {@link LatencyTracker#getDefault()}
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setLatencyTracker(@Nullable LatencyTracker latencies) {
+		this.latencies = latencies;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link LatencyTracker} to be used by the built Akiwrapper instance.
+	 *
+	 * @return {@link LatencyTracker} to be used or {@code null} for
+	 *         {@link LatencyTracker#getDefault()}
+	 */
+	@Nullable
+	public LatencyTracker getLatencyTracker() {
+		return this.latencies;
+	}
+
+	/**
+	 * Sets the {@link RequestListener} that's told about the phases of each request the
+	 * built Akiwrapper instance makes and how long they took.
+	 *
+	 * @param listener
+	 *            the {@link RequestListener} to be used by Akiwrapper or {@code null} to
+	 *            not listen to requests
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setRequestListener(@Nullable RequestListener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link RequestListener} to be used by the built Akiwrapper instance.
+	 *
+	 * @return {@link RequestListener} to be used or {@code null} if requests aren't
+	 *         listened to
+	 */
+	@Nullable
+	public RequestListener getRequestListener() {
+		return this.listener;
+	}
+
+	/**
+	 * Sets the {@link Hedger} that hedges creating the session while building the
+	 * Akiwrapper instance: if creating it on one of the available servers takes
+	 * unusually long, it's also created on the next one.
+	 *
+	 * @param hedger
+	 *            the {@link Hedger} to be used or {@code null} to use
+	 *            {@link Hedger#getDefault()}
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setHedger(@Nullable Hedger hedger) {
+		this.hedger = hedger;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link Hedger} to be used while building the Akiwrapper instance.
+	 *
+	 * @return {@link Hedger} to be used or {@code null} for {@link Hedger#getDefault()}
+	 */
+	@Nullable
+	public Hedger getHedger() {
+		return this.hedger;
+	}
+
+	/**
+	 * Sets the {@link ConnectionWarmer} that opens connections to the game servers as
+	 * soon as they're listed, so that the game's first requests to them don't have to
+	 * set up a connection.
+	 *
+	 * @param warmer
+	 *            the {@link ConnectionWarmer} to be used by Akiwrapper or {@code null} to
+	 *            use {@link ConnectionWarmer#getDefault()}
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setConnectionWarmer(@Nullable ConnectionWarmer warmer) {
+		this.warmer = warmer;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link ConnectionWarmer} to be used by the built Akiwrapper instance.
+	 *
+	 * @return {@link ConnectionWarmer} to be used or {@code null} for
+	 *         {@link ConnectionWarmer#getDefault()}
+	 */
+	@Nullable
+	public ConnectionWarmer getConnectionWarmer() {
+		return this.warmer;
+	}
+
+	/**
+	 * Sets the {@link Priority} of the requests made while building the Akiwrapper
+	 * instance (fetching the server list and creating the session). Set this to
+	 * {@link Priority#SPECULATIVE} when creating sessions ahead of time so that they
+	 * only use spare capacity. Requests made by the built instance afterwards are not
+	 * affected.<br>
+	 * This is set to {@link Priority#INTERACTIVE} by default.
+	 *
+	 * @param priority
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public AkiwrapperBuilder setPriority(@Nonnull Priority priority) {
+		this.priority = priority;
+		return this;
+	}
+
+	/**
+	 * Returns the {@link Priority} of the requests made while building the Akiwrapper
+	 * instance.<br>
+	 * This is set to {@link Priority#INTERACTIVE} by default.
+	 *
+	 * @return session creation priority
+	 */
+	@Nonnull
+	public Priority getPriority() {
+		return this.priority;
+	}
+
 	/**
 	 * Sets the "filter profanity" mode. Keep in mind that explicit {@link Guess}es can
 	 * still be returned by {@link Akiwrapper#getGuesses()} or
@@ -233,8 +596,8 @@ public class AkiwrapperBuilder {
 	}
 
 	/**
-	 * Creates a new {@link Akiwrapper} instance from your preferences. If no
-	 * {@link UnirestInstance} was set (with
+	 * Creates a new {@link Akiwrapper} instance from your preferences. If neither a
+	 * {@link Transport} nor a {@link UnirestInstance} was set (with
 	 * {@link #setUnirestInstance(UnirestInstance)}), a singleton instance will be
 	 * acquired from {@link UnirestUtils#getInstance()}. This instance must be shut down
 	 * after you're done using Akiwrapper with {@link UnirestUtils#shutdownInstance()},
@@ -247,27 +610,109 @@ public class AkiwrapperBuilder {
 	 *             available.
 	 */
 	@Nonnull
-	@SuppressWarnings({ "resource", "null" })
+	@SuppressWarnings("null")
 	public Akiwrapper build() throws ServerNotFoundException {
-		var unirest = this.unirest != null ? this.unirest : UnirestUtils.getInstance();
+		try {
+			return buildAsync().join();
 
-		var servers = findServers(unirest, this.getLanguage(), this.getGuessType());
-		if (servers.isEmpty())
-			throw new ServerNotFoundException(format("No servers exist for %s - %s", this.language, this.guessType));
+		} catch (CompletionException e) {
+			throw asUnchecked(unwrapCompletion(e));
+		}
+	}
 
-		for (var server : servers) {
-			try {
-				var api = new AkiwrapperImpl(unirest, server, this.filterProfanity);
-				api.createSession();
-				return api;
+	/**
+	 * Creates a new {@link Akiwrapper} instance from your preferences without blocking
+	 * the calling thread. This behaves like {@link #build()}, except that requests are
+	 * made with {@link Transport#getAsync(String)}.<br>
+	 * The session is created on the first available server, and if that takes
+	 * unusually long or the server fails, also on the next one (see {@link Hedger}).
+	 * The instance whose session is created first is used.
+	 *
+	 * @return a {@link CompletableFuture} completed with a new {@link Akiwrapper}
+	 *         instance, or completed exceptionally with a
+	 *         {@link ServerNotFoundException} if no server with that {@link Language}
+	 *         and {@link GuessType} is available.
+	 *
+	 * @see #build()
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public CompletableFuture<Akiwrapper> buildAsync() {
+		var transport = resolveTransport();
+		var dispatcher = resolveDispatcher();
+		var hedger = this.hedger != null ? this.hedger : Hedger.getDefault();
+		var breakers = this.breakers != null ? this.breakers : CircuitBreakers.getDefault();
+		var warmer = this.warmer != null ? this.warmer : ConnectionWarmer.getDefault();
+		var bootstrap = resolveBootstrap(transport, dispatcher);
+		// fetching the server list and the API key and creating the session all share one
+		// deadline, same as the requests made by a single call do
+		var deadline = Deadline.of(this.callTimeout);
 
-			} catch (ServerStatusException e) {
-				LOG.debug("Failed to construct an instance, trying the next available server", e);
-			}
-		}
+		return findServersAsync(bootstrap, this.priority, deadline, this.getLanguage(), this.getGuessType())
+			.thenCompose(servers -> {
+				if (servers.isEmpty())
+					throw new ServerNotFoundException(format("No servers exist for %s - %s", this.language,
+															 this.guessType));
+
+				// not waited for, this only helps the requests that come after it
+				var urls = servers.stream().map(Server::getUrl).collect(toList());
+				warmer.warm(bootstrap, Endpoint.GAME_SERVER, urls);
+
+				var candidates = servers.stream()
+					.filter(server -> !breakers.isOpen(server.getUrl()))
+					.map(server -> (Supplier<CompletableFuture<Akiwrapper>>) () -> {
+						var api = new AkiwrapperImpl(this, transport, server);
+						var session = api.createSessionAsync(this.priority, deadline);
+						// the hedger cancels the attempts that lost, which has to reach their requests
+						return propagateCancellation(session.whenComplete((v, e) -> {
+							if (e != null)
+								LOG.debug("Failed to construct an instance on {}", server.getUrl(), unwrapCompletion(e));
+						}).thenApply(v -> api), session);
+					})
+					.collect(toList());
+
+				if (candidates.isEmpty()) {
+					var message = format("Servers exist for %s - %s, but all of them are failing", this.language,
+										 this.guessType);
+					throw new ServerNotFoundException(message);
+				}
 
-		throw new ServerNotFoundException(format("Servers exist for %s - %s, but none of them is usable", this.language,
-												 this.guessType));
+				return hedger.hedge(NEW_SESSION.getName(), candidates);
+			})
+			.exceptionally(e -> {
+				var cause = unwrapCompletion(e);
+				if (!(cause instanceof ServerStatusException) && !(cause instanceof CircuitOpenException))
+					throw asUnchecked(cause);
+
+				var message = format("Servers exist for %s - %s, but none of them is usable", this.language,
+									 this.guessType);
+				throw new ServerNotFoundException(message, cause);
+			});
+	}
+
+	@Nonnull
+	@SuppressWarnings({ "resource", "null" })
+	private Transport resolveTransport() {
+		if (this.transport != null)
+			return this.transport;
+
+		return new UnirestTransport(this.unirest != null ? this.unirest : UnirestUtils.getInstance());
+	}
+
+	@Nonnull
+	private UpstreamDispatcher resolveDispatcher() {
+		return this.dispatcher != null ? this.dispatcher : UpstreamDispatcher.getDefault();
+	}
+
+	// the requests made while building are limited and reported like the instance's own
+	@Nonnull
+	@SuppressWarnings("null")
+	private BootstrapClient resolveBootstrap(@Nonnull Transport transport, @Nonnull UpstreamDispatcher dispatcher) {
+		return new BootstrapClient(transport, dispatcher,
+								   this.limiter != null ? this.limiter : RateLimiter.getDefault(),
+								   this.concurrency != null ? this.concurrency : ConcurrencyLimiter.getDefault(),
+								   this.listener != null ? this.listener : RequestListener.NONE,
+								   this.latencies != null ? this.latencies : LatencyTracker.getDefault());
 	}
 
 }
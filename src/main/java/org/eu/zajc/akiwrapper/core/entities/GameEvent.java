@@ -0,0 +1,99 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.entities;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.Akiwrapper;
+
+/**
+ * Something that happened in an {@link Akiwrapper} session. Events are published
+ * through {@link Akiwrapper#getEvents()} as the session progresses, whether through
+ * the blocking or the asynchronous calls.
+ */
+public interface GameEvent {
+
+	/**
+	 * The type of a {@link GameEvent}.
+	 */
+	enum Type {
+
+		/**
+		 * A new {@link Question} was received after an answer. Carries the question.
+		 */
+		QUESTION,
+
+		/**
+		 * A {@link Guess} was suggested by {@link Akiwrapper#suggestGuess()}. Carries the
+		 * guess.
+		 */
+		GUESS_SUGGESTED,
+
+		/**
+		 * The last suggested {@link Guess} was rejected. Carries the rejected guess and the
+		 * replacement {@link Question} (which is {@code null} if the session is
+		 * exhausted).
+		 */
+		GUESS_REJECTED,
+
+		/**
+		 * An answer was undone. Carries the previous {@link Question}.
+		 */
+		UNDO,
+
+		/**
+		 * The session ran out of questions. Carries neither a question nor a guess.
+		 */
+		EXHAUSTED
+
+	}
+
+	/**
+	 * @return the type of this event
+	 */
+	@Nonnull
+	Type getType();
+
+	/**
+	 * Returns the sequence number of this event. Every event in a session gets the next
+	 * number, starting at {@code 0}, so a subscriber that fell behind and had events
+	 * dropped can tell by the gap between the numbers of the events it did get.
+	 *
+	 * @return the sequence number of this event within its session
+	 */
+	long getSequence();
+
+	/**
+	 * @return the step the session was on after this event
+	 */
+	int getStep();
+
+	/**
+	 * @return the {@link Question} this event carries, or {@code null} if it doesn't
+	 *         carry one
+	 */
+	@Nullable
+	Question getQuestion();
+
+	/**
+	 * @return the {@link Guess} this event carries, or {@code null} if it doesn't carry
+	 *         one
+	 */
+	@Nullable
+	Guess getGuess();
+
+}
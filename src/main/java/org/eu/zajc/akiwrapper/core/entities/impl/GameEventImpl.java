@@ -0,0 +1,71 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.entities.impl;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.core.entities.*;
+
+/**
+ * <b>Note:</b> This is an internal class and its internals are subject to change
+ * without prior deprecation. Use with caution.<br>
+ * <br>
+ */
+@SuppressWarnings("javadoc") // internal impl
+public class GameEventImpl implements GameEvent {
+
+	@Nonnull private final Type type;
+	private final long sequence;
+	private final int step;
+	@Nullable private final Question question;
+	@Nullable private final Guess guess;
+
+	public GameEventImpl(@Nonnull Type type, long sequence, int step, @Nullable Question question,
+						 @Nullable Guess guess) {
+		this.type = type;
+		this.sequence = sequence;
+		this.step = step;
+		this.question = question;
+		this.guess = guess;
+	}
+
+	@Override
+	public Type getType() {
+		return this.type;
+	}
+
+	@Override
+	public long getSequence() {
+		return this.sequence;
+	}
+
+	@Override
+	public int getStep() {
+		return this.step;
+	}
+
+	@Override
+	public Question getQuestion() {
+		return this.question;
+	}
+
+	@Override
+	public Guess getGuess() {
+		return this.guess;
+	}
+
+}
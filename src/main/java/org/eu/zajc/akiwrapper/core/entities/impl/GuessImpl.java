@@ -18,14 +18,14 @@
 package org.eu.zajc.akiwrapper.core.entities.impl;
 
 import static java.lang.Double.compare;
-import static org.eu.zajc.akiwrapper.core.utils.JSONUtils.*;
+import static org.eu.zajc.akiwrapper.core.utils.JSONReader.require;
 
 import java.net.*;
 
 import javax.annotation.*;
 
 import org.eu.zajc.akiwrapper.core.entities.Guess;
-import org.json.JSONObject;
+import org.eu.zajc.akiwrapper.core.utils.JSONReader;
 
 /**
  * <b>Note:</b> This is an internal class and its internals are subject to change
@@ -54,23 +54,63 @@ public class GuessImpl implements Guess {
 		this.explicit = explicit;
 	}
 
+	@Nonnull
 	@SuppressWarnings("null")
-	public static GuessImpl fromJson(@Nonnull JSONObject json) {
-		return new GuessImpl(json.getString("id"), json.getString("name"), getDescription(json), getImage(json),
-							 getDouble(json, "proba").orElseThrow(), getInteger(json, "corrupt").orElseThrow() == 1);
+	public static GuessImpl fromJson(@Nonnull JSONReader json) {
+		String id = null;
+		String name = null;
+		String description = null;
+		String picture = null;
+		String absolutePicture = null;
+		Double probability = null;
+		Integer corrupt = null;
+
+		json.beginObject();
+		while (json.hasNext()) {
+			switch (json.nextName()) {
+				case "id":
+					id = json.nextString();
+					break;
+				case "name":
+					name = json.nextString();
+					break;
+				case "description":
+					description = json.nextString();
+					break;
+				case "picture_path":
+					picture = json.nextString();
+					break;
+				case "absolute_picture_path":
+					absolutePicture = json.nextString();
+					break;
+				case "proba":
+					probability = json.nextDouble();
+					break;
+				case "corrupt":
+					corrupt = json.nextInt();
+					break;
+				default:
+					json.skipValue();
+			}
+		}
+
+		return new GuessImpl(require(id, "id"), require(name, "name"),
+							 getDescription(require(description, "description")), getImage(picture, absolutePicture),
+							 require(probability, "proba"), require(corrupt, "corrupt") == 1);
 	}
 
 	@Nullable
-	private static String getDescription(@Nonnull JSONObject json) {
-		var desc = json.getString("description");
-		return "-".equals(desc) ? null : desc;
+	private static String getDescription(@Nonnull String description) {
+		return "-".equals(description) ? null : description;
 	}
 
 	@Nullable
-	private static URL getImage(@Nonnull JSONObject json) {
+	private static URL getImage(@Nullable String picture, @Nullable String absolutePicture) {
+		if (picture == null || absolutePicture == null || "none.jpg".equals(picture))
+			return null;
+
 		try {
-			return "none.jpg".equals(json.getString("picture_path")) ? null
-				: new URL(json.getString("absolute_picture_path"));
+			return new URL(absolutePicture);
 
 		} catch (MalformedURLException e) {
 			return null;
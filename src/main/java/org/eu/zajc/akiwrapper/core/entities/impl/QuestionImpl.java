@@ -16,12 +16,12 @@
  */
 package org.eu.zajc.akiwrapper.core.entities.impl;
 
-import static org.eu.zajc.akiwrapper.core.utils.JSONUtils.*;
+import static org.eu.zajc.akiwrapper.core.utils.JSONReader.require;
 
 import javax.annotation.*;
 
 import org.eu.zajc.akiwrapper.core.entities.Question;
-import org.json.JSONObject;
+import org.eu.zajc.akiwrapper.core.utils.JSONReader;
 
 /**
  * <b>Note:</b> This is an internal class and its internals are subject to change
@@ -48,11 +48,40 @@ public class QuestionImpl implements Question {
 		this.progression = progression;
 	}
 
+	@Nonnull
 	@SuppressWarnings("null")
-	public static QuestionImpl fromJson(@Nonnull JSONObject json) {
-		return new QuestionImpl(json.getString("questionid"), json.getString("question"),
-								getInteger(json, "step").orElseThrow(), getDouble(json, "infogain").orElseThrow(),
-								getDouble(json, "progression").orElseThrow());
+	public static QuestionImpl fromJson(@Nonnull JSONReader json) {
+		String id = null;
+		String question = null;
+		Integer step = null;
+		Double gain = null;
+		Double progression = null;
+
+		json.beginObject();
+		while (json.hasNext()) {
+			switch (json.nextName()) {
+				case "questionid":
+					id = json.nextString();
+					break;
+				case "question":
+					question = json.nextString();
+					break;
+				case "step":
+					step = json.nextInt();
+					break;
+				case "infogain":
+					gain = json.nextDouble();
+					break;
+				case "progression":
+					progression = json.nextDouble();
+					break;
+				default:
+					json.skipValue();
+			}
+		}
+
+		return new QuestionImpl(require(id, "questionid"), require(question, "question"), require(step, "step"),
+								require(gain, "infogain"), require(progression, "progression"));
 	}
 
 	@Override
@@ -21,7 +21,6 @@ import static org.eu.zajc.akiwrapper.core.entities.Status.Reason.UNKNOWN;
 import javax.annotation.*;
 
 import org.eu.zajc.akiwrapper.core.entities.Status;
-import org.json.JSONObject;
 
 /**
  * <b>Note:</b> This is an internal class and its internals are subject to change
@@ -46,11 +45,6 @@ public class StatusImpl implements Status {
 		return new StatusImpl(level, message, reason);
 	}
 
-	@SuppressWarnings("null")
-	public static StatusImpl fromJson(@Nonnull JSONObject json) {
-		return fromCompletion(json.getString("completion"));
-	}
-
 	private StatusImpl(@Nonnull Level level, @Nullable String message, @Nonnull Reason reason) {
 		this.level = level;
 		this.message = message;
@@ -18,7 +18,7 @@ package org.eu.zajc.akiwrapper.core.exceptions;
 
 import javax.annotation.*;
 
-import kong.unirest.HttpResponse;
+import org.eu.zajc.akiwrapper.core.transport.TransportResponse;
 
 /**
  * The root exception class for exceptions in Akiwrapper.
@@ -28,7 +28,7 @@ import kong.unirest.HttpResponse;
 public class AkinatorException extends RuntimeException {
 
 	private final String requestUrl;
-	private final transient HttpResponse<String> response;
+	private final transient TransportResponse response;
 
 	@SuppressWarnings("javadoc") // internal
 	public AkinatorException() {
@@ -44,7 +44,7 @@ public class AkinatorException extends RuntimeException {
 	}
 
 	@SuppressWarnings("javadoc") // internal
-	public AkinatorException(String message, String requestUrl, HttpResponse<String> response) {
+	public AkinatorException(String message, String requestUrl, TransportResponse response) {
 		super(message);
 		this.requestUrl = requestUrl;
 		this.response = response;
@@ -58,7 +58,7 @@ public class AkinatorException extends RuntimeException {
 	}
 
 	@SuppressWarnings("javadoc") // internal
-	public AkinatorException(String message, Throwable cause, String requestUrl, HttpResponse<String> response) {
+	public AkinatorException(String message, Throwable cause, String requestUrl, TransportResponse response) {
 		super(message, cause);
 		this.requestUrl = requestUrl;
 		this.response = response;
@@ -72,7 +72,7 @@ public class AkinatorException extends RuntimeException {
 
 	@Nullable
 	@SuppressWarnings("javadoc") // internal
-	public HttpResponse<String> getResponse() {
+	public TransportResponse getResponse() {
 		return this.response;
 	}
 
@@ -94,7 +94,8 @@ public class AkinatorException extends RuntimeException {
 			sb.append(' ');
 			sb.append(this.response.getStatusText());
 			sb.append('\n');
-			sb.append(this.response.getHeaders());
+			this.response.getHeaders()
+				.forEach((name, values) -> values.forEach(v -> sb.append(name).append(": ").append(v).append('\n')));
 			sb.append("\n\n");
 			sb.append(this.response.getBody());
 		}
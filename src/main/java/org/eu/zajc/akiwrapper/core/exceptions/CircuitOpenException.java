@@ -0,0 +1,45 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.exceptions;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An exception indicating that a request wasn't sent because the server it was meant
+ * for has been failing recently and its circuit breaker is open.
+ *
+ * @see org.eu.zajc.akiwrapper.core.utils.CircuitBreakers
+ */
+public class CircuitOpenException extends AkinatorException {
+
+	@Nonnull private final String serverUrl;
+
+	@SuppressWarnings("javadoc") // internal
+	public CircuitOpenException(@Nonnull String serverUrl) {
+		super("The circuit breaker for " + serverUrl + " is open");
+		this.serverUrl = serverUrl;
+	}
+
+	/**
+	 * @return the URL of the server the request was meant for
+	 */
+	@Nonnull
+	public String getServerUrl() {
+		return this.serverUrl;
+	}
+
+}
@@ -0,0 +1,45 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.exceptions;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An exception indicating that a request wasn't sent because the host it was meant
+ * for already has as many requests waiting as it's currently able to take.
+ *
+ * @see org.eu.zajc.akiwrapper.core.utils.ConcurrencyLimiter
+ */
+public class ConcurrencyLimitExceededException extends AkinatorException {
+
+	@Nonnull private final String host;
+
+	@SuppressWarnings("javadoc") // internal
+	public ConcurrencyLimitExceededException(@Nonnull String host) {
+		super("Too many requests to " + host + " are already waiting");
+		this.host = host;
+	}
+
+	/**
+	 * @return the host the request was meant for
+	 */
+	@Nonnull
+	public String getHost() {
+		return this.host;
+	}
+
+}
@@ -0,0 +1,45 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.exceptions;
+
+import javax.annotation.Nonnull;
+
+/**
+ * An exception indicating that a request wasn't sent because it would have had to
+ * wait longer than allowed for the rate limit of the host it was meant for.
+ *
+ * @see org.eu.zajc.akiwrapper.core.utils.RateLimiter
+ */
+public class RateLimitedException extends AkinatorException {
+
+	@Nonnull private final String host;
+
+	@SuppressWarnings("javadoc") // internal
+	public RateLimitedException(@Nonnull String host) {
+		super("The rate limit for " + host + " is exhausted");
+		this.host = host;
+	}
+
+	/**
+	 * @return the host the request was meant for
+	 */
+	@Nonnull
+	public String getHost() {
+		return this.host;
+	}
+
+}
@@ -34,4 +34,9 @@ public class ServerNotFoundException extends AkinatorException {
 		super(message);
 	}
 
+	@SuppressWarnings("javadoc") // internal
+	public ServerNotFoundException(@Nonnull String message, @Nonnull Throwable cause) {
+		super(message, cause);
+	}
+
 }
@@ -18,8 +18,7 @@ package org.eu.zajc.akiwrapper.core.exceptions;
 
 import org.eu.zajc.akiwrapper.core.entities.Status;
 import org.eu.zajc.akiwrapper.core.entities.Status.Level;
-
-import kong.unirest.HttpResponse;
+import org.eu.zajc.akiwrapper.core.transport.TransportResponse;
 
 /**
  * An exception indicating that the server returned an error code
@@ -32,7 +31,7 @@ public class ServerStatusException extends AkinatorException {
 	private final Status status;
 
 	@SuppressWarnings("javadoc") // internal
-	public ServerStatusException(Status status, String requestUrl, HttpResponse<String> response) {
+	public ServerStatusException(Status status, String requestUrl, TransportResponse response) {
 		super(status.toString(), requestUrl, response);
 		this.status = status;
 	}
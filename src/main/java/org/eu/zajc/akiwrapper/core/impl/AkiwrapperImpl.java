@@ -16,26 +16,33 @@
  */
 package org.eu.zajc.akiwrapper.core.impl;
 
-import static java.lang.Integer.parseInt;
-import static java.lang.Long.parseLong;
 import static java.lang.String.format;
-import static java.util.stream.Collectors.toUnmodifiableList;
-import static java.util.stream.StreamSupport.stream;
 import static org.eu.zajc.akiwrapper.core.entities.Status.Reason.QUESTIONS_EXHAUSTED;
+import static org.eu.zajc.akiwrapper.core.utils.Tracing.*;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.*;
 import static org.eu.zajc.akiwrapper.core.utils.route.Routes.*;
 
-import java.util.List;
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
 
-import javax.annotation.Nonnull;
+import javax.annotation.*;
 
 import org.eclipse.collections.api.factory.primitive.LongSets;
 import org.eclipse.collections.api.set.primitive.MutableLongSet;
-import org.eu.zajc.akiwrapper.Akiwrapper;
+import org.eu.zajc.akiwrapper.*;
 import org.eu.zajc.akiwrapper.core.entities.*;
+import org.eu.zajc.akiwrapper.core.entities.GameEvent.Type;
 import org.eu.zajc.akiwrapper.core.entities.impl.*;
 import org.eu.zajc.akiwrapper.core.exceptions.*;
-import org.eu.zajc.akiwrapper.core.utils.ApiKey;
-import org.json.JSONObject;
+import org.eu.zajc.akiwrapper.core.transport.*;
+import org.eu.zajc.akiwrapper.core.utils.*;
+import org.eu.zajc.akiwrapper.core.utils.UpstreamDispatcher.Priority;
+import org.eu.zajc.akiwrapper.core.utils.jfr.SessionEvent;
+import org.eu.zajc.akiwrapper.core.utils.route.*;
 import org.slf4j.*;
 
 import kong.unirest.UnirestInstance;
@@ -63,9 +70,26 @@ public class AkiwrapperImpl implements Akiwrapper {
 		}
 
 		@Nonnull
-		public static Session fromJson(@Nonnull JSONObject parameters) {
-			var session = parameters.getJSONObject("identification");
-			return new Session(parseLong(session.getString("signature")), parseInt(session.getString("session")));
+		@SuppressWarnings("null")
+		public static Session fromJson(@Nonnull JSONReader json) {
+			Long signature = null;
+			Integer session = null;
+
+			json.beginObject();
+			while (json.hasNext()) {
+				switch (json.nextName()) {
+					case "signature":
+						signature = json.nextLong();
+						break;
+					case "session":
+						session = json.nextInt();
+						break;
+					default:
+						json.skipValue();
+				}
+			}
+
+			return new Session(JSONReader.require(signature, "signature"), JSONReader.require(session, "session"));
 		}
 
 		public long getSignature() {
@@ -86,7 +110,10 @@ public class AkiwrapperImpl implements Akiwrapper {
 	private static final int LAST_STEP = 80;
 
 	@Nonnull private final ServerImpl server;
-	@Nonnull private final UnirestInstance unirest;
+	@Nonnull private final Transport transport;
+	@Nonnull private final UpstreamDispatcher dispatcher;
+	@Nonnull private final RetryScheduler retries;
+	@Nonnull private final CircuitBreakers breakers;
 	private final boolean filterProfanity;
 
 	private ApiKey apiKey;
@@ -94,80 +121,301 @@ public class AkiwrapperImpl implements Akiwrapper {
 	private Question question;
 	private int lastGuessStep;
 	private MutableLongSet rejectedGuesses = LongSets.mutable.empty();
+	private Guess lastGuess;
+	private volatile SubmissionPublisher<GameEvent> events;
+	private final AtomicLong eventSequence = new AtomicLong();
+	@Nullable private final Duration callTimeout;
+	@Nonnull private final RateLimiter limiter;
+	@Nonnull private final ConcurrencyLimiter concurrency;
+	@Nonnull private final RequestListener listener;
+	@Nonnull private final LatencyTracker latencies;
+	@Nonnull private final BootstrapClient bootstrap;
+	@Nonnull private final Set<Request> inFlight = ConcurrentHashMap.newKeySet();
+	private volatile boolean cancelled;
 
 	public AkiwrapperImpl(@Nonnull UnirestInstance unirest, @Nonnull ServerImpl server, boolean filterProfanity) {
-		this.filterProfanity = filterProfanity;
+		this(new AkiwrapperBuilder().setUnirestInstance(unirest).setFilterProfanity(filterProfanity),
+			 new UnirestTransport(unirest), server);
+	}
+
+	/**
+	 * Creates an instance on the given server with the settings of an
+	 * {@link AkiwrapperBuilder}, using the defaults for the ones it leaves unset.
+	 *
+	 * @param builder
+	 *            the builder the instance is built by
+	 * @param transport
+	 *            the {@link Transport} the builder resolved, which is shared with the
+	 *            requests made while building
+	 * @param server
+	 *            the server to play on
+	 */
+	public AkiwrapperImpl(@Nonnull AkiwrapperBuilder builder, @Nonnull Transport transport,
+						  @Nonnull ServerImpl server) {
 		this.server = server;
-		this.unirest = unirest;
+		this.transport = transport;
+		this.filterProfanity = builder.doesFilterProfanity();
+		this.callTimeout = builder.getCallTimeout();
+		this.dispatcher = orDefault(builder.getDispatcher(), UpstreamDispatcher::getDefault);
+		this.retries = orDefault(builder.getRetryScheduler(), RetryScheduler::getDefault);
+		this.breakers = orDefault(builder.getCircuitBreakers(), CircuitBreakers::getDefault);
+		this.limiter = orDefault(builder.getRateLimiter(), RateLimiter::getDefault);
+		this.concurrency = orDefault(builder.getConcurrencyLimiter(), ConcurrencyLimiter::getDefault);
+		this.listener = orDefault(builder.getRequestListener(), () -> RequestListener.NONE);
+		this.latencies = orDefault(builder.getLatencyTracker(), LatencyTracker::getDefault);
+		this.bootstrap = new BootstrapClient(transport, this.dispatcher, this.limiter, this.concurrency, this.listener,
+											 this.latencies);
+	}
+
+	@Nonnull
+	private static <T> T orDefault(@Nullable T value, @Nonnull Supplier<T> defaultValue) {
+		return value != null ? value : defaultValue.get();
 	}
 
 	@SuppressWarnings("null")
 	public void createSession() {
-		this.apiKey = ApiKey.accquireApiKey(this.unirest);
-		var sessionParameters = NEW_SESSION.createRequest(this).execute().getBody();
-		this.session = Session.fromJson(sessionParameters);
-		this.question = QuestionImpl.fromJson(sessionParameters.getJSONObject("step_information"));
+		createSession(Priority.INTERACTIVE);
+	}
+
+	@SuppressWarnings("null")
+	public void createSession(@Nonnull Priority priority) {
+		createSession(priority, Deadline.of(this.callTimeout));
+	}
+
+	@SuppressWarnings("null")
+	public void createSession(@Nonnull Priority priority, @Nonnull Deadline deadline) {
+		operation("createSession", deadline, d -> {
+			this.apiKey = ApiKey.accquireApiKey(this.bootstrap, priority, d);
+			applySession(NEW_SESSION.createRequest(this, d).priority(priority).execute());
+			return null;
+		});
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	public CompletableFuture<Void> createSessionAsync(@Nonnull Priority priority) {
+		return createSessionAsync(priority, Deadline.of(this.callTimeout));
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	public CompletableFuture<Void> createSessionAsync(@Nonnull Priority priority, @Nonnull Deadline deadline) {
+		return operationAsync("createSession", deadline, d -> {
+			var apiKey = ApiKey.accquireApiKeyAsync(this.bootstrap, priority, d);
+			var running = new AtomicReference<CompletableFuture<Response>>();
+			var cancelled = new AtomicBoolean();
+			var created = apiKey.thenCompose(key -> {
+				this.apiKey = key;
+				var request = NEW_SESSION.createRequest(this, d).priority(priority).executeAsync();
+				running.set(request);
+				if (cancelled.get())
+					request.cancel(true);
+				return request;
+			}).thenAccept(this::applySession);
+
+			// cancelling either stops waiting for the API key or cancels the session request
+			created.whenComplete((r, e) -> {
+				if (!created.isCancelled())
+					return;
+
+				cancelled.set(true);
+				apiKey.cancel(true);
+				var request = running.get();
+				if (request != null)
+					request.cancel(true);
+			});
+			return created;
+		});
+	}
+
+	@SuppressWarnings("null")
+	private void applySession(@Nonnull Response response) {
+		Session newSession = null;
+		QuestionImpl firstQuestion = null;
+
+		var parameters = response.getBody();
+		parameters.beginObject();
+		while (parameters.hasNext()) {
+			switch (parameters.nextName()) {
+				case "identification":
+					newSession = Session.fromJson(parameters);
+					break;
+				case "step_information":
+					firstQuestion = QuestionImpl.fromJson(parameters);
+					break;
+				default:
+					parameters.skipValue();
+			}
+		}
+
+		this.session = JSONReader.require(newSession, "identification");
+		this.question = JSONReader.require(firstQuestion, "step_information");
 	}
 
 	@Override
 	public Question answer(Answer answer) {
+		return operation("answer", d -> applyAnswer(createAnswerRequest(answer, d).execute()));
+	}
+
+	@Override
+	@SuppressWarnings("null")
+	public CompletableFuture<Question> answerAsync(Answer answer) {
+		return operationAsync("answer", d -> executeAsync(createAnswerRequest(answer, d),
+														  r -> r.thenApply(this::applyAnswer)));
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private Request createAnswerRequest(@Nonnull Answer answer, @Nonnull Deadline deadline) {
 		if (isExhausted())
 			throw new QuestionsExhaustedException();
 
-		var response = ANSWER.createRequest(this)
+		return ANSWER.createRequest(this, deadline)
 			.parameter(PARAMETER_STEP, getStep())
-			.parameter(PARAMETER_ANSWER, answer.getId())
-			.execute();
+			.parameter(PARAMETER_ANSWER, answer.getId());
+	}
 
+	@Nullable
+	private Question applyAnswer(@Nonnull Response response) {
 		if (response.getStatus().getReason() == QUESTIONS_EXHAUSTED) {
-			return this.question = null;
+			this.question = null;
+			publish(Type.EXHAUSTED, null, null);
+			return null;
 		}
 
-		return this.question = QuestionImpl.fromJson(response.getBody());
+		var next = applyQuestion(response);
+		publish(Type.QUESTION, next, null);
+		return next;
 	}
 
 	@Override
 	@SuppressWarnings("null")
 	public Question undoAnswer() {
+		return operation("undoAnswer", d -> applyUndo(createUndoRequest(d).execute()));
+	}
+
+	@Override
+	@SuppressWarnings("null")
+	public CompletableFuture<Question> undoAnswerAsync() {
+		return operationAsync("undoAnswer", d -> executeAsync(createUndoRequest(d), r -> r.thenApply(this::applyUndo)));
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private Request createUndoRequest(@Nonnull Deadline deadline) {
 		if (isExhausted())
 			throw new QuestionsExhaustedException(); // the api won't let us
 
 		if (getStep() == 0)
 			throw new UndoOutOfBoundsException();
 
-		var response = CANCEL_ANSWER.createRequest(this).parameter(PARAMETER_STEP, getStep()).execute();
+		return CANCEL_ANSWER.createRequest(this, deadline).parameter(PARAMETER_STEP, getStep());
+	}
+
+	@Nonnull
+	private Question applyUndo(@Nonnull Response response) {
+		var previous = applyQuestion(response);
+		publish(Type.UNDO, previous, null);
+		return previous;
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private Question applyQuestion(@Nonnull Response response) {
 		return this.question = QuestionImpl.fromJson(response.getBody());
 	}
 
 	@Override
 	@SuppressWarnings("null")
 	public List<Guess> getGuesses(int count) {
-		var request = LIST.createRequest(this).parameter(PARAMETER_STEP, getStep());
+		return operation("getGuesses", d -> parseGuesses(createGuessesRequest(count, d).execute()));
+	}
+
+	@Override
+	@SuppressWarnings("null")
+	public CompletableFuture<List<Guess>> getGuessesAsync(int count) {
+		return operationAsync("getGuesses", d -> executeAsync(createGuessesRequest(count, d),
+															  r -> r.thenApply(AkiwrapperImpl::parseGuesses)));
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private Request createGuessesRequest(int count, @Nonnull Deadline deadline) {
+		var request = LIST.createRequest(this, deadline).parameter(PARAMETER_STEP, getStep());
 		if (count > 0)
 			request.parameter(PARAMETER_SIZE, count);
-		var response = request.execute();
+		return request;
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private static List<Guess> parseGuesses(@Nonnull Response response) {
+		// bound straight from the response as it's read, since LIST can return a lot of
+		// elements
+		List<Guess> guesses = null;
+
+		var parameters = response.getBody();
+		parameters.beginObject();
+		while (parameters.hasNext()) {
+			if (!"elements".equals(parameters.nextName())) {
+				parameters.skipValue();
+				continue;
+			}
+
+			guesses = new ArrayList<>();
+			parameters.beginArray();
+			while (parameters.hasNext()) {
+				parameters.beginObject();
+				while (parameters.hasNext()) {
+					if ("element".equals(parameters.nextName()))
+						guesses.add(GuessImpl.fromJson(parameters));
+					else
+						parameters.skipValue();
+				}
+			}
+		}
 
-		return stream(response.getBody().getJSONArray("elements").spliterator(), false).map(JSONObject.class::cast)
-			.map(j -> j.getJSONObject("element"))
-			.map(GuessImpl::fromJson)
-			.sorted()
-			.collect(toUnmodifiableList());
+		JSONReader.require(guesses, "elements").sort(null);
+		return List.copyOf(guesses);
 	}
 
 	@Override
 	public Guess suggestGuess() {
-		boolean shouldSuggest = isExhausted() || getStep() - this.lastGuessStep >= 5 // NOSONAR I'm just copying
+		return operation("suggestGuess", d -> {
+			if (!shouldSuggest())
+				return null;
+
+			return pickGuess(parseGuesses(createGuessesRequest(2, d).execute()));
+		});
+	}
+
+	@Override
+	@SuppressWarnings("null")
+	public CompletableFuture<Guess> suggestGuessAsync() {
+		return operationAsync("suggestGuess", d -> {
+			if (!shouldSuggest())
+				return CompletableFuture.completedFuture(null);
+
+			return executeAsync(createGuessesRequest(2, d), r -> r.thenApply(AkiwrapperImpl::parseGuesses)
+				.thenApply(this::pickGuess));
+		});
+	}
+
+	private boolean shouldSuggest() {
+		return isExhausted() || getStep() - this.lastGuessStep >= 5 // NOSONAR I'm just copying
 			&& (this.question != null && this.question.getProgression() > 97 || getStep() - this.lastGuessStep == 25)
 			&& getStep() != 75;
 		// I have no clue what that last part is, but that's what akinator does
+	}
 
-		if (!shouldSuggest)
-			return null;
-
-		for (var guess : getGuesses(2)) {
+	@Nullable
+	private Guess pickGuess(@Nonnull List<Guess> guesses) {
+		for (var guess : guesses) {
 			if (!this.rejectedGuesses.contains(guess.getIdLong())) {
 				this.rejectedGuesses.add(guess.getIdLong());
 				this.lastGuessStep = getStep();
+				this.lastGuess = guess;
+				publish(Type.GUESS_SUGGESTED, null, guess);
 				return guess;
 			}
 		}
@@ -176,33 +424,209 @@ public class AkiwrapperImpl implements Akiwrapper {
 
 	@Override
 	public Question rejectLastGuess() {
-		try {
-			var response = EXCLUSION.createRequest(this).parameter(PARAMETER_STEP, getStep()).execute();
-			return this.question = QuestionImpl.fromJson(response.getBody());
+		return operation("rejectLastGuess", d -> {
+			try {
+				return applyRejection(createRejectRequest(d).execute());
 
-		} catch (AkinatorException e) {
-			if (isExhausted()) {
-				// we don't care about out session anymore anyways, throwing would be silly
-				LOG.warn("Caught an exception when rejecting a guess", e);
-				return null;
+			} catch (AkinatorException e) {
+				return handleRejectFailure(e);
+			}
+		});
+	}
 
-			} else {
-				throw e;
+	@Override
+	@SuppressWarnings("null")
+	public CompletableFuture<Question> rejectLastGuessAsync() {
+		return operationAsync("rejectLastGuess", d -> executeAsync(createRejectRequest(d),
+																   r -> r.handle(this::handleRejection)));
+	}
+
+	@Nullable
+	@SuppressWarnings("null")
+	private Question handleRejection(@Nullable Response response, @Nullable Throwable e) {
+		if (e == null)
+			return applyRejection(response);
+
+		var cause = unwrapCompletion(e);
+		if (cause instanceof AkinatorException)
+			return handleRejectFailure((AkinatorException) cause);
+
+		throw asUnchecked(cause);
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private Request createRejectRequest(@Nonnull Deadline deadline) {
+		return EXCLUSION.createRequest(this, deadline).parameter(PARAMETER_STEP, getStep());
+	}
+
+	@Nonnull
+	private Question applyRejection(@Nonnull Response response) {
+		var replacement = applyQuestion(response);
+		publish(Type.GUESS_REJECTED, replacement, this.lastGuess);
+		return replacement;
+	}
+
+	@Nullable
+	private Question handleRejectFailure(@Nonnull AkinatorException e) {
+		if (isExhausted()) {
+			// we don't care about out session anymore anyways, throwing would be silly
+			LOG.warn("Caught an exception when rejecting a guess", e);
+			publish(Type.GUESS_REJECTED, null, this.lastGuess);
+			return null;
+
+		} else {
+			throw e;
+		}
+	}
+
+	@Override
+	public void confirmGuess(Guess guess) {
+		operation("confirmGuess", d -> {
+			try {
+				createConfirmRequest(guess, d).execute();
+			} catch (AkinatorException e) {
+				// we don't care about out session anymore anyways, throwing would be silly
+				LOG.warn("Caught an exception when confirming a guess", e);
+			} finally {
+				closeEvents();
 			}
+			return null;
+		});
+	}
+
+	@Override
+	@SuppressWarnings("null")
+	public CompletableFuture<Void> confirmGuessAsync(Guess guess) {
+		return operationAsync("confirmGuess", d -> executeAsync(createConfirmRequest(guess, d),
+																r -> r.handle(this::handleConfirmation)));
+	}
+
+	@Nullable
+	@SuppressWarnings({ "unused", "null" })
+	private Void handleConfirmation(@Nullable Response response, @Nullable Throwable e) {
+		closeEvents();
+		if (e != null) {
+			var cause = unwrapCompletion(e);
+			if (!(cause instanceof AkinatorException))
+				throw asUnchecked(cause);
+
+			// we don't care about out session anymore anyways, throwing would be silly
+			LOG.warn("Caught an exception when confirming a guess", cause);
 		}
+		return null;
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private Request createConfirmRequest(@Nonnull Guess guess, @Nonnull Deadline deadline) {
+		return CHOICE.createRequest(this, deadline)
+			.parameter(PARAMETER_STEP, getStep())
+			.parameter(PARAMETER_ELEMENT, guess.getId());
+	}
 
+	@Override
+	public void cancel() {
+		// set first, so a request either sees it or is already in flight to be cancelled
+		this.cancelled = true;
+		this.inFlight.forEach(Request::cancel);
 	}
 
 	@Override
-	public void confirmGuess(Guess guess) {
+	public Flow.Publisher<GameEvent> getEvents() {
+		var publisher = this.events;
+		if (publisher == null) {
+			synchronized (this) {
+				publisher = this.events;
+				if (publisher == null)
+					this.events = publisher = new SubmissionPublisher<>();
+			}
+		}
+		return publisher;
+	}
+
+	private void publish(@Nonnull Type type, @Nullable Question question, @Nullable Guess guess) {
+		// this runs on whatever thread completed the call (a transport thread for async
+		// ones), so a slow subscriber must not block it. Instead, events are dropped for
+		// subscribers whose buffer is full, which they can tell by the gap in the sequence
+		long sequence = this.eventSequence.getAndIncrement();
+		var publisher = this.events;
+		if (publisher != null && publisher.hasSubscribers() && !publisher.isClosed())
+			publisher.offer(new GameEventImpl(type, sequence, getStep(), question, guess), AkiwrapperImpl::dropEvent);
+	}
+
+	private static boolean dropEvent(@Nonnull Flow.Subscriber<? super GameEvent> subscriber,
+									 @Nonnull GameEvent event) {
+		LOG.debug("Dropped a {} event for a subscriber that fell behind", event.getType());
+		return false; // not retried
+	}
+
+	private void closeEvents() {
+		var publisher = this.events;
+		if (publisher != null)
+			publisher.close();
+	}
+
+	// each operation is both traced and recorded as a flight recorder event, and all
+	// requests it makes share a single deadline
+	private <T> T operation(@Nonnull String name, @Nonnull Function<Deadline, T> action) {
+		return operation(name, Deadline.of(this.callTimeout), action);
+	}
+
+	private <T> T operation(@Nonnull String name, @Nonnull Deadline deadline, @Nonnull Function<Deadline, T> action) {
+		var event = new SessionEvent(name);
+		event.begin();
 		try {
-			CHOICE.createRequest(this)
-				.parameter(PARAMETER_STEP, getStep())
-				.parameter(PARAMETER_ELEMENT, guess.getId())
-				.execute();
-		} catch (AkinatorException e) {
-			// we don't care about out session anymore anyways, throwing would be silly
-			LOG.warn("Caught an exception when confirming a guess", e);
+			return traced("akiwrapper " + name, () -> action.apply(deadline));
+
+		} catch (RuntimeException e) {
+			event.failed(e);
+			throw e;
+
+		} finally {
+			record(event);
+		}
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private <T> CompletableFuture<T> operationAsync(@Nonnull String name,
+													@Nonnull Function<Deadline, CompletableFuture<T>> action) {
+		return operationAsync(name, Deadline.of(this.callTimeout), action);
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private <T> CompletableFuture<T> operationAsync(@Nonnull String name, @Nonnull Deadline deadline,
+													@Nonnull Function<Deadline, CompletableFuture<T>> action) {
+		var event = new SessionEvent(name);
+		event.begin();
+		var result = tracedAsync("akiwrapper " + name, () -> action.apply(deadline));
+		return propagateCancellation(result.whenComplete((r, e) -> {
+			if (e != null)
+				event.failed(unwrapCompletion(e));
+			record(event);
+		}), result);
+	}
+
+	// stages derived from the request's future don't pass cancellation on to it by
+	// themselves, and cancelling a call has to reach its request
+	@Nonnull
+	@SuppressWarnings("null")
+	private static <T> CompletableFuture<T> executeAsync(@Nonnull Request request,
+														 @Nonnull Function<CompletableFuture<Response>,
+																		   CompletableFuture<T>> then) {
+		var response = request.executeAsync();
+		return propagateCancellation(then.apply(response), response);
+	}
+
+	private void record(@Nonnull SessionEvent event) {
+		event.end();
+		if (event.shouldCommit()) {
+			var current = this.session;
+			event.completed(URI.create(this.server.getUrl()).getHost(), current == null ? 0 : current.getSession(),
+							getStep());
+			event.commit();
 		}
 	}
 
@@ -242,8 +666,57 @@ public class AkiwrapperImpl implements Akiwrapper {
 	}
 
 	@Nonnull
-	public UnirestInstance getUnirest() {
-		return this.unirest;
+	public Transport getTransport() {
+		return this.transport;
+	}
+
+	@Nonnull
+	public UpstreamDispatcher getDispatcher() {
+		return this.dispatcher;
+	}
+
+	@Nonnull
+	public RetryScheduler getRetryScheduler() {
+		return this.retries;
+	}
+
+	@Nonnull
+	public CircuitBreakers getCircuitBreakers() {
+		return this.breakers;
+	}
+
+	@Nonnull
+	public Set<Request> getInFlightRequests() {
+		return this.inFlight;
+	}
+
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+
+	@Nullable
+	public Duration getCallTimeout() {
+		return this.callTimeout;
+	}
+
+	@Nonnull
+	public RateLimiter getRateLimiter() {
+		return this.limiter;
+	}
+
+	@Nonnull
+	public ConcurrencyLimiter getConcurrencyLimiter() {
+		return this.concurrency;
+	}
+
+	@Nonnull
+	public RequestListener getRequestListener() {
+		return this.listener;
+	}
+
+	@Nonnull
+	public LatencyTracker getLatencyTracker() {
+		return this.latencies;
 	}
 
 }
@@ -0,0 +1,315 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.transport;
+
+import static java.lang.Math.*;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.sleepUnchecked;
+
+import java.io.UncheckedIOException;
+import java.net.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.core.utils.route.Route;
+
+/**
+ * A {@link Transport} that sends requests through another one, but injects latency
+ * and faults into them as described by {@link FaultProfile}s. It's meant for
+ * benchmarking how Akiwrapper (and whatever uses it) copes with a degraded upstream,
+ * and should never be used in production.<br>
+ * <br>
+ * Profiles can be set for a {@link Route}, for a server, for both, or as the default.
+ * An exchange uses the most specific profile that applies to it: the one for its
+ * route and server, then the one for its route, then the one for its server, and then
+ * the default one. Servers are matched by their URL, which exchanges either go to
+ * directly or pass on to the website (in {@code urlApiWs}). Exchanges that aren't
+ * made through a route, like fetching the server list, only use server and default
+ * profiles.<br>
+ * <br>
+ * Injected 503 responses, technical errors and resets are answered here, without
+ * sending the request on. Truncated responses are real responses with half of their
+ * body cut off.
+ */
+public class FaultInjectingTransport implements Transport {
+
+	private static final double Z_99 = 2.3263; // the 99th percentile of the standard normal distribution
+	private static final String TECHNICAL_ERROR_BODY = "jQuery({\"completion\":\"KO - TECHNICAL ERROR\"})";
+
+	@Nonnull private final Transport transport;
+	@Nonnull private final Random random;
+	@Nonnull private final Map<String, Map<String, Rule>> routeServerRules = new ConcurrentHashMap<>();
+	@Nonnull private final Map<String, Rule> routeRules = new ConcurrentHashMap<>();
+	@Nonnull private final Map<String, Rule> serverRules = new ConcurrentHashMap<>();
+	@Nullable private volatile Rule defaultRule;
+
+	private enum Fault {
+		NONE,
+		SERVER_ERROR,
+		TECHNICAL_ERROR,
+		TRUNCATION,
+		RESET
+	}
+
+	private static class Rule {
+
+		@Nonnull private final FaultProfile profile;
+		@Nonnull private final AtomicInteger burstLeft = new AtomicInteger();
+
+		Rule(@Nonnull FaultProfile profile) {
+			this.profile = profile;
+		}
+
+	}
+
+	/**
+	 * Creates a new {@link FaultInjectingTransport} without any profiles.
+	 *
+	 * @param transport
+	 *            the {@link Transport} to send requests through
+	 */
+	public FaultInjectingTransport(@Nonnull Transport transport) {
+		this(transport, new Random());
+	}
+
+	/**
+	 * Creates a new {@link FaultInjectingTransport} without any profiles that makes its
+	 * random choices with the given seed. Exchanges made in the same order get the same
+	 * faults and latency with the same seed.
+	 *
+	 * @param transport
+	 *            the {@link Transport} to send requests through
+	 * @param seed
+	 *            the seed of the random choices
+	 */
+	public FaultInjectingTransport(@Nonnull Transport transport, long seed) {
+		this(transport, new Random(seed));
+	}
+
+	private FaultInjectingTransport(@Nonnull Transport transport, @Nonnull Random random) {
+		this.transport = transport;
+		this.random = random;
+	}
+
+	/**
+	 * Sets the {@link FaultProfile} for the exchanges made through a {@link Route}
+	 * and/or with a server. If both are {@code null}, this sets the default profile.
+	 *
+	 * @param route
+	 *            the route the profile applies to or {@code null} for any route
+	 * @param serverUrl
+	 *            the URL of the server the profile applies to or {@code null} for any
+	 *            server
+	 * @param profile
+	 *            the profile or {@code null} to remove it
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public FaultInjectingTransport setProfile(@Nullable Route route, @Nullable String serverUrl,
+											  @Nullable FaultProfile profile) {
+		var rule = profile == null ? null : new Rule(profile);
+		if (route != null && serverUrl != null)
+			update(this.routeServerRules.computeIfAbsent(route.getPath(), k -> new ConcurrentHashMap<>()), serverUrl,
+				   rule);
+		else if (route != null)
+			update(this.routeRules, route.getPath(), rule);
+		else if (serverUrl != null)
+			update(this.serverRules, serverUrl, rule);
+		else
+			this.defaultRule = rule;
+		return this;
+	}
+
+	/**
+	 * Sets the default {@link FaultProfile}, used for exchanges that no other profile
+	 * applies to.
+	 *
+	 * @param profile
+	 *            the profile or {@code null} to remove it
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public FaultInjectingTransport setDefaultProfile(@Nullable FaultProfile profile) {
+		return setProfile(null, null, profile);
+	}
+
+	@Override
+	@SuppressWarnings("null")
+	public TransportResponse get(String url, Duration timeout) {
+		var rule = findRule(url);
+		if (rule == null)
+			return this.transport.get(url, timeout);
+
+		long latency = sampleLatency(rule.profile);
+		if (latency > 0) {
+			sleepUnchecked(NANOSECONDS.toMillis(timeout == null ? latency : min(latency, timeout.toNanos())));
+			if (timeout != null && latency >= timeout.toNanos())
+				throw timedOut(url);
+		}
+
+		var fault = sampleFault(rule);
+		if (fault == Fault.TRUNCATION)
+			return truncate(this.transport.get(url, remaining(timeout, latency)));
+		else if (fault != Fault.NONE)
+			return inject(fault, url);
+		else
+			return this.transport.get(url, remaining(timeout, latency));
+	}
+
+	@Override
+	@SuppressWarnings("null")
+	public CompletableFuture<TransportResponse> getAsync(String url, Duration timeout) {
+		var rule = findRule(url);
+		if (rule == null)
+			return this.transport.getAsync(url, timeout);
+
+		long latency = sampleLatency(rule.profile);
+		var fault = sampleFault(rule);
+		var delayed = timeout == null ? latency : min(latency, timeout.toNanos());
+		return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(delayed, NANOSECONDS))
+			.thenCompose(v -> {
+				if (timeout != null && latency > 0 && latency >= timeout.toNanos())
+					throw timedOut(url);
+
+				if (fault == Fault.TRUNCATION)
+					return this.transport.getAsync(url, remaining(timeout, latency))
+						.thenApply(FaultInjectingTransport::truncate);
+				else if (fault != Fault.NONE)
+					return CompletableFuture.completedFuture(inject(fault, url));
+				else
+					return this.transport.getAsync(url, remaining(timeout, latency));
+			});
+	}
+
+	/**
+	 * Opens a connection through the underlying {@link Transport}, without injecting
+	 * anything.
+	 */
+	@Override
+	public CompletableFuture<Void> warm(String url) {
+		return this.transport.warm(url);
+	}
+
+	@Nullable
+	private Rule findRule(@Nonnull String url) {
+		var path = URI.create(url).getPath();
+		var routeServerRules = this.routeServerRules.get(path);
+		if (routeServerRules != null) {
+			var rule = findServerRule(routeServerRules, url);
+			if (rule != null)
+				return rule;
+		}
+
+		var rule = this.routeRules.get(path);
+		if (rule != null)
+			return rule;
+
+		rule = findServerRule(this.serverRules, url);
+		if (rule != null)
+			return rule;
+
+		return this.defaultRule;
+	}
+
+	@Nullable
+	private static Rule findServerRule(@Nonnull Map<String, Rule> rules, @Nonnull String url) {
+		for (var rule : rules.entrySet()) {
+			var serverUrl = rule.getKey();
+			if (url.startsWith(serverUrl) || url.contains("urlApiWs=" + URLEncoder.encode(serverUrl, UTF_8)))
+				return rule.getValue();
+		}
+		return null;
+	}
+
+	private static <K> void update(@Nonnull Map<K, Rule> rules, @Nonnull K key, @Nullable Rule rule) {
+		if (rule == null)
+			rules.remove(key);
+		else
+			rules.put(key, rule);
+	}
+
+	private long sampleLatency(@Nonnull FaultProfile profile) {
+		var median = profile.getLatencyMedian();
+		var p99 = profile.getLatencyP99();
+		if (median == null || p99 == null || median.isZero())
+			return 0;
+
+		// log-normal with the given median and 99th percentile
+		double sigma = log((double) p99.toNanos() / median.toNanos()) / Z_99;
+		return (long) (median.toNanos() * exp(sigma * this.random.nextGaussian()));
+	}
+
+	@Nonnull
+	private Fault sampleFault(@Nonnull Rule rule) {
+		var profile = rule.profile;
+		if (rule.burstLeft.getAndUpdate(left -> max(0, left - 1)) > 0)
+			return Fault.SERVER_ERROR;
+
+		double roll = this.random.nextDouble();
+		if ((roll -= profile.getServerErrorRate()) < 0) {
+			rule.burstLeft.set(profile.getServerErrorBurst() - 1);
+			return Fault.SERVER_ERROR;
+		}
+		if ((roll -= profile.getTechnicalErrorRate()) < 0)
+			return Fault.TECHNICAL_ERROR;
+		if ((roll -= profile.getTruncationRate()) < 0)
+			return Fault.TRUNCATION;
+		if ((roll -= profile.getResetRate()) < 0)
+			return Fault.RESET;
+		return Fault.NONE;
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private static TransportResponse inject(@Nonnull Fault fault, @Nonnull String url) {
+		switch (fault) {
+			case SERVER_ERROR:
+				return new TransportResponse(503, "Service Unavailable", Map.of(), "");
+			case TECHNICAL_ERROR:
+				return new TransportResponse(200, "OK", Map.of(), TECHNICAL_ERROR_BODY);
+			case RESET:
+				throw new UncheckedIOException(new SocketException("Connection reset (injected) on " + url));
+			default:
+				throw new IllegalArgumentException(fault + " can't be injected on its own");
+		}
+	}
+
+	@Nonnull
+	private static TransportResponse truncate(@Nonnull TransportResponse response) {
+		var body = response.getBody();
+		return new TransportResponse(response.getStatus(), response.getStatusText(), response.getHeaders(),
+									 body.substring(0, body.length() / 2));
+	}
+
+	@Nullable
+	private static Duration remaining(@Nullable Duration timeout, long latency) {
+		return timeout == null ? null : timeout.minusNanos(latency);
+	}
+
+	@Nonnull
+	private static UncheckedIOException timedOut(@Nonnull String url) {
+		return new UncheckedIOException(new SocketTimeoutException("Injected latency on " + url + " timed out"));
+	}
+
+}
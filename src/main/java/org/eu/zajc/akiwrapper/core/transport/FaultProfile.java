@@ -0,0 +1,186 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.transport;
+
+import java.time.Duration;
+
+import javax.annotation.*;
+
+/**
+ * The faults a {@link FaultInjectingTransport} injects into the exchanges it applies
+ * to. Each kind of fault has its own rate, the probability of it hitting a single
+ * exchange, and nothing is injected by default. At most one fault (besides latency)
+ * hits a single exchange.
+ */
+public class FaultProfile {
+
+	@Nullable private Duration latencyMedian;
+	@Nullable private Duration latencyP99;
+	private double serverErrorRate;
+	private int serverErrorBurst = 1;
+	private double technicalErrorRate;
+	private double truncationRate;
+	private double resetRate;
+
+	/**
+	 * Sets the latency added to each exchange. The latency is log-normally distributed,
+	 * which is roughly how real network latency behaves: most exchanges are close to
+	 * the median, with a long tail of slow ones.
+	 *
+	 * @param median
+	 *            the median added latency or {@code null} to not add any
+	 * @param p99
+	 *            the 99th percentile of the added latency, at least the median
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public FaultProfile setLatency(@Nullable Duration median, @Nullable Duration p99) {
+		if (median != null && (p99 == null || p99.compareTo(median) < 0))
+			throw new IllegalArgumentException("The 99th percentile must be at least the median");
+
+		this.latencyMedian = median;
+		this.latencyP99 = median == null ? null : p99;
+		return this;
+	}
+
+	/**
+	 * Sets the rate of HTTP 503 responses. Each one starts a burst: the exchanges that
+	 * follow it fail as well until the burst is over.
+	 *
+	 * @param rate
+	 *            the probability of an exchange starting a burst of 503 responses
+	 * @param burst
+	 *            the number of consecutive exchanges that fail in each burst
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public FaultProfile setServerErrors(double rate, int burst) {
+		if (burst < 1)
+			throw new IllegalArgumentException("Bursts must be at least one exchange long");
+
+		this.serverErrorRate = checkRate(rate);
+		this.serverErrorBurst = burst;
+		return this;
+	}
+
+	/**
+	 * Sets the rate of responses that complete with {@code KO - TECHNICAL ERROR}
+	 * instead of reaching the server.
+	 *
+	 * @param rate
+	 *            the probability of an exchange failing this way
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public FaultProfile setTechnicalErrorRate(double rate) {
+		this.technicalErrorRate = checkRate(rate);
+		return this;
+	}
+
+	/**
+	 * Sets the rate of responses that are cut off halfway through their body.
+	 *
+	 * @param rate
+	 *            the probability of a response being truncated
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public FaultProfile setTruncationRate(double rate) {
+		this.truncationRate = checkRate(rate);
+		return this;
+	}
+
+	/**
+	 * Sets the rate of connection resets, which fail the exchange with an
+	 * {@link java.io.UncheckedIOException}.
+	 *
+	 * @param rate
+	 *            the probability of an exchange's connection being reset
+	 *
+	 * @return current instance, used for chaining
+	 */
+	@Nonnull
+	public FaultProfile setResetRate(double rate) {
+		this.resetRate = checkRate(rate);
+		return this;
+	}
+
+	/**
+	 * @return the median added latency or {@code null} if no latency is added
+	 */
+	@Nullable
+	public Duration getLatencyMedian() {
+		return this.latencyMedian;
+	}
+
+	/**
+	 * @return the 99th percentile of the added latency or {@code null} if no latency
+	 *         is added
+	 */
+	@Nullable
+	public Duration getLatencyP99() {
+		return this.latencyP99;
+	}
+
+	/**
+	 * @return the probability of an exchange starting a burst of 503 responses
+	 */
+	public double getServerErrorRate() {
+		return this.serverErrorRate;
+	}
+
+	/**
+	 * @return the number of consecutive exchanges that fail in each burst of 503
+	 *         responses
+	 */
+	public int getServerErrorBurst() {
+		return this.serverErrorBurst;
+	}
+
+	/**
+	 * @return the probability of an exchange completing with
+	 *         {@code KO - TECHNICAL ERROR}
+	 */
+	public double getTechnicalErrorRate() {
+		return this.technicalErrorRate;
+	}
+
+	/**
+	 * @return the probability of a response being truncated
+	 */
+	public double getTruncationRate() {
+		return this.truncationRate;
+	}
+
+	/**
+	 * @return the probability of an exchange's connection being reset
+	 */
+	public double getResetRate() {
+		return this.resetRate;
+	}
+
+	private static double checkRate(double rate) {
+		if (rate < 0 || rate > 1)
+			throw new IllegalArgumentException("Rates must be between 0 and 1");
+		return rate;
+	}
+
+}
@@ -0,0 +1,148 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.transport;
+
+import static java.net.http.HttpClient.Version.HTTP_2;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.*;
+import static org.eu.zajc.akiwrapper.core.utils.WorkaroundUtils.getIncompleteChainWorkaroundSSLContext;
+
+import java.io.*;
+import java.net.URI;
+import java.net.http.*;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.*;
+
+/**
+ * A {@link Transport} backed by {@link HttpClient}. It negotiates HTTP/2 with hosts
+ * that support it, which multiplexes all concurrent requests to a host over a single
+ * connection, so many games running at once only need a few connections per
+ * Akinator host. Hosts that don't support HTTP/2 fall back to HTTP/1.1.<br>
+ * <br>
+ * A single instance can (and should) be shared between any number of
+ * {@link org.eu.zajc.akiwrapper.Akiwrapper} instances. Unlike
+ * {@link UnirestTransport}, it doesn't need to be shut down.
+ */
+public class JavaHttpTransport implements Transport {
+
+	/**
+	 * The default connect timeout.
+	 */
+	public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+	// HttpClient refuses to set these itself
+	private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host",
+																 "upgrade");
+
+	@Nonnull private final HttpClient client;
+
+	/**
+	 * Creates a new {@link JavaHttpTransport} with a {@link HttpClient} configured for
+	 * Akinator.
+	 */
+	@SuppressWarnings("null")
+	public JavaHttpTransport() {
+		this(HttpClient.newBuilder()
+			.version(HTTP_2)
+			.connectTimeout(DEFAULT_CONNECT_TIMEOUT)
+			.sslContext(getIncompleteChainWorkaroundSSLContext())
+			.build());
+	}
+
+	/**
+	 * Creates a new {@link JavaHttpTransport} with the given {@link HttpClient}. Note
+	 * that Akinator requires the workaround from
+	 * {@link org.eu.zajc.akiwrapper.core.utils.WorkaroundUtils} to be applied to the
+	 * client's {@link javax.net.ssl.SSLContext}.
+	 *
+	 * @param client
+	 *            the {@link HttpClient} to send requests through
+	 */
+	public JavaHttpTransport(@Nonnull HttpClient client) {
+		this.client = client;
+	}
+
+	@Override
+	@SuppressWarnings("null")
+	public TransportResponse get(String url, Duration timeout) {
+		try {
+			return toTransportResponse(this.client.send(createRequest(url, timeout), BodyHandlers.ofString(UTF_8)));
+
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw asUnchecked(e);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("null")
+	public CompletableFuture<TransportResponse> getAsync(String url, Duration timeout) {
+		var exchange = this.client.sendAsync(createRequest(url, timeout), BodyHandlers.ofString(UTF_8));
+		// the client aborts a cancelled exchange on Java 16 and newer
+		return propagateCancellation(exchange.thenApply(JavaHttpTransport::toTransportResponse), exchange);
+	}
+
+	@Override
+	@SuppressWarnings("null")
+	public CompletableFuture<Void> warm(String url) {
+		// HEAD sets up the connection without downloading anything
+		var request = newRequest(url, null).method("HEAD", BodyPublishers.noBody()).build();
+		return this.client.sendAsync(request, BodyHandlers.discarding()).thenAccept(r -> {});
+	}
+
+	/**
+	 * @return the {@link HttpClient} requests are sent through
+	 */
+	@Nonnull
+	public HttpClient getClient() {
+		return this.client;
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	static TransportResponse toTransportResponse(@Nonnull HttpResponse<String> response) {
+		return new TransportResponse(response.statusCode(), null, response.headers().map(), response.body());
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	static HttpRequest createRequest(@Nonnull String url, @Nullable Duration timeout) {
+		return newRequest(url, timeout).GET().build();
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private static HttpRequest.Builder newRequest(@Nonnull String url, @Nullable Duration timeout) {
+		var request = HttpRequest.newBuilder(URI.create(url));
+		if (timeout != null)
+			request.timeout(timeout.isZero() || timeout.isNegative() ? Duration.ofNanos(1) : timeout);
+		DEFAULT_HEADERS.forEach((name, value) -> {
+			if (!RESTRICTED_HEADERS.contains(name.toLowerCase()))
+				request.header(name, value);
+		});
+		return request;
+	}
+
+}
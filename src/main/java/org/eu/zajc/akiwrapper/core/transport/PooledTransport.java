@@ -0,0 +1,441 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.transport;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.*;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.*;
+import java.net.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.core.exceptions.DeadlineExceededException;
+import org.eu.zajc.akiwrapper.core.utils.UnirestUtils;
+import org.eu.zajc.akiwrapper.core.utils.route.Route;
+import org.slf4j.Logger;
+
+import kong.unirest.Unirest;
+
+/**
+ * A {@link Transport} that gives each host its own, independently sized connection
+ * pool: one for Akinator's website (which {@link Route.Endpoint#WEBSITE} routes go
+ * to) and one for each game server (which {@link Route.Endpoint#GAME_SERVER} routes go
+ * to) and any other host. Each pool is a separate underlying {@link Transport},
+ * created with the pool's size, and requests lease one of the pool's connections for
+ * the length of the exchange, waiting in line if they're all in use. This way a slow
+ * game server can only tie up the connections of its own pool, and never those that
+ * the website's routes need.<br>
+ * <br>
+ * Every {@link Pool} reports its utilization, the time requests wait for a lease,
+ * and the number of requests waiting, see {@link #getPools()}. Each response carries
+ * the time its own request waited ({@link TransportResponse#getLeaseWait()}), and
+ * requests that time out while waiting fail with a
+ * {@link DeadlineExceededException}, as the host never saw them.
+ */
+public class PooledTransport implements Transport, Closeable {
+
+	private static final Logger LOG = getLogger(PooledTransport.class);
+
+	/**
+	 * The default size of the website's pool.
+	 */
+	public static final int DEFAULT_WEBSITE_POOL_SIZE = 32;
+
+	/**
+	 * The default size of each game server's pool.
+	 */
+	public static final int DEFAULT_SERVER_POOL_SIZE = 8;
+
+	@Nonnull private final IntFunction<Transport> factory;
+	private final int websitePoolSize;
+	private final int serverPoolSize;
+	@Nonnull private final String websiteOrigin;
+	private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+	private volatile boolean closed;
+
+	/**
+	 * A connection pool for a single host.
+	 */
+	public static final class Pool {
+
+		@Nonnull private final String origin;
+		@Nonnull private final Transport transport;
+		private final int capacity;
+		private final ReentrantLock lock = new ReentrantLock();
+		private final Deque<Waiter> waiters = new ArrayDeque<>();
+		private int leased;
+		private long leases;
+		private long totalWait;
+		private long maxWait;
+
+		private static final class Waiter {
+
+			private final long requested = nanoTime();
+			private final CompletableFuture<Long> lease = new CompletableFuture<>();
+
+		}
+
+		Pool(@Nonnull String origin, @Nonnull Transport transport, int capacity) {
+			this.origin = origin;
+			this.transport = transport;
+			this.capacity = capacity;
+		}
+
+		// completed with the time of the request once a connection is leased
+		@Nonnull
+		@SuppressWarnings("null")
+		CompletableFuture<Long> lease() {
+			this.lock.lock();
+			try {
+				if (this.leased < this.capacity && this.waiters.isEmpty()) {
+					this.leased++;
+					recordWait(0);
+					return CompletableFuture.completedFuture(nanoTime());
+				}
+
+				var waiter = new Waiter();
+				this.waiters.add(waiter);
+				waiter.lease.whenComplete((r, e) -> {
+					if (e != null)
+						abandon(waiter);
+				});
+				return waiter.lease;
+
+			} finally {
+				this.lock.unlock();
+			}
+		}
+
+		void release() {
+			Waiter next;
+			this.lock.lock();
+			try {
+				next = this.waiters.poll();
+				if (next == null)
+					this.leased--;
+
+			} finally {
+				this.lock.unlock();
+			}
+
+			// the lease passes straight on to the next waiter
+			if (next != null) {
+				if (next.lease.complete(next.requested))
+					recordWait(nanoTime() - next.requested);
+				else
+					release(); // it gave up in the meantime
+			}
+		}
+
+		private void abandon(@Nonnull Waiter waiter) {
+			this.lock.lock();
+			try {
+				this.waiters.remove(waiter);
+			} finally {
+				this.lock.unlock();
+			}
+		}
+
+		private void recordWait(long wait) {
+			this.lock.lock();
+			try {
+				this.leases++;
+				this.totalWait += wait;
+				this.maxWait = Math.max(this.maxWait, wait);
+			} finally {
+				this.lock.unlock();
+			}
+		}
+
+		/**
+		 * @return the scheme, host and port this pool connects to
+		 */
+		@Nonnull
+		public String getOrigin() {
+			return this.origin;
+		}
+
+		/**
+		 * @return the number of connections in this pool
+		 */
+		public int getCapacity() {
+			return this.capacity;
+		}
+
+		/**
+		 * @return the number of connections currently leased
+		 */
+		public int getLeased() {
+			this.lock.lock();
+			try {
+				return this.leased;
+			} finally {
+				this.lock.unlock();
+			}
+		}
+
+		/**
+		 * @return the share of this pool's connections that are currently leased, between
+		 *         0 and 1
+		 */
+		public double getUtilization() {
+			return (double) getLeased() / this.capacity;
+		}
+
+		/**
+		 * @return the number of requests waiting for a connection
+		 */
+		public int getPending() {
+			this.lock.lock();
+			try {
+				return this.waiters.size();
+			} finally {
+				this.lock.unlock();
+			}
+		}
+
+		/**
+		 * @return the number of connections leased so far
+		 */
+		public long getLeaseCount() {
+			this.lock.lock();
+			try {
+				return this.leases;
+			} finally {
+				this.lock.unlock();
+			}
+		}
+
+		/**
+		 * @return the average time requests have waited for a connection
+		 */
+		@Nonnull
+		@SuppressWarnings("null")
+		public Duration getAverageLeaseWait() {
+			this.lock.lock();
+			try {
+				return Duration.ofNanos(this.leases == 0 ? 0 : this.totalWait / this.leases);
+			} finally {
+				this.lock.unlock();
+			}
+		}
+
+		/**
+		 * @return the longest time a request has waited for a connection
+		 */
+		@Nonnull
+		@SuppressWarnings("null")
+		public Duration getMaxLeaseWait() {
+			this.lock.lock();
+			try {
+				return Duration.ofNanos(this.maxWait);
+			} finally {
+				this.lock.unlock();
+			}
+		}
+
+	}
+
+	/**
+	 * Creates a new {@link PooledTransport}.
+	 *
+	 * @param factory
+	 *            creates the underlying {@link Transport} of a pool, given the pool's
+	 *            size. Transports that are {@link Closeable} are closed along with this
+	 *            one
+	 * @param websitePoolSize
+	 *            the number of connections to Akinator's website
+	 * @param serverPoolSize
+	 *            the number of connections to each game server (or other host)
+	 */
+	public PooledTransport(@Nonnull IntFunction<Transport> factory, int websitePoolSize, int serverPoolSize) {
+		if (websitePoolSize < 1 || serverPoolSize < 1)
+			throw new IllegalArgumentException("Pools must have at least one connection");
+
+		this.factory = factory;
+		this.websitePoolSize = websitePoolSize;
+		this.serverPoolSize = serverPoolSize;
+		this.websiteOrigin = originOf(Route.WEBSITE_URL);
+	}
+
+	/**
+	 * Creates a new {@link PooledTransport} that gives each pool its own
+	 * {@link kong.unirest.UnirestInstance}, configured with
+	 * {@link UnirestUtils#configureInstance(kong.unirest.UnirestInstance)} and limited to
+	 * the pool's size. The instances are shut down when the transport is closed.
+	 *
+	 * @param websitePoolSize
+	 *            the number of connections to Akinator's website
+	 * @param serverPoolSize
+	 *            the number of connections to each game server (or other host)
+	 *
+	 * @return a new {@link PooledTransport}
+	 */
+	@Nonnull
+	@SuppressWarnings({ "null", "resource" })
+	public static PooledTransport ofUnirest(int websitePoolSize, int serverPoolSize) {
+		return new PooledTransport(size -> {
+			var unirest = UnirestUtils.configureInstance(Unirest.spawnInstance());
+			unirest.config().concurrency(size, size);
+			return new UnirestTransport(unirest, true);
+		}, websitePoolSize, serverPoolSize);
+	}
+
+	@Override
+	@SuppressWarnings("null")
+	public TransportResponse get(String url, Duration timeout) {
+		var pool = getPool(url);
+		long start = nanoTime();
+		awaitLease(pool, url, timeout);
+		long leaseWait = nanoTime() - start;
+		try {
+			return pool.transport.get(url, remaining(timeout, start)).withLeaseWait(leaseWait);
+
+		} finally {
+			pool.release();
+		}
+	}
+
+	@Override
+	@SuppressWarnings("null")
+	public CompletableFuture<TransportResponse> getAsync(String url, Duration timeout) {
+		var pool = getPool(url);
+		var lease = pool.lease();
+		if (timeout != null)
+			lease.orTimeout(timeout.toNanos(), NANOSECONDS);
+
+		var response = new CompletableFuture<TransportResponse>();
+		lease.thenCompose(start -> {
+			long leaseWait = nanoTime() - start;
+			CompletableFuture<TransportResponse> exchange;
+			try {
+				exchange = pool.transport.getAsync(url, remaining(timeout, start));
+
+			} catch (RuntimeException e) {
+				pool.release();
+				throw e;
+			}
+			propagateCancellation(response, exchange);
+			return exchange.whenComplete((r, e) -> pool.release()).thenApply(r -> r.withLeaseWait(leaseWait));
+		}).whenComplete((r, e) -> {
+			if (e == null)
+				response.complete(r);
+			else if (lease.isCompletedExceptionally() && unwrapCompletion(e) instanceof TimeoutException)
+				response.completeExceptionally(waitedForLease(pool, url));
+			else
+				response.completeExceptionally(unwrapCompletion(e));
+		});
+
+		// giving up on the response gives up the place in line as well
+		return propagateCancellation(response, lease);
+	}
+
+	@Override
+	public CompletableFuture<Void> warm(String url) {
+		return getPool(url).transport.warm(url);
+	}
+
+	/**
+	 * @return the pools created so far, by their origin
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public Map<String, Pool> getPools() {
+		return Collections.unmodifiableMap(this.pools);
+	}
+
+	/**
+	 * Closes the underlying transports that are {@link Closeable}.
+	 */
+	@Override
+	public void close() {
+		this.closed = true;
+		for (var pool : this.pools.values()) {
+			if (pool.transport instanceof Closeable) {
+				try {
+					((Closeable) pool.transport).close();
+				} catch (IOException e) {
+					LOG.warn("Couldn't close the pool for {}", pool.origin, e);
+				}
+			}
+		}
+	}
+
+	@Nonnull
+	private Pool getPool(@Nonnull String url) {
+		if (this.closed)
+			throw new IllegalStateException("This transport is closed");
+
+		var origin = originOf(url);
+		return this.pools.computeIfAbsent(origin, o -> {
+			int size = o.equals(this.websiteOrigin) ? this.websitePoolSize : this.serverPoolSize;
+			return new Pool(o, this.factory.apply(size), size);
+		});
+	}
+
+	private static void awaitLease(@Nonnull Pool pool, @Nonnull String url, @Nullable Duration timeout) {
+		var lease = pool.lease();
+		try {
+			if (timeout == null)
+				lease.get();
+			else
+				lease.get(timeout.toNanos(), NANOSECONDS);
+
+		} catch (TimeoutException e) {
+			// it may have been granted in the meantime, in which case it's given back
+			if (!lease.cancel(false))
+				pool.release();
+			throw waitedForLease(pool, url);
+
+		} catch (InterruptedException e) {
+			if (!lease.cancel(false))
+				pool.release();
+			Thread.currentThread().interrupt();
+			throw asUnchecked(e);
+
+		} catch (ExecutionException e) {
+			throw asUnchecked(unwrapCompletion(e));
+		}
+	}
+
+	// the request never reached the host, so unlike a timed out exchange it's not
+	// counted against it or retried
+	@Nonnull
+	private static DeadlineExceededException waitedForLease(@Nonnull Pool pool, @Nonnull String url) {
+		return new DeadlineExceededException("Timed out waiting for a connection to " + pool.origin + " for " + url);
+	}
+
+	@Nullable
+	private static Duration remaining(@Nullable Duration timeout, long start) {
+		return timeout == null ? null : timeout.minusNanos(nanoTime() - start);
+	}
+
+	@Nonnull
+	private static String originOf(@Nonnull String url) {
+		var uri = URI.create(url);
+		return uri.getScheme() + "://" + uri.getAuthority();
+	}
+
+}
@@ -0,0 +1,142 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.transport;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.*;
+import java.util.*;
+
+import javax.annotation.*;
+
+/**
+ * A single upstream exchange as stored by {@link RecordingTransport} and served by
+ * {@link ReplayTransport}. Exchanges are appended to the file one after another, each
+ * one consisting of:
+ * <ul>
+ * <li>the URL</li>
+ * <li>the time the exchange took in nanoseconds</li>
+ * <li>whether it failed, followed by either the failure's message or the response's
+ * status, status text, headers and body</li>
+ * </ul>
+ * Strings are stored as their length in UTF-8 bytes followed by the bytes, and the
+ * file starts with {@link #MAGIC}.
+ */
+final class RecordedExchange {
+
+	static final int MAGIC = 0x414B5231; // "AKR1"
+
+	@Nonnull private final String url;
+	private final long elapsedNanos;
+	@Nullable private final TransportResponse response;
+	@Nullable private final String failure;
+
+	RecordedExchange(@Nonnull String url, long elapsedNanos, @Nullable TransportResponse response,
+					 @Nullable String failure) {
+		this.url = url;
+		this.elapsedNanos = elapsedNanos;
+		this.response = response;
+		this.failure = failure;
+	}
+
+	@Nonnull
+	String getUrl() {
+		return this.url;
+	}
+
+	long getElapsedNanos() {
+		return this.elapsedNanos;
+	}
+
+	/**
+	 * @return the recorded response
+	 *
+	 * @throws UncheckedIOException
+	 *             if the recorded exchange failed
+	 */
+	@Nonnull
+	TransportResponse toResponse() {
+		if (this.response == null)
+			throw new UncheckedIOException(new IOException("Replayed failure: " + this.failure));
+		return this.response;
+	}
+
+	void write(@Nonnull DataOutputStream out) throws IOException {
+		writeString(out, this.url);
+		out.writeLong(this.elapsedNanos);
+		out.writeBoolean(this.response == null);
+		if (this.response == null) {
+			writeString(out, this.failure);
+			return;
+		}
+
+		out.writeShort(this.response.getStatus());
+		writeString(out, this.response.getStatusText());
+		out.writeShort(this.response.getHeaders().size());
+		for (var header : this.response.getHeaders().entrySet()) {
+			writeString(out, header.getKey());
+			out.writeShort(header.getValue().size());
+			for (var value : header.getValue())
+				writeString(out, value);
+		}
+		writeString(out, this.response.getBody());
+	}
+
+	@Nullable
+	@SuppressWarnings("null")
+	static RecordedExchange read(@Nonnull DataInputStream in) throws IOException {
+		String url;
+		try {
+			url = readString(in);
+		} catch (EOFException e) {
+			return null;
+		}
+
+		long elapsedNanos = in.readLong();
+		if (in.readBoolean())
+			return new RecordedExchange(url, elapsedNanos, null, readString(in));
+
+		int status = in.readUnsignedShort();
+		var statusText = readString(in);
+		int headerCount = in.readUnsignedShort();
+		var headers = new LinkedHashMap<String, List<String>>(headerCount);
+		for (int i = 0; i < headerCount; i++) {
+			var name = readString(in);
+			int valueCount = in.readUnsignedShort();
+			var values = new ArrayList<String>(valueCount);
+			for (int j = 0; j < valueCount; j++)
+				values.add(readString(in));
+			headers.put(name, values);
+		}
+		var body = readString(in);
+		return new RecordedExchange(url, elapsedNanos, new TransportResponse(status, statusText, headers, body), null);
+	}
+
+	private static void writeString(@Nonnull DataOutputStream out, @Nullable String string) throws IOException {
+		var bytes = String.valueOf(string).getBytes(UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	@Nonnull
+	private static String readString(@Nonnull DataInputStream in) throws IOException {
+		var bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, UTF_8);
+	}
+
+}
@@ -0,0 +1,128 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.transport;
+
+import static java.lang.System.nanoTime;
+import static java.nio.file.StandardOpenOption.*;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.unwrapCompletion;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import javax.annotation.*;
+
+import org.slf4j.Logger;
+
+/**
+ * A {@link Transport} that sends requests through another one and appends every
+ * exchange to a file, so they can be served back later by a {@link ReplayTransport}.
+ * This covers everything Akiwrapper fetches: the server list, the page the API key is
+ * taken from, and the responses of every API route. Failed exchanges are recorded
+ * too, while cancelled ones aren't.<br>
+ * <br>
+ * Exchanges are written in a compact binary format and flushed one by one, so a file
+ * stays readable up to the last exchange even if the process dies. Recording into an
+ * existing file adds to it.
+ */
+public class RecordingTransport implements Transport, Closeable {
+
+	private static final Logger LOG = getLogger(RecordingTransport.class);
+
+	@Nonnull private final Transport transport;
+	@Nonnull private final DataOutputStream out;
+
+	/**
+	 * Creates a new {@link RecordingTransport}.
+	 *
+	 * @param transport
+	 *            the {@link Transport} to send requests through
+	 * @param file
+	 *            the file to append exchanges to
+	 *
+	 * @throws IOException
+	 *             if the file couldn't be opened
+	 */
+	@SuppressWarnings("resource")
+	public RecordingTransport(@Nonnull Transport transport, @Nonnull Path file) throws IOException {
+		this.transport = transport;
+		boolean isNew = !Files.exists(file) || Files.size(file) == 0;
+		this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file, CREATE, APPEND)));
+		if (isNew) {
+			this.out.writeInt(RecordedExchange.MAGIC);
+			this.out.flush();
+		}
+	}
+
+	@Override
+	public TransportResponse get(String url, Duration timeout) {
+		long start = nanoTime();
+		try {
+			var response = this.transport.get(url, timeout);
+			record(new RecordedExchange(url, nanoTime() - start, response, null));
+			return response;
+
+		} catch (RuntimeException e) {
+			record(new RecordedExchange(url, nanoTime() - start, null, String.valueOf(e)));
+			throw e;
+		}
+	}
+
+	@Override
+	public CompletableFuture<TransportResponse> getAsync(String url, Duration timeout) {
+		long start = nanoTime();
+		var response = this.transport.getAsync(url, timeout);
+		response.whenComplete((r, e) -> {
+			if (e == null)
+				record(new RecordedExchange(url, nanoTime() - start, r, null));
+			else if (!(unwrapCompletion(e) instanceof CancellationException))
+				record(new RecordedExchange(url, nanoTime() - start, null, String.valueOf(unwrapCompletion(e))));
+		});
+		return response;
+	}
+
+	/**
+	 * Opens a connection through the underlying {@link Transport}. Warming connections
+	 * isn't recorded.
+	 */
+	@Override
+	public CompletableFuture<Void> warm(String url) {
+		return this.transport.warm(url);
+	}
+
+	private synchronized void record(@Nonnull RecordedExchange exchange) {
+		try {
+			exchange.write(this.out);
+			this.out.flush();
+
+		} catch (IOException e) {
+			LOG.warn("Couldn't record an exchange with {}", exchange.getUrl(), e);
+		}
+	}
+
+	/**
+	 * Closes the file exchanges are recorded to. The underlying {@link Transport} is not
+	 * closed.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		this.out.close();
+	}
+
+}
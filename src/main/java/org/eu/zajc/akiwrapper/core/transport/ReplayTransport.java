@@ -0,0 +1,156 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.transport;
+
+import static java.lang.Math.min;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.sleepUnchecked;
+import static org.eu.zajc.akiwrapper.core.utils.route.Route.withoutCacheBuster;
+
+import java.io.*;
+import java.net.SocketTimeoutException;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.*;
+
+/**
+ * A {@link Transport} that serves back the exchanges recorded by a
+ * {@link RecordingTransport} without making any requests. Each request is answered
+ * with the next recorded exchange for the same URL (ignoring the cache buster
+ * parameter), in the order they were recorded, so replaying the same calls always
+ * gives the same results. Recorded failures are replayed as
+ * {@link UncheckedIOException}s, and requesting a URL that has no exchanges left
+ * fails with an {@link IllegalStateException}.<br>
+ * <br>
+ * By default exchanges are served right away. To reproduce the upstream latency as
+ * well (for example when replaying a slow game), enable {@code replayLatency}, which
+ * makes each exchange take as long as it did when recorded.
+ */
+public class ReplayTransport implements Transport {
+
+	@Nonnull private final Map<String, Deque<RecordedExchange>> exchanges = new HashMap<>();
+	private final boolean replayLatency;
+
+	/**
+	 * Creates a new {@link ReplayTransport} that serves exchanges right away.
+	 *
+	 * @param file
+	 *            the file exchanges were recorded to
+	 *
+	 * @throws IOException
+	 *             if the file couldn't be read
+	 */
+	public ReplayTransport(@Nonnull Path file) throws IOException {
+		this(file, false);
+	}
+
+	/**
+	 * Creates a new {@link ReplayTransport}.
+	 *
+	 * @param file
+	 *            the file exchanges were recorded to
+	 * @param replayLatency
+	 *            whether exchanges should take as long as they did when recorded
+	 *
+	 * @throws IOException
+	 *             if the file couldn't be read or isn't a recording
+	 */
+	public ReplayTransport(@Nonnull Path file, boolean replayLatency) throws IOException {
+		this.replayLatency = replayLatency;
+		try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != RecordedExchange.MAGIC)
+				throw new IOException(file + " is not a recording");
+
+			RecordedExchange exchange;
+			while ((exchange = RecordedExchange.read(in)) != null)
+				this.exchanges.computeIfAbsent(withoutCacheBuster(exchange.getUrl()), k -> new ArrayDeque<>())
+					.add(exchange);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("null")
+	public TransportResponse get(String url, Duration timeout) {
+		var exchange = next(url);
+		if (this.replayLatency) {
+			long delay = getDelay(exchange, timeout);
+			sleepUnchecked(NANOSECONDS.toMillis(delay));
+			if (delay < exchange.getElapsedNanos())
+				throw timedOut(url);
+		}
+		return exchange.toResponse();
+	}
+
+	@Override
+	@SuppressWarnings("null")
+	public CompletableFuture<TransportResponse> getAsync(String url, Duration timeout) {
+		RecordedExchange exchange;
+		try {
+			exchange = next(url);
+
+		} catch (IllegalStateException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+
+		if (!this.replayLatency)
+			return CompletableFuture.supplyAsync(exchange::toResponse, Runnable::run);
+
+		long delay = getDelay(exchange, timeout);
+		return CompletableFuture.supplyAsync(() -> {
+			if (delay < exchange.getElapsedNanos())
+				throw timedOut(url);
+			return exchange.toResponse();
+		}, CompletableFuture.delayedExecutor(delay, NANOSECONDS));
+	}
+
+	/**
+	 * Does nothing, since replays don't make any connections.
+	 */
+	@Override
+	@SuppressWarnings("null")
+	public CompletableFuture<Void> warm(String url) {
+		return CompletableFuture.completedFuture(null);
+	}
+
+	/**
+	 * @return the number of recorded exchanges that haven't been served yet
+	 */
+	public synchronized int getRemaining() {
+		return this.exchanges.values().stream().mapToInt(Deque::size).sum();
+	}
+
+	@Nonnull
+	private synchronized RecordedExchange next(@Nonnull String url) {
+		var recorded = this.exchanges.get(withoutCacheBuster(url));
+		if (recorded == null || recorded.isEmpty())
+			throw new IllegalStateException("No recorded exchange left for " + url);
+		return recorded.poll();
+	}
+
+	private static long getDelay(@Nonnull RecordedExchange exchange, @Nullable Duration timeout) {
+		return timeout == null ? exchange.getElapsedNanos() : min(exchange.getElapsedNanos(), timeout.toNanos());
+	}
+
+	@Nonnull
+	private static UncheckedIOException timedOut(@Nonnull String url) {
+		return new UncheckedIOException(new SocketTimeoutException("Replayed exchange with " + url + " timed out"));
+	}
+
+}
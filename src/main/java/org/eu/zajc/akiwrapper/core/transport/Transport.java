@@ -0,0 +1,133 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.transport;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import javax.annotation.*;
+
+/**
+ * <b>Note:</b> This is an internal interface and its internals are subject to change
+ * without prior deprecation. Use with caution.<br>
+ * <br>
+ * The HTTP client that Akiwrapper sends its upstream requests through. Akiwrapper
+ * only ever sends {@code GET} requests, and expects the transport to send the headers
+ * Akinator's servers require ({@link #DEFAULT_HEADERS}) and to trust the certificate
+ * chain they serve (see {@link org.eu.zajc.akiwrapper.core.utils.WorkaroundUtils}).
+ *
+ * @see UnirestTransport
+ * @see JavaHttpTransport
+ * @see RecordingTransport
+ * @see ReplayTransport
+ */
+public interface Transport {
+
+	/**
+	 * The headers Akinator's servers expect on every request.
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	Map<String, String> DEFAULT_HEADERS =
+		Map.of("Accept",
+			   "text/javascript, application/javascript, application/ecmascript, application/x-ecmascript, */*. q=0.01",
+			   "Accept-Language", "en-US,en.q=0.9,ar.q=0.8",
+			   "X-Requested-With", "XMLHttpRequest",
+			   "Sec-Fetch-Dest", "empty",
+			   "Sec-Fetch-Mode", "cors",
+			   "Sec-Fetch-Site", "same-origin",
+			   "Connection", "keep-alive",
+			   "User-Agent",
+			   "Mozilla/5.0 (Windows NT 10.0. Win64. x64) AppleWebKit/537.36" +
+				   "(KHTML, like Gecko) Chrome/81.0.4044.92 Safari/537.36",
+			   "Referer", "https://en.akinator.com/game");
+
+	/**
+	 * Sends a {@code GET} request and waits for the response.
+	 *
+	 * @param url
+	 *            the URL to request
+	 *
+	 * @return the response
+	 */
+	@Nonnull
+	default TransportResponse get(@Nonnull String url) {
+		return get(url, null);
+	}
+
+	/**
+	 * Sends a {@code GET} request and waits for the response, giving up with an
+	 * {@link java.io.UncheckedIOException} once the timeout runs out. The timeout covers
+	 * connecting as well as receiving the response.
+	 *
+	 * @param url
+	 *            the URL to request
+	 * @param timeout
+	 *            the timeout or {@code null} to use the client's own timeouts
+	 *
+	 * @return the response
+	 */
+	@Nonnull
+	TransportResponse get(@Nonnull String url, @Nullable Duration timeout);
+
+	/**
+	 * Sends a {@code GET} request without blocking the calling thread.
+	 *
+	 * @param url
+	 *            the URL to request
+	 *
+	 * @return a {@link CompletableFuture} completed with the response
+	 */
+	@Nonnull
+	default CompletableFuture<TransportResponse> getAsync(@Nonnull String url) {
+		return getAsync(url, null);
+	}
+
+	/**
+	 * Sends a {@code GET} request without blocking the calling thread, completing
+	 * exceptionally once the timeout runs out. The timeout covers connecting as well as
+	 * receiving the response. Cancelling the returned future should abort the exchange
+	 * if the underlying client is able to.
+	 *
+	 * @param url
+	 *            the URL to request
+	 * @param timeout
+	 *            the timeout or {@code null} to use the client's own timeouts
+	 *
+	 * @return a {@link CompletableFuture} completed with the response
+	 */
+	@Nonnull
+	CompletableFuture<TransportResponse> getAsync(@Nonnull String url, @Nullable Duration timeout);
+
+	/**
+	 * Opens a connection to the URL's host ahead of time, so that the first actual
+	 * request to it can reuse the connection instead of waiting for the TCP and TLS
+	 * handshakes. The default implementation sends a {@code GET} request to the URL and
+	 * discards the response.
+	 *
+	 * @param url
+	 *            the URL whose host to connect to
+	 *
+	 * @return a {@link CompletableFuture} completed once the connection is open
+	 */
+	@Nonnull
+	default CompletableFuture<Void> warm(@Nonnull String url) {
+		return getAsync(url).thenAccept(r -> {});
+	}
+
+}
@@ -0,0 +1,82 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.transport;
+
+import java.util.*;
+
+import javax.annotation.*;
+
+/**
+ * <b>Note:</b> This is an internal class and its internals are subject to change
+ * without prior deprecation. Use with caution.<br>
+ * <br>
+ * A response received through a {@link Transport}.
+ */
+@SuppressWarnings("javadoc") // internal impl
+public class TransportResponse {
+
+	private final int status;
+	@Nonnull private final String statusText;
+	@Nonnull private final Map<String, List<String>> headers;
+	@Nonnull private final String body;
+	private final long leaseWait;
+
+	public TransportResponse(int status, @Nullable String statusText, @Nonnull Map<String, List<String>> headers,
+							 @Nonnull String body) {
+		this(status, statusText, headers, body, 0);
+	}
+
+	private TransportResponse(int status, @Nullable String statusText, @Nonnull Map<String, List<String>> headers,
+							  @Nonnull String body, long leaseWait) {
+		this.status = status;
+		this.statusText = statusText == null ? "" : statusText;
+		this.headers = headers;
+		this.body = body;
+		this.leaseWait = leaseWait;
+	}
+
+	// set by transports that make requests wait for a connection, like PooledTransport
+	@Nonnull
+	public TransportResponse withLeaseWait(long nanos) {
+		return new TransportResponse(this.status, this.statusText, this.headers, this.body, nanos);
+	}
+
+	public int getStatus() {
+		return this.status;
+	}
+
+	@Nonnull
+	public String getStatusText() {
+		return this.statusText;
+	}
+
+	@Nonnull
+	public Map<String, List<String>> getHeaders() {
+		return this.headers;
+	}
+
+	@Nonnull
+	public String getBody() {
+		return this.body;
+	}
+
+	// in nanoseconds, zero if the transport didn't have to wait for a connection
+	public long getLeaseWait() {
+		return this.leaseWait;
+	}
+
+}
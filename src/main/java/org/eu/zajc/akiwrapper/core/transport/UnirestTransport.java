@@ -0,0 +1,159 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.transport;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.*;
+
+import java.io.*;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.core.utils.UnirestUtils;
+
+import kong.unirest.*;
+
+/**
+ * A {@link Transport} backed by a {@link UnirestInstance}. The instance should be
+ * configured with {@link UnirestUtils#configureInstance(UnirestInstance)} (or
+ * equivalently) and is only shut down by this transport if it was told to own it.
+ * This is the transport used by default.
+ */
+public class UnirestTransport implements Transport, Closeable {
+
+	@Nonnull private final UnirestInstance unirest;
+	private final boolean owned;
+
+	/**
+	 * Creates a new {@link UnirestTransport} that doesn't shut down its
+	 * {@link UnirestInstance}.
+	 *
+	 * @param unirest
+	 *            the {@link UnirestInstance} to send requests through
+	 */
+	public UnirestTransport(@Nonnull UnirestInstance unirest) {
+		this(unirest, false);
+	}
+
+	/**
+	 * Creates a new {@link UnirestTransport}.
+	 *
+	 * @param unirest
+	 *            the {@link UnirestInstance} to send requests through
+	 * @param owned
+	 *            whether the {@link UnirestInstance} should be shut down when this
+	 *            transport is closed
+	 */
+	public UnirestTransport(@Nonnull UnirestInstance unirest, boolean owned) {
+		this.unirest = unirest;
+		this.owned = owned;
+	}
+
+	@Override
+	@SuppressWarnings("null")
+	public TransportResponse get(String url, Duration timeout) {
+		if (timeout == null)
+			return toTransportResponse(createRequest(url, null).asString());
+
+		// a blocking exchange could only be bounded per connect and per read, so this waits
+		// for an asynchronous one instead, which is bounded as a whole
+		var response = getAsync(url, timeout);
+		try {
+			return response.get();
+
+		} catch (InterruptedException e) {
+			response.cancel(true);
+			Thread.currentThread().interrupt();
+			throw asUnchecked(e);
+
+		} catch (ExecutionException e) {
+			var cause = unwrapCompletion(e);
+			if (cause instanceof TimeoutException)
+				throw new UncheckedIOException(new SocketTimeoutException("Timed out after " + timeout.toMillis() +
+					" ms waiting for " + url));
+			throw asUnchecked(cause);
+		}
+	}
+
+	@Override
+	@SuppressWarnings("null")
+	public CompletableFuture<TransportResponse> getAsync(String url, Duration timeout) {
+		var exchange = createRequest(url, timeout).asStringAsync();
+		var response = propagateCancellation(exchange.thenApply(UnirestTransport::toTransportResponse), exchange);
+		if (timeout == null)
+			return response;
+
+		// Unirest's socket timeout is per read, so the whole exchange is bounded here, and
+		// aborted once it runs out
+		response.orTimeout(timeout.toNanos(), NANOSECONDS).whenComplete((r, e) -> {
+			if (e instanceof TimeoutException)
+				exchange.cancel(true);
+		});
+		return response;
+	}
+
+	@Override
+	@SuppressWarnings("null")
+	public CompletableFuture<Void> warm(String url) {
+		// HEAD sets up the connection without downloading anything
+		return this.unirest.head(url).asEmptyAsync().thenAccept(r -> {});
+	}
+
+	/**
+	 * @return the {@link UnirestInstance} requests are sent through
+	 */
+	@Nonnull
+	public UnirestInstance getUnirest() {
+		return this.unirest;
+	}
+
+	/**
+	 * Shuts down the {@link UnirestInstance} if this transport owns it, and does nothing
+	 * otherwise.
+	 */
+	@Override
+	public void close() {
+		if (this.owned)
+			this.unirest.shutDown(false);
+	}
+
+	@Nonnull
+	private GetRequest createRequest(@Nonnull String url, @Nullable Duration timeout) {
+		var request = this.unirest.get(url);
+		if (timeout != null) {
+			int millis = (int) Math.max(1, Math.min(Integer.MAX_VALUE, timeout.toMillis()));
+			request.connectTimeout(millis).socketTimeout(millis);
+		}
+		return request;
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	static TransportResponse toTransportResponse(@Nonnull HttpResponse<String> response) {
+		var headers = new LinkedHashMap<String, List<String>>();
+		for (var header : response.getHeaders().all())
+			headers.computeIfAbsent(header.getName(), k -> new ArrayList<>()).add(header.getValue());
+
+		var body = response.getBody();
+		return new TransportResponse(response.getStatus(), response.getStatusText(), headers, body == null ? "" : body);
+	}
+
+}
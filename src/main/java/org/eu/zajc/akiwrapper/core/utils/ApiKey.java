@@ -21,11 +21,16 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.regex.Pattern.compile;
 
 import java.net.URLEncoder;
+import java.util.concurrent.*;
 import java.util.regex.Pattern;
 
 import javax.annotation.Nonnull;
 
-import org.eu.zajc.akiwrapper.core.utils.route.Route;
+import org.eu.zajc.akiwrapper.core.exceptions.DeadlineExceededException;
+import org.eu.zajc.akiwrapper.core.transport.*;
+import org.eu.zajc.akiwrapper.core.utils.UpstreamDispatcher.Priority;
+import org.eu.zajc.akiwrapper.core.utils.route.*;
+import org.eu.zajc.akiwrapper.core.utils.route.Route.Endpoint;
 
 import kong.unirest.UnirestInstance;
 
@@ -42,6 +47,14 @@ public class ApiKey {
 	private static final String EXCEPTION_NO_KEY = "Couldn't find the API key!" +
 		"Please consider opening a new ticket at https://github.com/markozajc/Akiwrapper/issues.";
 
+	private static final String GAME_URL = Route.WEBSITE_URL + "/game";
+
+	// what fetching the page is reported as, see BootstrapClient
+	private static final String NAME = "API_KEY";
+
+	// builders that start at the same time share the page instead of each fetching it
+	private static final SingleFlight<Transport, ApiKey> FLIGHTS = new SingleFlight<>();
+
 	private static final Pattern API_KEY_PATTERN =
 		compile("var uid_ext_session = '(.*)'\\;\\n.*var frontaddr = '(.*)'\\;");
 
@@ -65,7 +78,57 @@ public class ApiKey {
 
 	@SuppressWarnings("null")
 	public static ApiKey accquireApiKey(UnirestInstance unirest) {
-		var page = unirest.get(Route.WEBSITE_URL + "/game").asString().getBody();
+		return accquireApiKey(new UnirestTransport(unirest), UpstreamDispatcher.getDefault(), Priority.INTERACTIVE);
+	}
+
+	@SuppressWarnings("null")
+	public static ApiKey accquireApiKey(Transport transport, UpstreamDispatcher dispatcher, Priority priority) {
+		return accquireApiKey(transport, dispatcher, priority, Deadline.none());
+	}
+
+	@SuppressWarnings("null")
+	public static ApiKey accquireApiKey(Transport transport, UpstreamDispatcher dispatcher, Priority priority,
+										Deadline deadline) {
+		return accquireApiKey(BootstrapClient.of(transport, dispatcher), priority, deadline);
+	}
+
+	@SuppressWarnings("null")
+	public static ApiKey accquireApiKey(BootstrapClient client, Priority priority, Deadline deadline) {
+		try {
+			return FLIGHTS.execute(client.getTransport(), () -> fetchApiKey(client, priority, deadline),
+								   deadline.getRemainingNanos());
+
+		} catch (TimeoutException e) {
+			throw new DeadlineExceededException("The deadline passed before the API key was fetched", e);
+		}
+	}
+
+	@SuppressWarnings("null")
+	public static CompletableFuture<ApiKey> accquireApiKeyAsync(Transport transport, UpstreamDispatcher dispatcher,
+																Priority priority) {
+		return accquireApiKeyAsync(transport, dispatcher, priority, Deadline.none());
+	}
+
+	@SuppressWarnings("null")
+	public static CompletableFuture<ApiKey> accquireApiKeyAsync(Transport transport, UpstreamDispatcher dispatcher,
+																Priority priority, Deadline deadline) {
+		return accquireApiKeyAsync(BootstrapClient.of(transport, dispatcher), priority, deadline);
+	}
+
+	@SuppressWarnings("null")
+	public static CompletableFuture<ApiKey> accquireApiKeyAsync(BootstrapClient client, Priority priority,
+																Deadline deadline) {
+		// bounded per caller, whoever joins a flight in progress may have less time left
+		return deadline.bound(FLIGHTS.executeAsync(client.getTransport(), () -> client
+			.getAsync(NAME, Endpoint.WEBSITE, GAME_URL, priority, deadline)
+			.thenApply(r -> fromPage(r.getBody()))));
+	}
+
+	private static ApiKey fetchApiKey(BootstrapClient client, Priority priority, Deadline deadline) {
+		return fromPage(client.get(NAME, Endpoint.WEBSITE, GAME_URL, priority, deadline).getBody());
+	}
+
+	private static ApiKey fromPage(String page) {
 		var matcher = API_KEY_PATTERN.matcher(page);
 		if (matcher.find()) {
 			return new ApiKey(matcher.group(1), matcher.group(2));
@@ -0,0 +1,280 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.lang.System.nanoTime;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.core.entities.Status.Reason;
+import org.slf4j.Logger;
+
+/**
+ * Circuit breakers for Akinator's game servers, keyed by the server URL. After a
+ * number of consecutive failures (HTTP 5xx, I/O errors, or statuses with
+ * {@link Reason#SERVER_FAILURE}), a server's circuit opens and requests to it fail
+ * right away with a {@link org.eu.zajc.akiwrapper.core.exceptions.CircuitOpenException}
+ * instead of going through the retry loop, and new sessions are created on other
+ * servers. Once the open period passes, a single probe request is let through: if it
+ * succeeds, the circuit closes, and if it fails, the circuit opens again for twice as
+ * long (up to a limit).<br>
+ * <br>
+ * A process-wide instance is available through {@link #getDefault()} and is used
+ * unless a different one is set in the {@link org.eu.zajc.akiwrapper.AkiwrapperBuilder}.
+ */
+public class CircuitBreakers {
+
+	private static final Logger LOG = getLogger(CircuitBreakers.class);
+
+	/**
+	 * The default number of consecutive failures that open a circuit.
+	 */
+	public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+	/**
+	 * The default time a circuit stays open after it first opens.
+	 */
+	@Nonnull public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(5);
+
+	/**
+	 * The default longest time a circuit stays open after repeatedly failed probes.
+	 */
+	@Nonnull public static final Duration DEFAULT_MAX_OPEN_DURATION = Duration.ofMinutes(1);
+
+	/**
+	 * The state of a circuit.
+	 */
+	public enum State {
+
+		/**
+		 * The server is healthy and requests are let through.
+		 */
+		CLOSED,
+
+		/**
+		 * The server has been failing and requests fail right away.
+		 */
+		OPEN,
+
+		/**
+		 * The open period has passed and a probe request is being (or may be) sent to check
+		 * whether the server has recovered.
+		 */
+		HALF_OPEN
+
+	}
+
+	private static CircuitBreakers defaultBreakers;
+
+	private final int failureThreshold;
+	private final long openDuration;
+	private final long maxOpenDuration;
+	private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new {@link CircuitBreakers}.
+	 *
+	 * @param failureThreshold
+	 *            the number of consecutive failures that open a circuit
+	 * @param openDuration
+	 *            the time a circuit stays open after it first opens
+	 * @param maxOpenDuration
+	 *            the longest time a circuit stays open after repeatedly failed probes
+	 */
+	public CircuitBreakers(int failureThreshold, @Nonnull Duration openDuration, @Nonnull Duration maxOpenDuration) {
+		if (failureThreshold < 1)
+			throw new IllegalArgumentException("The failure threshold must be positive");
+
+		this.failureThreshold = failureThreshold;
+		this.openDuration = openDuration.toNanos();
+		this.maxOpenDuration = Math.max(this.openDuration, maxOpenDuration.toNanos());
+	}
+
+	/**
+	 * Returns the process-wide {@link CircuitBreakers}, creating it with the default
+	 * settings if it doesn't exist yet.
+	 *
+	 * @return the default {@link CircuitBreakers}
+	 */
+	@Nonnull
+	public static synchronized CircuitBreakers getDefault() {
+		if (defaultBreakers == null)
+			defaultBreakers =
+				new CircuitBreakers(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION, DEFAULT_MAX_OPEN_DURATION);
+
+		return defaultBreakers;
+	}
+
+	/**
+	 * Decides whether a request to a server may be sent. If this returns {@code true},
+	 * the outcome of the request must be reported with
+	 * {@link #record(String, Throwable)}, or {@link #abandon(String)} must be called if
+	 * there is no outcome to report.
+	 *
+	 * @param serverUrl
+	 *            the URL of the server
+	 *
+	 * @return whether the request may be sent
+	 */
+	public boolean allowRequest(@Nonnull String serverUrl) {
+		var circuit = this.circuits.get(serverUrl);
+		return circuit == null || circuit.allowRequest();
+	}
+
+	/**
+	 * Reports the outcome of a request to a server.
+	 *
+	 * @param serverUrl
+	 *            the URL of the server
+	 * @param failure
+	 *            the exception the request failed with, or {@code null} if it succeeded
+	 */
+	public void record(@Nonnull String serverUrl, @Nullable Throwable failure) {
+		// only failures that point to a problem with the server count, anything else means
+		// that it's up and responding
+		if (failure != null && RetryScheduler.isRetryable(failure)) {
+			this.circuits.computeIfAbsent(serverUrl, Circuit::new).onFailure();
+
+		} else {
+			var circuit = this.circuits.get(serverUrl);
+			if (circuit != null)
+				circuit.onSuccess();
+		}
+	}
+
+	/**
+	 * Reports that a request that was let through by {@link #allowRequest(String)}
+	 * ended without an outcome that says anything about the server, for example
+	 * because it was cancelled. If it was the probe of a half-open circuit, another
+	 * request may probe in its place.
+	 *
+	 * @param serverUrl
+	 *            the URL of the server
+	 */
+	public void abandon(@Nonnull String serverUrl) {
+		var circuit = this.circuits.get(serverUrl);
+		if (circuit != null)
+			circuit.onAbandon();
+	}
+
+	/**
+	 * Returns whether new sessions should avoid a server. Unlike
+	 * {@link #allowRequest(String)}, this doesn't take up the probe of a half-open
+	 * circuit, and servers whose open period has passed aren't avoided so that they can
+	 * be probed.
+	 *
+	 * @param serverUrl
+	 *            the URL of the server
+	 *
+	 * @return whether the server's circuit is open
+	 */
+	public boolean isOpen(@Nonnull String serverUrl) {
+		return getState(serverUrl) == State.OPEN;
+	}
+
+	/**
+	 * @param serverUrl
+	 *            the URL of the server
+	 *
+	 * @return the current {@link State} of the server's circuit
+	 */
+	@Nonnull
+	public State getState(@Nonnull String serverUrl) {
+		var circuit = this.circuits.get(serverUrl);
+		return circuit == null ? State.CLOSED : circuit.getState();
+	}
+
+	private final class Circuit {
+
+		@Nonnull private final String serverUrl;
+		@Nonnull private State state = State.CLOSED;
+		private int failures;
+		private long currentOpenDuration;
+		private long openUntil;
+		private boolean probing;
+
+		Circuit(@Nonnull String serverUrl) {
+			this.serverUrl = serverUrl;
+		}
+
+		synchronized boolean allowRequest() {
+			switch (getState()) {
+				case CLOSED:
+					return true;
+
+				case HALF_OPEN:
+					if (this.probing)
+						return false;
+					this.state = State.HALF_OPEN;
+					this.probing = true;
+					return true;
+
+				default:
+					return false;
+			}
+		}
+
+		synchronized void onSuccess() {
+			if (this.state != State.CLOSED)
+				LOG.info("Circuit for {} closed, the server has recovered", this.serverUrl);
+
+			this.state = State.CLOSED;
+			this.failures = 0;
+			this.probing = false;
+		}
+
+		synchronized void onAbandon() {
+			// otherwise nothing would ever be let through again
+			if (this.state == State.HALF_OPEN)
+				this.probing = false;
+		}
+
+		synchronized void onFailure() {
+			this.failures++;
+			if (this.state == State.HALF_OPEN && this.probing) {
+				// the probe failed, back off for longer
+				open(Math.min(CircuitBreakers.this.maxOpenDuration, this.currentOpenDuration * 2));
+
+			} else if (this.state == State.CLOSED && this.failures >= CircuitBreakers.this.failureThreshold) {
+				open(CircuitBreakers.this.openDuration);
+			}
+		}
+
+		@Nonnull
+		synchronized State getState() {
+			if (this.state == State.OPEN && nanoTime() - this.openUntil >= 0)
+				return State.HALF_OPEN;
+			return this.state;
+		}
+
+		private void open(long duration) {
+			LOG.warn("Circuit for {} opened for {} ms after {} consecutive failures", this.serverUrl,
+					 Duration.ofNanos(duration).toMillis(), this.failures);
+			this.state = State.OPEN;
+			this.currentOpenDuration = duration;
+			this.openUntil = nanoTime() + duration;
+			this.probing = false;
+		}
+
+	}
+
+}
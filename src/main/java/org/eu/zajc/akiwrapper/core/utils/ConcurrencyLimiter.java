@@ -0,0 +1,412 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.lang.System.nanoTime;
+import static java.lang.Thread.currentThread;
+import static java.util.concurrent.TimeUnit.*;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.core.exceptions.ConcurrencyLimitExceededException;
+
+/**
+ * Adaptive limits on the number of concurrent requests to each of Akinator's hosts.
+ * Instead of a fixed size, each host's limit is discovered from how the host
+ * responds (AIMD): while round trips stay close to the shortest one seen recently,
+ * the limit grows by about one for every limit's worth of requests, and once they
+ * slow down past {@value #RTT_TOLERANCE} times that or fail (the failures
+ * {@link RetryScheduler#isRetryable(Throwable)} considers the server's fault), it's
+ * cut by {@value #BACKOFF_RATIO} times, at most once per round trip.<br>
+ * <br>
+ * Requests over the limit wait in line, but the line is no longer than the limit
+ * itself: when it's full, further requests are shed right away with a
+ * {@link ConcurrencyLimitExceededException} instead of building up a queue that
+ * would only time out.<br>
+ * <br>
+ * A process-wide instance is available through {@link #getDefault()} and is used
+ * unless a different one is set in the {@link org.eu.zajc.akiwrapper.AkiwrapperBuilder}.
+ */
+public class ConcurrencyLimiter {
+
+	/**
+	 * The default limit each host starts with.
+	 */
+	public static final int DEFAULT_INITIAL_LIMIT = 8;
+
+	/**
+	 * The default lowest limit a host can have.
+	 */
+	public static final int DEFAULT_MIN_LIMIT = 1;
+
+	/**
+	 * The default highest limit a host can have.
+	 */
+	public static final int DEFAULT_MAX_LIMIT = 64;
+
+	/**
+	 * How many times longer than the shortest recent round trip a round trip can take
+	 * before it counts as the host slowing down.
+	 */
+	public static final double RTT_TOLERANCE = 2;
+
+	/**
+	 * The factor the limit is cut by when the host slows down or fails.
+	 */
+	public static final double BACKOFF_RATIO = 0.9;
+
+	// round trips this close to the shortest one never count as slow, whatever the ratio
+	private static final long RTT_SLACK = MILLISECONDS.toNanos(10);
+
+	// the shortest round trip is re-measured this often, so that the limits follow
+	// hosts that permanently get slower
+	private static final long MIN_RTT_WINDOW = SECONDS.toNanos(30);
+
+	private static ConcurrencyLimiter defaultLimiter;
+
+	private final int initialLimit;
+	private final int minLimit;
+	private final int maxLimit;
+	private final Map<String, Limit> limits = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new {@link ConcurrencyLimiter}.
+	 *
+	 * @param initialLimit
+	 *            the limit each host starts with
+	 * @param minLimit
+	 *            the lowest limit a host can have
+	 * @param maxLimit
+	 *            the highest limit a host can have
+	 */
+	public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+		if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit)
+			throw new IllegalArgumentException("Limits must be positive and initialLimit must be between the others");
+
+		this.initialLimit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+	}
+
+	/**
+	 * Returns the process-wide {@link ConcurrencyLimiter}, creating it with the default
+	 * settings if it doesn't exist yet.
+	 *
+	 * @return the default {@link ConcurrencyLimiter}
+	 */
+	@Nonnull
+	public static synchronized ConcurrencyLimiter getDefault() {
+		if (defaultLimiter == null)
+			defaultLimiter = new ConcurrencyLimiter(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+
+		return defaultLimiter;
+	}
+
+	/**
+	 * Acquires a permit to send a request to a host, waiting for one if the host is at
+	 * its limit.
+	 *
+	 * @param host
+	 *            the host
+	 * @param timeoutNanos
+	 *            the longest time to wait for a permit
+	 *
+	 * @return the {@link Permit}, or {@code null} if none became available in time
+	 *
+	 * @throws ConcurrencyLimitExceededException
+	 *             if too many requests to the host are already waiting
+	 */
+	@Nullable
+	@SuppressWarnings("null")
+	public Permit acquire(@Nonnull String host, long timeoutNanos) {
+		var permit = acquireAsync(host);
+		try {
+			return permit.get(timeoutNanos, NANOSECONDS);
+
+		} catch (TimeoutException e) {
+			giveUp(permit);
+			return null;
+
+		} catch (InterruptedException e) {
+			giveUp(permit);
+			currentThread().interrupt();
+			throw asUnchecked(e);
+
+		} catch (ExecutionException e) {
+			throw asUnchecked(unwrapCompletion(e));
+		}
+	}
+
+	/**
+	 * Acquires a permit to send a request to a host. If the host is at its limit, the
+	 * returned future is completed once a permit is available, and cancelling it gives
+	 * up the place in line.
+	 *
+	 * @param host
+	 *            the host
+	 *
+	 * @return a {@link CompletableFuture} completed with the {@link Permit}, or failed
+	 *         with a {@link ConcurrencyLimitExceededException} if too many requests to
+	 *         the host are already waiting
+	 */
+	@Nonnull
+	public CompletableFuture<Permit> acquireAsync(@Nonnull String host) {
+		return this.limits.computeIfAbsent(host, Limit::new).acquire();
+	}
+
+	/**
+	 * @return the limits of the hosts requests have been made to
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public Collection<Limit> getLimits() {
+		return Collections.unmodifiableCollection(this.limits.values());
+	}
+
+	private static void giveUp(@Nonnull CompletableFuture<Permit> permit) {
+		// it may have been granted in the meantime, in which case it's given back
+		if (!permit.cancel(false))
+			permit.join().release();
+	}
+
+	/**
+	 * A permit to send a single request. It must be given back with either
+	 * {@link #complete(Throwable)} or {@link #release()} once the request is done.
+	 */
+	public static final class Permit {
+
+		@Nonnull private final Limit limit;
+		private final AtomicBoolean released = new AtomicBoolean();
+		private volatile long started;
+
+		Permit(@Nonnull Limit limit) {
+			this.limit = limit;
+		}
+
+		/**
+		 * Marks the start of the exchange. The round trip is measured from here, and only
+		 * permits whose exchange has started count towards how much of the limit is in
+		 * use, so time spent waiting on our side after taking the permit (for example for
+		 * an upstream slot) affects neither.
+		 */
+		public void begin() {
+			if (this.started == 0)
+				this.limit.begin();
+			this.started = nanoTime();
+		}
+
+		/**
+		 * Gives the permit back and lets the host's limit learn from the outcome of the
+		 * request.
+		 *
+		 * @param failure
+		 *            the exception the request failed with, or {@code null} if it
+		 *            succeeded
+		 */
+		public void complete(@Nullable Throwable failure) {
+			if (!this.released.compareAndSet(false, true))
+				return;
+
+			if (this.started == 0)
+				this.limit.release(-1, false, false); // the exchange never started
+			else
+				this.limit.release(nanoTime() - this.started,
+								   failure != null && RetryScheduler.isRetryable(failure), true);
+		}
+
+		/**
+		 * Gives the permit back without learning anything from the request, for example
+		 * because it was cancelled.
+		 */
+		public void release() {
+			if (this.released.compareAndSet(false, true))
+				this.limit.release(-1, false, this.started != 0);
+		}
+
+	}
+
+	/**
+	 * The limit of a single host.
+	 */
+	public final class Limit {
+
+		@Nonnull private final String host;
+		private final Deque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+		private double limit = ConcurrencyLimiter.this.initialLimit;
+		private int inFlight;
+		private int exchanging;
+		private long minRtt = Long.MAX_VALUE;
+		private long windowMinRtt = Long.MAX_VALUE;
+		private long windowStart = nanoTime();
+		private long lastBackoff;
+		private long shed;
+
+		Limit(@Nonnull String host) {
+			this.host = host;
+		}
+
+		@Nonnull
+		@SuppressWarnings("null")
+		CompletableFuture<Permit> acquire() {
+			synchronized (this) {
+				if (this.inFlight < getLimit() && this.waiters.isEmpty()) {
+					this.inFlight++;
+					return CompletableFuture.completedFuture(new Permit(this));
+				}
+
+				if (this.waiters.size() >= getLimit()) {
+					this.shed++;
+					return CompletableFuture.failedFuture(new ConcurrencyLimitExceededException(this.host));
+				}
+
+				var waiter = new CompletableFuture<Permit>();
+				this.waiters.add(waiter);
+				waiter.whenComplete((r, e) -> {
+					if (e != null)
+						abandon(waiter);
+				});
+				return waiter;
+			}
+		}
+
+		synchronized void begin() {
+			this.exchanging++;
+		}
+
+		void release(long rtt, boolean dropped, boolean started) {
+			synchronized (this) {
+				this.inFlight--;
+				if (started)
+					this.exchanging--;
+				if (rtt >= 0)
+					adjust(rtt, dropped);
+			}
+			dispatch();
+		}
+
+		private void adjust(long rtt, boolean dropped) {
+			long now = nanoTime();
+			if (!dropped)
+				updateMinRtt(rtt, now);
+
+			if (dropped || rtt > Math.max(this.minRtt * RTT_TOLERANCE, this.minRtt + RTT_SLACK)) {
+				// one slow round trip usually comes with others that were in flight with it,
+				// so the limit is only cut once for all of them
+				if (now - this.lastBackoff > Math.min(this.minRtt, rtt)) {
+					this.limit = Math.max(ConcurrencyLimiter.this.minLimit, this.limit * BACKOFF_RATIO);
+					this.lastBackoff = now;
+				}
+
+			} else if (this.exchanging * 2 >= this.limit) {
+				// only grown while the limit is actually being used by exchanges with the host
+				this.limit = Math.min(ConcurrencyLimiter.this.maxLimit, this.limit + 1 / this.limit);
+			}
+		}
+
+		private void updateMinRtt(long rtt, long now) {
+			this.windowMinRtt = Math.min(this.windowMinRtt, rtt);
+			if (this.minRtt == Long.MAX_VALUE) {
+				this.minRtt = rtt;
+
+			} else if (now - this.windowStart > MIN_RTT_WINDOW) {
+				this.minRtt = this.windowMinRtt;
+				this.windowMinRtt = Long.MAX_VALUE;
+				this.windowStart = now;
+
+			} else {
+				this.minRtt = Math.min(this.minRtt, rtt);
+			}
+		}
+
+		private void dispatch() {
+			while (true) {
+				CompletableFuture<Permit> next;
+				synchronized (this) {
+					if (this.inFlight >= getLimit() || this.waiters.isEmpty())
+						return;
+
+					next = this.waiters.poll();
+					this.inFlight++;
+				}
+
+				// completed outside of the lock since it runs whatever waits for it
+				if (!next.complete(new Permit(this))) {
+					synchronized (this) {
+						this.inFlight--; // it gave up in the meantime
+					}
+				}
+			}
+		}
+
+		private synchronized void abandon(@Nonnull CompletableFuture<Permit> waiter) {
+			this.waiters.remove(waiter);
+		}
+
+		/**
+		 * @return the host this limit is for
+		 */
+		@Nonnull
+		public String getHost() {
+			return this.host;
+		}
+
+		/**
+		 * @return the number of concurrent requests the host can currently take
+		 */
+		public synchronized int getLimit() {
+			return (int) this.limit;
+		}
+
+		/**
+		 * @return the number of requests to the host currently in flight
+		 */
+		public synchronized int getInFlight() {
+			return this.inFlight;
+		}
+
+		/**
+		 * @return the number of requests waiting for a permit
+		 */
+		public synchronized int getQueued() {
+			return this.waiters.size();
+		}
+
+		/**
+		 * @return the number of requests that were shed because too many were waiting
+		 */
+		public synchronized long getShed() {
+			return this.shed;
+		}
+
+		/**
+		 * @return the shortest recent round trip to the host, or {@code null} if none
+		 *         have completed yet
+		 */
+		@Nullable
+		public synchronized Duration getMinRtt() {
+			return this.minRtt == Long.MAX_VALUE ? null : Duration.ofNanos(this.minRtt);
+		}
+
+	}
+
+}
@@ -0,0 +1,207 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.lang.System.nanoTime;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.unwrapCompletion;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.core.transport.Transport;
+import org.eu.zajc.akiwrapper.core.utils.route.*;
+import org.eu.zajc.akiwrapper.core.utils.route.Route.Endpoint;
+import org.slf4j.Logger;
+
+/**
+ * Opens connections to Akinator's hosts ahead of time, so that the first step of a
+ * game doesn't have to wait for DNS and the TCP and TLS handshakes. Hosts are connected
+ * to with {@link Transport#warm(String)}, which resolves them through the JVM's own DNS
+ * cache (see {@code networkaddress.cache.ttl}), so the requests that follow find them
+ * resolved as well. Neither of the transports can be given a resolver of its own on
+ * Java 11, so that cache is relied on. Each host is warmed at most once per re-warm
+ * interval, so warming the same hosts repeatedly is cheap. Warming goes through the
+ * same rate limit, concurrency limit and upstream slots as every other request (see
+ * {@link BootstrapClient#warm(Endpoint, String)}), so it never crowds them out.<br>
+ * <br>
+ * The {@link org.eu.zajc.akiwrapper.AkiwrapperBuilder} warms the game servers each
+ * time it fetches the server list, and {@link #warmBootstrap(BootstrapClient)} can be
+ * used on startup to warm the hosts every new game talks to first.<br>
+ * <br>
+ * A process-wide instance is available through {@link #getDefault()} and is used
+ * unless a different one is set in the {@link org.eu.zajc.akiwrapper.AkiwrapperBuilder}.
+ */
+public class ConnectionWarmer {
+
+	private static final Logger LOG = getLogger(ConnectionWarmer.class);
+
+	/**
+	 * The default time after which a host is warmed again. Idle connections are
+	 * usually kept alive for about this long.
+	 */
+	@Nonnull public static final Duration DEFAULT_REWARM_INTERVAL = Duration.ofSeconds(30);
+
+	private static ConnectionWarmer defaultWarmer;
+
+	private final long rewarmInterval;
+	private final Map<String, Long> warmedAt = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new {@link ConnectionWarmer}.
+	 *
+	 * @param rewarmInterval
+	 *            the time after which a host is warmed again
+	 */
+	public ConnectionWarmer(@Nonnull Duration rewarmInterval) {
+		this.rewarmInterval = rewarmInterval.toNanos();
+	}
+
+	/**
+	 * Returns the process-wide {@link ConnectionWarmer}, creating it with
+	 * {@link #DEFAULT_REWARM_INTERVAL} if it doesn't exist yet.
+	 *
+	 * @return the default {@link ConnectionWarmer}
+	 */
+	@Nonnull
+	public static synchronized ConnectionWarmer getDefault() {
+		if (defaultWarmer == null)
+			defaultWarmer = new ConnectionWarmer(DEFAULT_REWARM_INTERVAL);
+
+		return defaultWarmer;
+	}
+
+	/**
+	 * Warms the connections to the game servers of the given URLs, skipping those that
+	 * were warmed recently, with the default limits (see
+	 * {@link BootstrapClient#of(Transport, UpstreamDispatcher)}).
+	 *
+	 * @param transport
+	 *            the {@link Transport} to open the connections with
+	 * @param urls
+	 *            the URLs whose hosts to warm
+	 *
+	 * @return a {@link CompletableFuture} completed once all hosts have been warmed (or
+	 *         failed to)
+	 *
+	 * @see #warm(BootstrapClient, Endpoint, Collection)
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public CompletableFuture<Void> warm(@Nonnull Transport transport, @Nonnull Collection<String> urls) {
+		return warm(BootstrapClient.of(transport, UpstreamDispatcher.getDefault()), Endpoint.GAME_SERVER, urls);
+	}
+
+	/**
+	 * Warms the connections to the hosts of the given URLs, skipping those that were
+	 * warmed recently. Failing to warm a host is not an error, since the request that
+	 * needs it will simply set up the connection itself.
+	 *
+	 * @param client
+	 *            the {@link BootstrapClient} to open the connections with
+	 * @param endpoint
+	 *            the {@link Endpoint} the hosts are, which decides their rate limit
+	 * @param urls
+	 *            the URLs whose hosts to warm
+	 *
+	 * @return a {@link CompletableFuture} completed once all hosts have been warmed (or
+	 *         failed to)
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public CompletableFuture<Void> warm(@Nonnull BootstrapClient client, @Nonnull Endpoint endpoint,
+										@Nonnull Collection<String> urls) {
+		var origins = new LinkedHashMap<String, String>();
+		for (var url : urls)
+			origins.putIfAbsent(originOf(url), url);
+
+		return CompletableFuture.allOf(origins.entrySet()
+			.stream()
+			.filter(origin -> claim(origin.getKey()))
+			.map(origin -> warm(client, endpoint, origin.getKey(), origin.getValue()))
+			.toArray(CompletableFuture[]::new));
+	}
+
+	/**
+	 * Warms the connections to the hosts every new game talks to first: the server list
+	 * and Akinator's website.
+	 *
+	 * @param transport
+	 *            the {@link Transport} to open the connections with
+	 *
+	 * @return a {@link CompletableFuture} completed once all hosts have been warmed (or
+	 *         failed to)
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public CompletableFuture<Void> warmBootstrap(@Nonnull Transport transport) {
+		return warmBootstrap(BootstrapClient.of(transport, UpstreamDispatcher.getDefault()));
+	}
+
+	/**
+	 * Warms the connections to the hosts every new game talks to first: the server list
+	 * and Akinator's website.
+	 *
+	 * @param client
+	 *            the {@link BootstrapClient} to open the connections with
+	 *
+	 * @return a {@link CompletableFuture} completed once all hosts have been warmed (or
+	 *         failed to)
+	 */
+	@Nonnull
+	public CompletableFuture<Void> warmBootstrap(@Nonnull BootstrapClient client) {
+		return warm(client, Endpoint.WEBSITE, List.of(Servers.LIST_URL, Route.WEBSITE_URL + "/"));
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private CompletableFuture<Void> warm(@Nonnull BootstrapClient client, @Nonnull Endpoint endpoint,
+										 @Nonnull String origin, @Nonnull String url) {
+		return client.warm(endpoint, url).handle((r, e) -> {
+			if (e != null) {
+				LOG.debug("Couldn't warm the connection to {}", origin, unwrapCompletion(e));
+				this.warmedAt.remove(origin); // so it's tried again next time
+			}
+			return null;
+		});
+	}
+
+	// whether the origin should be warmed now, in which case it's marked as warmed
+	private boolean claim(@Nonnull String origin) {
+		long now = nanoTime();
+		var claimed = new boolean[1];
+		this.warmedAt.compute(origin, (k, last) -> {
+			if (last != null && now - last < this.rewarmInterval)
+				return last;
+
+			claimed[0] = true;
+			return now;
+		});
+		return claimed[0];
+	}
+
+	@Nonnull
+	private static String originOf(@Nonnull String url) {
+		var uri = URI.create(url);
+		return uri.getScheme() + "://" + uri.getAuthority();
+	}
+
+}
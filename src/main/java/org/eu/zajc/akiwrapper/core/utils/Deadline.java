@@ -0,0 +1,154 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.*;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.core.exceptions.DeadlineExceededException;
+
+/**
+ * A point in time by which an operation must finish. A single deadline is shared by
+ * everything an operation does, so waiting for a free slot, connecting, reading the
+ * response and waiting between retries all take from the same remaining time.
+ */
+public final class Deadline {
+
+	private static final Deadline NONE = new Deadline(0, false);
+
+	private final long expiresAt;
+	private final boolean bounded;
+
+	private Deadline(long expiresAt, boolean bounded) {
+		this.expiresAt = expiresAt;
+		this.bounded = bounded;
+	}
+
+	/**
+	 * Creates a {@link Deadline} that expires after the given timeout.
+	 *
+	 * @param timeout
+	 *            the timeout
+	 *
+	 * @return a new {@link Deadline}
+	 */
+	@Nonnull
+	public static Deadline after(@Nonnull Duration timeout) {
+		return new Deadline(nanoTime() + timeout.toNanos(), true);
+	}
+
+	/**
+	 * Creates a {@link Deadline} that expires after the given timeout, or never if it's
+	 * {@code null}.
+	 *
+	 * @param timeout
+	 *            the timeout or {@code null}
+	 *
+	 * @return a {@link Deadline}
+	 */
+	@Nonnull
+	public static Deadline of(@Nullable Duration timeout) {
+		return timeout == null ? none() : after(timeout);
+	}
+
+	/**
+	 * @return a {@link Deadline} that never expires
+	 */
+	@Nonnull
+	public static Deadline none() {
+		return NONE;
+	}
+
+	/**
+	 * @return whether this deadline ever expires
+	 */
+	public boolean isBounded() {
+		return this.bounded;
+	}
+
+	/**
+	 * @return the time left in nanoseconds, {@code 0} if the deadline has passed, or
+	 *         {@link Long#MAX_VALUE} if it's not bounded
+	 */
+	public long getRemainingNanos() {
+		if (!this.bounded)
+			return Long.MAX_VALUE;
+		return Math.max(0, this.expiresAt - nanoTime());
+	}
+
+	/**
+	 * @return the time left, or {@code null} if the deadline is not bounded
+	 */
+	@Nullable
+	public Duration getRemaining() {
+		return this.bounded ? Duration.ofNanos(getRemainingNanos()) : null;
+	}
+
+	/**
+	 * @return whether the deadline has passed
+	 */
+	public boolean isExpired() {
+		return this.bounded && this.expiresAt - nanoTime() <= 0;
+	}
+
+	/**
+	 * Throws a {@link DeadlineExceededException} if the deadline has passed.
+	 *
+	 * @throws DeadlineExceededException
+	 *             if the deadline has passed
+	 */
+	public void check() {
+		if (isExpired())
+			throw new DeadlineExceededException("The deadline has passed");
+	}
+
+	/**
+	 * Bounds a {@link CompletableFuture} by this deadline. The returned future fails
+	 * with a {@link DeadlineExceededException} if the given one doesn't complete before
+	 * the deadline, or if it fails with a {@link TimeoutException} itself (for example
+	 * because it was waiting for a slot with this deadline's remaining time).
+	 * Cancelling the returned future cancels the given one.
+	 *
+	 * @param <T>
+	 *            the result type
+	 * @param future
+	 *            the future to bound
+	 *
+	 * @return the bounded {@link CompletableFuture}
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public <T> CompletableFuture<T> bound(@Nonnull CompletableFuture<T> future) {
+		var bounded = this.bounded ? future.copy().orTimeout(getRemainingNanos(), NANOSECONDS) : future;
+		return propagateCancellation(bounded.handle((r, e) -> {
+			if (e == null)
+				return r;
+
+			var cause = unwrapCompletion(e);
+			if (cause instanceof TimeoutException)
+				throw new DeadlineExceededException("The deadline has passed", cause);
+			throw asUnchecked(cause);
+		}), future);
+	}
+
+}
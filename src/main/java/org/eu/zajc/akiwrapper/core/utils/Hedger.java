@@ -0,0 +1,266 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.unwrapCompletion;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.core.exceptions.*;
+
+/**
+ * Sends hedged requests: if a request hasn't completed after a while, an equivalent
+ * one (for example to a different server) is sent as well, and whichever response
+ * arrives first wins. The delay before hedging is the 95th percentile of recent
+ * latencies of that kind of request, so only the slowest few percent are ever hedged
+ * and the extra load stays small. Requests that fail because of the server (see
+ * {@link #isServerFailure(Throwable)}) are followed up by the next candidate right
+ * away. Any other failure, like running into a local rate or concurrency limit or the
+ * deadline, fails the whole hedge, since sending more requests wouldn't help.<br>
+ * <br>
+ * This is only meant for requests that are safe to send more than once, like
+ * creating sessions.<br>
+ * <br>
+ * A process-wide instance is available through {@link #getDefault()} and is used
+ * unless a different one is set in the {@link org.eu.zajc.akiwrapper.AkiwrapperBuilder}.
+ */
+public class Hedger {
+
+	/**
+	 * The default lower bound of the hedging delay.
+	 */
+	@Nonnull public static final Duration DEFAULT_MIN_DELAY = Duration.ofMillis(50);
+
+	/**
+	 * The default upper bound of the hedging delay, which is also used until enough
+	 * latencies are known.
+	 */
+	@Nonnull public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(2);
+
+	private static final double QUANTILE = 0.95;
+	private static final int WINDOW_SIZE = 128;
+	private static final int MIN_SAMPLES = 20;
+
+	private static Hedger defaultHedger;
+
+	private final long minDelay;
+	private final long maxDelay;
+	private final Map<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+	private final LongAdder hedged = new LongAdder();
+
+	/**
+	 * Creates a new {@link Hedger}.
+	 *
+	 * @param minDelay
+	 *            the lower bound of the hedging delay
+	 * @param maxDelay
+	 *            the upper bound of the hedging delay
+	 */
+	public Hedger(@Nonnull Duration minDelay, @Nonnull Duration maxDelay) {
+		if (minDelay.compareTo(maxDelay) > 0)
+			throw new IllegalArgumentException("The minimum delay can't be larger than the maximum delay");
+
+		this.minDelay = minDelay.toNanos();
+		this.maxDelay = maxDelay.toNanos();
+	}
+
+	/**
+	 * Returns the process-wide {@link Hedger}, creating it with the default settings if
+	 * it doesn't exist yet.
+	 *
+	 * @return the default {@link Hedger}
+	 */
+	@Nonnull
+	public static synchronized Hedger getDefault() {
+		if (defaultHedger == null)
+			defaultHedger = new Hedger(DEFAULT_MIN_DELAY, DEFAULT_MAX_DELAY);
+
+		return defaultHedger;
+	}
+
+	/**
+	 * Sends the first candidate request and, if it doesn't complete in time or fails
+	 * because of the server, the next ones. Once one of them succeeds, the others are cancelled through the
+	 * futures their candidates returned, so those should pass cancellation on to the
+	 * requests they're waiting for.
+	 *
+	 * @param <T>
+	 *            the result type
+	 * @param name
+	 *            the kind of the request, used to keep track of its latencies
+	 * @param candidates
+	 *            the requests to send, in order of preference
+	 *
+	 * @return a {@link CompletableFuture} completed with the first successful result,
+	 *         or with the last failure if all candidates failed, or with the first
+	 *         failure that isn't the server's fault
+	 */
+	@Nonnull
+	public <T> CompletableFuture<T> hedge(@Nonnull String name,
+										  @Nonnull List<? extends Supplier<CompletableFuture<T>>> candidates) {
+		if (candidates.isEmpty())
+			throw new IllegalArgumentException("There must be at least one candidate");
+
+		var hedge = new Hedge<>(name, candidates);
+		hedge.launch();
+		return hedge.result;
+	}
+
+	/**
+	 * Returns the current hedging delay for a kind of request.
+	 *
+	 * @param name
+	 *            the kind of the request
+	 *
+	 * @return the hedging delay in milliseconds
+	 */
+	public long getDelay(@Nonnull String name) {
+		var window = this.windows.get(name);
+		long delay = window == null ? this.maxDelay : window.getQuantile(QUANTILE, this.maxDelay);
+		return NANOSECONDS.toMillis(Math.max(this.minDelay, Math.min(this.maxDelay, delay)));
+	}
+
+	/**
+	 * Returns whether a failure is the server's fault, and so worth following up with
+	 * the next candidate: a status of the server's, a server whose circuit is open, or
+	 * a failure that would be retried (see {@link RetryScheduler#isRetryable(Throwable)}).
+	 *
+	 * @param failure
+	 *            the exception a candidate failed with
+	 *
+	 * @return whether the next candidate should be sent
+	 */
+	public static boolean isServerFailure(@Nonnull Throwable failure) {
+		return failure instanceof ServerStatusException || failure instanceof CircuitOpenException ||
+			RetryScheduler.isRetryable(failure);
+	}
+
+	/**
+	 * @return the total number of hedged requests sent
+	 */
+	public long getHedged() {
+		return this.hedged.sum();
+	}
+
+	private void record(@Nonnull String name, long latency) {
+		this.windows.computeIfAbsent(name, k -> new LatencyWindow()).add(latency);
+	}
+
+	private final class Hedge<T> {
+
+		@Nonnull private final String name;
+		@Nonnull private final List<? extends Supplier<CompletableFuture<T>>> candidates;
+		@Nonnull private final CompletableFuture<T> result = new CompletableFuture<>();
+		private final Queue<CompletableFuture<T>> attempts = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger next = new AtomicInteger();
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		Hedge(@Nonnull String name, @Nonnull List<? extends Supplier<CompletableFuture<T>>> candidates) {
+			this.name = name;
+			this.candidates = candidates;
+		}
+
+		boolean launch() {
+			if (this.result.isDone())
+				return false;
+
+			// counted before taking an index so that a failing attempt never sees zero while
+			// another one is about to start
+			this.inFlight.incrementAndGet();
+			int index = this.next.getAndIncrement();
+			if (index >= this.candidates.size()) {
+				this.inFlight.decrementAndGet();
+				return false;
+			}
+
+			long start = nanoTime();
+			CompletableFuture<T> attempt;
+			try {
+				attempt = this.candidates.get(index).get();
+
+			} catch (RuntimeException e) {
+				attempt = CompletableFuture.failedFuture(e);
+			}
+			this.attempts.add(attempt);
+
+			if (index + 1 < this.candidates.size()) {
+				RetryScheduler.schedule(getDelay(this.name)).thenRun(() -> {
+					if (launch())
+						Hedger.this.hedged.increment();
+				});
+			}
+
+			attempt.whenComplete((r, e) -> complete(r, e, start));
+			return true;
+		}
+
+		private void complete(T value, Throwable failure, long start) {
+			if (failure == null) {
+				record(this.name, nanoTime() - start);
+				if (this.result.complete(value))
+					this.attempts.forEach(a -> a.cancel(true));
+				return;
+			}
+
+			var cause = unwrapCompletion(failure);
+			if (!isServerFailure(cause)) {
+				// the others would most likely fail the same way, or make it worse
+				if (this.result.completeExceptionally(cause))
+					this.attempts.forEach(a -> a.cancel(true));
+				return;
+			}
+
+			this.inFlight.decrementAndGet();
+			if (!launch() && this.inFlight.get() == 0)
+				this.result.completeExceptionally(cause);
+		}
+
+	}
+
+	private static final class LatencyWindow {
+
+		private final long[] samples = new long[WINDOW_SIZE];
+		private int count;
+		private int position;
+
+		synchronized void add(long latency) {
+			this.samples[this.position] = latency;
+			this.position = (this.position + 1) % this.samples.length;
+			if (this.count < this.samples.length)
+				this.count++;
+		}
+
+		synchronized long getQuantile(double quantile, long fallback) {
+			if (this.count < MIN_SAMPLES)
+				return fallback;
+
+			var sorted = Arrays.copyOf(this.samples, this.count);
+			Arrays.sort(sorted);
+			return sorted[(int) Math.ceil(quantile * this.count) - 1];
+		}
+
+	}
+
+}
@@ -0,0 +1,398 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.lang.String.format;
+
+import javax.annotation.*;
+
+import org.json.JSONException;
+
+/**
+ * <b>Note:</b> This is an internal class and its internals are subject to change
+ * without prior deprecation. Use with caution.<br>
+ * <br>
+ * A streaming JSON reader that decodes values straight out of a response body, in
+ * place. Nothing is copied up front and no object tree is built: objects and arrays
+ * are walked member by member, values that aren't needed are skipped over, and
+ * strings are only copied out when they're read. Numbers that Akinator sends as
+ * strings ({@code "step":"3"}) are read the same as unquoted ones.<br>
+ * <br>
+ * Malformed input results in a {@link JSONException}.
+ */
+@SuppressWarnings("javadoc") // internal util
+public final class JSONReader {
+
+	@Nonnull private final String json;
+	private final int end;
+	private int position;
+	private int tokenStart;
+	private int tokenEnd;
+
+	public JSONReader(@Nonnull String json, int start, int end) {
+		this.json = json;
+		this.position = start;
+		this.end = end;
+	}
+
+	/**
+	 * Creates a reader over the JSON inside of a JSONP response, such as
+	 * {@code jQuery({...})}, without copying it out of the callback.
+	 *
+	 * @param body
+	 *            the JSONP response body
+	 *
+	 * @return a reader positioned at the start of the JSON
+	 */
+	@Nonnull
+	public static JSONReader ofJsonp(@Nonnull String body) {
+		int start = body.indexOf('(');
+		int end = body.lastIndexOf(')');
+		if (start == -1 || end < start)
+			throw new JSONException("Not a JSONP response");
+
+		return new JSONReader(body, start + 1, end);
+	}
+
+	/**
+	 * @param position
+	 *            the position to start at, as returned by {@link #position()}
+	 *
+	 * @return a new reader over the same input, starting at the given position
+	 */
+	@Nonnull
+	public JSONReader at(int position) {
+		return new JSONReader(this.json, position, this.end);
+	}
+
+	/**
+	 * @return the position of the next value
+	 */
+	public int position() {
+		skipWhitespace();
+		return this.position;
+	}
+
+	public void beginObject() {
+		expect('{');
+	}
+
+	public void beginArray() {
+		expect('[');
+	}
+
+	/**
+	 * Checks whether the current object or array has another member, consuming the
+	 * separator before it or the closing bracket after the last one.
+	 *
+	 * @return whether there's another member to read
+	 */
+	public boolean hasNext() {
+		char c = peek();
+		if (c == '}' || c == ']') {
+			this.position++;
+			return false;
+
+		} else if (c == ',') {
+			this.position++;
+		}
+
+		return true;
+	}
+
+	@Nonnull
+	public String nextName() {
+		if (peek() != '"')
+			throw syntaxError("Expected a name");
+
+		var name = readString();
+		expect(':');
+		return name;
+	}
+
+	/**
+	 * Reads a string. Numbers and booleans are returned as they appear in the input.
+	 *
+	 * @return the string
+	 */
+	@Nonnull
+	public String nextString() {
+		char c = peek();
+		if (c == '"')
+			return readString();
+
+		int start = this.position;
+		skipToken();
+		var value = this.json.substring(start, this.position);
+		if ("null".equals(value))
+			throw syntaxError("Expected a string, got null");
+		return value;
+	}
+
+	public long nextLong() {
+		int start = this.position();
+		readNumberToken();
+		long value = 0;
+		boolean negative = false;
+		int i = this.tokenStart;
+		if (i < this.tokenEnd && (this.json.charAt(i) == '-' || this.json.charAt(i) == '+'))
+			negative = this.json.charAt(i++) == '-';
+
+		if (i == this.tokenEnd)
+			throw syntaxError(start, "Expected a number");
+
+		for (; i < this.tokenEnd; i++) {
+			char c = this.json.charAt(i);
+			if (c < '0' || c > '9')
+				return (long) parseDouble(start); // fractional or exponent notation
+
+			if (value > (Long.MAX_VALUE - (c - '0')) / 10)
+				throw syntaxError(start, "Number out of range");
+			value = value * 10 + (c - '0');
+		}
+
+		return negative ? -value : value;
+	}
+
+	public int nextInt() {
+		int start = this.position();
+		long value = nextLong();
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+			throw syntaxError(start, "Number out of range");
+		return (int) value;
+	}
+
+	public double nextDouble() {
+		int start = this.position();
+		readNumberToken();
+		return parseDouble(start);
+	}
+
+	/**
+	 * Skips over the next value, including everything nested in it.
+	 */
+	public void skipValue() {
+		int depth = 0;
+		do {
+			char c = peek();
+			switch (c) {
+				case '{':
+				case '[':
+					depth++;
+					this.position++;
+					break;
+
+				case '}':
+				case ']':
+					depth--;
+					this.position++;
+					break;
+
+				case ',':
+				case ':':
+					this.position++;
+					break;
+
+				case '"':
+					skipString();
+					break;
+
+				default:
+					skipToken();
+			}
+		} while (depth > 0);
+	}
+
+	/**
+	 * @param <T>
+	 *            the value type
+	 * @param value
+	 *            the value read for a key, or {@code null} if the key wasn't present
+	 * @param key
+	 *            the key
+	 *
+	 * @return the value
+	 *
+	 * @throws JSONException
+	 *             if the value is {@code null}
+	 */
+	@Nonnull
+	public static <T> T require(@Nullable T value, @Nonnull String key) {
+		if (value == null)
+			throw missing(key);
+		return value;
+	}
+
+	/**
+	 * @param key
+	 *            the missing key
+	 *
+	 * @return an exception for a required key that wasn't present
+	 */
+	@Nonnull
+	public static JSONException missing(@Nonnull String key) {
+		return new JSONException(format("\"%s\" not found", key));
+	}
+
+	private void readNumberToken() {
+		boolean quoted = peek() == '"';
+		this.tokenStart = quoted ? this.position + 1 : this.position;
+		if (quoted)
+			skipString();
+		else
+			skipToken();
+		this.tokenEnd = quoted ? this.position - 1 : this.position;
+	}
+
+	private double parseDouble(int start) {
+		try {
+			return Double.parseDouble(this.json.substring(this.tokenStart, this.tokenEnd));
+
+		} catch (NumberFormatException e) {
+			throw syntaxError(start, "Expected a number");
+		}
+	}
+
+	@Nonnull
+	private String readString() {
+		int start = ++this.position;
+		for (int i = start; i < this.end; i++) {
+			char c = this.json.charAt(i);
+			if (c == '"') {
+				this.position = i + 1;
+				return this.json.substring(start, i);
+
+			} else if (c == '\\') {
+				return readEscapedString(start, i);
+			}
+		}
+
+		throw syntaxError(start - 1, "Unterminated string");
+	}
+
+	@Nonnull
+	private String readEscapedString(int start, int escape) {
+		var sb = new StringBuilder(escape - start + 16);
+		sb.append(this.json, start, escape);
+		int i = escape;
+		while (i < this.end) {
+			char c = this.json.charAt(i++);
+			if (c == '"') {
+				this.position = i;
+				return sb.toString();
+
+			} else if (c != '\\') {
+				sb.append(c);
+				continue;
+			}
+
+			if (i == this.end)
+				break;
+
+			c = this.json.charAt(i++);
+			switch (c) {
+				case 'b':
+					sb.append('\b');
+					break;
+				case 'f':
+					sb.append('\f');
+					break;
+				case 'n':
+					sb.append('\n');
+					break;
+				case 'r':
+					sb.append('\r');
+					break;
+				case 't':
+					sb.append('\t');
+					break;
+				case 'u':
+					if (i + 4 > this.end)
+						throw syntaxError(i - 2, "Malformed escape");
+					try {
+						sb.append((char) Integer.parseInt(this.json, i, i + 4, 16));
+					} catch (NumberFormatException e) {
+						throw syntaxError(i - 2, "Malformed escape");
+					}
+					i += 4;
+					break;
+				default:
+					sb.append(c); // \" \\ \/
+			}
+		}
+
+		throw syntaxError(start - 1, "Unterminated string");
+	}
+
+	private void skipString() {
+		for (int i = this.position + 1; i < this.end; i++) {
+			char c = this.json.charAt(i);
+			if (c == '\\') {
+				i++;
+
+			} else if (c == '"') {
+				this.position = i + 1;
+				return;
+			}
+		}
+
+		throw syntaxError("Unterminated string");
+	}
+
+	private void skipToken() {
+		int start = this.position;
+		while (this.position < this.end) {
+			char c = this.json.charAt(this.position);
+			if (c == ',' || c == ':' || c == '}' || c == ']' || c == '"' || c == '{' || c == '['
+				|| Character.isWhitespace(c))
+				break;
+			this.position++;
+		}
+
+		if (this.position == start)
+			throw syntaxError("Unexpected character");
+	}
+
+	private void expect(char expected) {
+		if (peek() != expected)
+			throw syntaxError(format("Expected '%c'", expected));
+		this.position++;
+	}
+
+	private char peek() {
+		skipWhitespace();
+		if (this.position >= this.end)
+			throw syntaxError("Unexpected end of input");
+		return this.json.charAt(this.position);
+	}
+
+	private void skipWhitespace() {
+		while (this.position < this.end && Character.isWhitespace(this.json.charAt(this.position)))
+			this.position++;
+	}
+
+	@Nonnull
+	private JSONException syntaxError(@Nonnull String message) {
+		return syntaxError(this.position, message);
+	}
+
+	@Nonnull
+	private static JSONException syntaxError(int position, @Nonnull String message) {
+		return new JSONException(format("%s at character %d", message, position));
+	}
+
+}
@@ -0,0 +1,242 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+
+import org.HdrHistogram.*;
+
+/**
+ * Latency histograms for the requests made to Akinator, one for each
+ * {@link org.eu.zajc.akiwrapper.core.utils.route.Route} and one for each host. A
+ * request's latency covers everything from the moment it's executed until it
+ * succeeds or fails for good, retries and waits included, and is recorded in
+ * microseconds into an HdrHistogram {@link Recorder}, which doesn't lock on the
+ * recording path.<br>
+ * <br>
+ * {@link #snapshot()} takes what was recorded since the previous snapshot and adds it
+ * to the running totals, so the tail of each interval can be looked at on its own
+ * instead of disappearing into an average. Requests that were cancelled aren't
+ * recorded. Fetching the server list and the API key is recorded under the names it's
+ * reported to the {@link RequestListener} with.<br>
+ * <br>
+ * A process-wide instance is available through {@link #getDefault()} and is used
+ * unless a different one is set in the {@link org.eu.zajc.akiwrapper.AkiwrapperBuilder}.
+ */
+public class LatencyTracker {
+
+	/**
+	 * The default number of significant decimal digits the histograms keep.
+	 */
+	public static final int DEFAULT_SIGNIFICANT_DIGITS = 3;
+
+	private static LatencyTracker defaultTracker;
+
+	private final int significantDigits;
+	private final Map<String, Series> routes = new ConcurrentHashMap<>();
+	private final Map<String, Series> hosts = new ConcurrentHashMap<>();
+	private long lastSnapshot = currentTimeMillis();
+
+	/**
+	 * Creates a new {@link LatencyTracker}.
+	 *
+	 * @param significantDigits
+	 *            the number of significant decimal digits the histograms keep, between
+	 *            0 and 5
+	 */
+	public LatencyTracker(int significantDigits) {
+		if (significantDigits < 0 || significantDigits > 5)
+			throw new IllegalArgumentException("significantDigits must be between 0 and 5");
+
+		this.significantDigits = significantDigits;
+	}
+
+	/**
+	 * Returns the process-wide {@link LatencyTracker}, creating it with the default
+	 * settings if it doesn't exist yet.
+	 *
+	 * @return the default {@link LatencyTracker}
+	 */
+	@Nonnull
+	public static synchronized LatencyTracker getDefault() {
+		if (defaultTracker == null)
+			defaultTracker = new LatencyTracker(DEFAULT_SIGNIFICANT_DIGITS);
+
+		return defaultTracker;
+	}
+
+	/**
+	 * Records the latency of a request.
+	 *
+	 * @param route
+	 *            the name of the request's route
+	 * @param host
+	 *            the host the request was sent to
+	 * @param nanos
+	 *            the latency in nanoseconds
+	 */
+	public void record(@Nonnull String route, @Nonnull String host, long nanos) {
+		long micros = NANOSECONDS.toMicros(Math.max(0, nanos));
+		series(this.routes, route).record(micros);
+		series(this.hosts, host).record(micros);
+	}
+
+	@Nonnull
+	private Series series(@Nonnull Map<String, Series> series, @Nonnull String key) {
+		// the lookup is all that's done once the series exists
+		var existing = series.get(key);
+		if (existing != null)
+			return existing;
+
+		return series.computeIfAbsent(key, k -> new Series(this.significantDigits));
+	}
+
+	/**
+	 * Takes a snapshot of the latencies recorded since the previous snapshot (or since
+	 * this {@link LatencyTracker} was created) and adds them to the totals. Each
+	 * snapshot closes the interval, so there should only be one party taking them.
+	 *
+	 * @return the {@link Snapshot}
+	 */
+	@Nonnull
+	public synchronized Snapshot snapshot() {
+		long now = currentTimeMillis();
+		var snapshot = new Snapshot(this.lastSnapshot, now, collect(this.routes), collect(this.hosts));
+		this.lastSnapshot = now;
+		return snapshot;
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private static Map<String, Latencies> collect(@Nonnull Map<String, Series> series) {
+		var collected = new TreeMap<String, Latencies>();
+		series.forEach((key, s) -> collected.put(key, s.collect()));
+		return Collections.unmodifiableMap(collected);
+	}
+
+	private static final class Series {
+
+		@Nonnull private final Recorder recorder;
+		@Nonnull private final Histogram total;
+
+		Series(int significantDigits) {
+			this.recorder = new Recorder(significantDigits);
+			this.total = new Histogram(significantDigits);
+		}
+
+		void record(long micros) {
+			this.recorder.recordValue(micros);
+		}
+
+		// only called by snapshot(), which is synchronized
+		@Nonnull
+		Latencies collect() {
+			var interval = this.recorder.getIntervalHistogram();
+			this.total.add(interval);
+			return new Latencies(interval, this.total.copy());
+		}
+
+	}
+
+	/**
+	 * The latencies recorded up to the moment a snapshot was taken.
+	 */
+	public static final class Snapshot {
+
+		private final long startTime;
+		private final long endTime;
+		@Nonnull private final Map<String, Latencies> routes;
+		@Nonnull private final Map<String, Latencies> hosts;
+
+		Snapshot(long startTime, long endTime, @Nonnull Map<String, Latencies> routes,
+				 @Nonnull Map<String, Latencies> hosts) {
+			this.startTime = startTime;
+			this.endTime = endTime;
+			this.routes = routes;
+			this.hosts = hosts;
+		}
+
+		/**
+		 * @return the time the interval started at, in milliseconds since the epoch
+		 */
+		public long getStartTime() {
+			return this.startTime;
+		}
+
+		/**
+		 * @return the time the interval ended at, in milliseconds since the epoch
+		 */
+		public long getEndTime() {
+			return this.endTime;
+		}
+
+		/**
+		 * @return the latencies of each route, by route name
+		 */
+		@Nonnull
+		public Map<String, Latencies> getRoutes() {
+			return this.routes;
+		}
+
+		/**
+		 * @return the latencies of each host
+		 */
+		@Nonnull
+		public Map<String, Latencies> getHosts() {
+			return this.hosts;
+		}
+
+	}
+
+	/**
+	 * The latencies of a single route or host, in microseconds.
+	 */
+	public static final class Latencies {
+
+		@Nonnull private final Histogram interval;
+		@Nonnull private final Histogram total;
+
+		Latencies(@Nonnull Histogram interval, @Nonnull Histogram total) {
+			this.interval = interval;
+			this.total = total;
+		}
+
+		/**
+		 * @return the latencies recorded during the snapshot's interval
+		 */
+		@Nonnull
+		public Histogram getInterval() {
+			return this.interval;
+		}
+
+		/**
+		 * @return all latencies recorded up to the end of the snapshot's interval
+		 */
+		@Nonnull
+		public Histogram getTotal() {
+			return this.total;
+		}
+
+	}
+
+}
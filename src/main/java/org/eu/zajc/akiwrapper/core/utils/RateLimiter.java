@@ -0,0 +1,287 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.core.utils.route.Route.Endpoint;
+
+/**
+ * Token bucket rate limits for the requests made to Akinator, which throttles (and
+ * temporarily blocks) clients that send too many. The website and each of the game
+ * servers get a bucket of their own, filled at a steady rate up to a burst size.
+ * Requests take a token from their host's bucket before they're sent. When the
+ * bucket is empty, requests queue up for the tokens that are coming, but only for as
+ * long as the maximum wait (or their deadline) allows: requests that would have to
+ * wait longer fail right away with a
+ * {@link org.eu.zajc.akiwrapper.core.exceptions.RateLimitedException}.<br>
+ * <br>
+ * A process-wide instance is available through {@link #getDefault()} and is used
+ * unless a different one is set in the {@link org.eu.zajc.akiwrapper.AkiwrapperBuilder}.
+ */
+public class RateLimiter {
+
+	/**
+	 * The default sustained rate of requests to the website, per second.
+	 */
+	public static final double DEFAULT_WEBSITE_RATE = 5;
+
+	/**
+	 * The default number of requests to the website that can be sent at once after a
+	 * quiet period.
+	 */
+	public static final int DEFAULT_WEBSITE_BURST = 10;
+
+	/**
+	 * The default sustained rate of requests to each game server, per second.
+	 */
+	public static final double DEFAULT_SERVER_RATE = 10;
+
+	/**
+	 * The default number of requests to each game server that can be sent at once after
+	 * a quiet period.
+	 */
+	public static final int DEFAULT_SERVER_BURST = 20;
+
+	/**
+	 * The default longest time a request waits for a token.
+	 */
+	@Nonnull public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(1);
+
+	private static RateLimiter defaultLimiter;
+
+	private final double websiteRate;
+	private final int websiteBurst;
+	private final double serverRate;
+	private final int serverBurst;
+	private final long maxWait;
+	private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a new {@link RateLimiter}.
+	 *
+	 * @param websiteRate
+	 *            the sustained rate of requests to the website, per second
+	 * @param websiteBurst
+	 *            the number of requests to the website that can be sent at once
+	 * @param serverRate
+	 *            the sustained rate of requests to each game server, per second
+	 * @param serverBurst
+	 *            the number of requests to each game server that can be sent at once
+	 * @param maxWait
+	 *            the longest time a request waits for a token
+	 */
+	public RateLimiter(double websiteRate, int websiteBurst, double serverRate, int serverBurst,
+					   @Nonnull Duration maxWait) {
+		if (websiteRate <= 0 || serverRate <= 0)
+			throw new IllegalArgumentException("Rates must be positive");
+		if (websiteBurst < 1 || serverBurst < 1)
+			throw new IllegalArgumentException("Burst sizes must be positive");
+
+		this.websiteRate = websiteRate;
+		this.websiteBurst = websiteBurst;
+		this.serverRate = serverRate;
+		this.serverBurst = serverBurst;
+		this.maxWait = maxWait.toNanos();
+	}
+
+	/**
+	 * Returns the process-wide {@link RateLimiter}, creating it with the default
+	 * settings if it doesn't exist yet.
+	 *
+	 * @return the default {@link RateLimiter}
+	 */
+	@Nonnull
+	public static synchronized RateLimiter getDefault() {
+		if (defaultLimiter == null)
+			defaultLimiter = new RateLimiter(DEFAULT_WEBSITE_RATE, DEFAULT_WEBSITE_BURST, DEFAULT_SERVER_RATE,
+											 DEFAULT_SERVER_BURST, DEFAULT_MAX_WAIT);
+
+		return defaultLimiter;
+	}
+
+	/**
+	 * Takes a token for a request to a host. If the host's bucket is empty, the token
+	 * is reserved from the ones that are coming and the request must wait for the
+	 * returned time before it's sent.
+	 *
+	 * @param endpoint
+	 *            the {@link Endpoint} the host is
+	 * @param host
+	 *            the host
+	 * @param timeoutNanos
+	 *            the longest time the request can wait, on top of the maximum wait
+	 *
+	 * @return the time to wait before sending the request in nanoseconds, or
+	 *         {@code -1} if it would have to wait for longer than allowed, in which case
+	 *         no token was taken
+	 */
+	public long reserve(@Nonnull Endpoint endpoint, @Nonnull String host, long timeoutNanos) {
+		return this.buckets.computeIfAbsent(host, h -> newBucket(endpoint, h))
+			.reserve(Math.min(this.maxWait, timeoutNanos));
+	}
+
+	/**
+	 * @return the buckets of the hosts requests have been made to
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public Collection<Bucket> getBuckets() {
+		return Collections.unmodifiableCollection(this.buckets.values());
+	}
+
+	@Nonnull
+	private Bucket newBucket(@Nonnull Endpoint endpoint, @Nonnull String host) {
+		if (endpoint == Endpoint.WEBSITE)
+			return new Bucket(host, this.websiteRate, this.websiteBurst);
+		else
+			return new Bucket(host, this.serverRate, this.serverBurst);
+	}
+
+	/**
+	 * The token bucket of a single host.
+	 */
+	public static final class Bucket {
+
+		@Nonnull private final String host;
+		private final double rate;
+		private final int burst;
+		private final double tokensPerNano;
+		private double tokens;
+		private long refilledAt;
+		private long granted;
+		private long delayed;
+		private long rejected;
+		private long totalWait;
+		private long maxWait;
+
+		Bucket(@Nonnull String host, double rate, int burst) {
+			this.host = host;
+			this.rate = rate;
+			this.burst = burst;
+			this.tokensPerNano = rate / SECONDS.toNanos(1);
+			this.tokens = burst;
+			this.refilledAt = nanoTime();
+		}
+
+		synchronized long reserve(long maxWaitNanos) {
+			refill();
+			if (this.tokens >= 1) {
+				this.tokens--;
+				this.granted++;
+				return 0;
+			}
+
+			// tokens go negative while requests are queued for them, so each request waits
+			// behind the ones before it
+			long wait = (long) Math.ceil((1 - this.tokens) / this.tokensPerNano);
+			if (wait > maxWaitNanos) {
+				this.rejected++;
+				return -1;
+			}
+
+			this.tokens--;
+			this.delayed++;
+			this.totalWait += wait;
+			this.maxWait = Math.max(this.maxWait, wait);
+			return wait;
+		}
+
+		private void refill() {
+			long now = nanoTime();
+			this.tokens = Math.min(this.burst, this.tokens + (now - this.refilledAt) * this.tokensPerNano);
+			this.refilledAt = now;
+		}
+
+		/**
+		 * @return the host this bucket is for
+		 */
+		@Nonnull
+		public String getHost() {
+			return this.host;
+		}
+
+		/**
+		 * @return the sustained rate of requests, per second
+		 */
+		public double getRate() {
+			return this.rate;
+		}
+
+		/**
+		 * @return the number of requests that can be sent at once
+		 */
+		public int getBurst() {
+			return this.burst;
+		}
+
+		/**
+		 * @return the number of tokens available right now, negative if requests are
+		 *         queued for tokens that haven't come yet
+		 */
+		public synchronized double getAvailable() {
+			refill();
+			return this.tokens;
+		}
+
+		/**
+		 * @return the number of requests that got a token right away
+		 */
+		public synchronized long getGranted() {
+			return this.granted;
+		}
+
+		/**
+		 * @return the number of requests that had to wait for a token
+		 */
+		public synchronized long getDelayed() {
+			return this.delayed;
+		}
+
+		/**
+		 * @return the number of requests that would have had to wait too long and failed
+		 */
+		public synchronized long getRejected() {
+			return this.rejected;
+		}
+
+		/**
+		 * @return the average wait of the requests that had to wait for a token
+		 */
+		@Nonnull
+		public synchronized Duration getAverageWait() {
+			return Duration.ofNanos(this.delayed == 0 ? 0 : this.totalWait / this.delayed);
+		}
+
+		/**
+		 * @return the longest wait of a request for a token
+		 */
+		@Nonnull
+		public synchronized Duration getMaxWait() {
+			return Duration.ofNanos(this.maxWait);
+		}
+
+	}
+
+}
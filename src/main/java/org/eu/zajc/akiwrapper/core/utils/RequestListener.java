@@ -0,0 +1,187 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.core.entities.Status;
+
+/**
+ * Listens to the phases each request to Akinator goes through, with the time each of
+ * them took in nanoseconds, to find out where the time of a step goes without having
+ * to attach a profiler. Every callback gets the name of the route the request was
+ * made to, and the ones that happen for each attempt get the zero-based attempt as
+ * well. All callbacks do nothing by default.<br>
+ * <br>
+ * Fetching the server list and the API key is reported as well, under the
+ * {@code SERVER_LIST} and {@code API_KEY} names. These are never retried and aren't
+ * JSONP, so they only have attempt 0 and no {@link #onParse(String, int, long)} or
+ * {@link #onStatus(String, int, Status)}. Connections warmed ahead of time (see
+ * {@link ConnectionWarmer}) aren't reported.<br>
+ * <br>
+ * Callbacks are called on the thread that made or completed the request, so they
+ * should be quick. Exceptions they throw are logged and otherwise ignored.
+ *
+ * @see org.eu.zajc.akiwrapper.AkiwrapperBuilder#setRequestListener(RequestListener)
+ */
+public interface RequestListener {
+
+	/**
+	 * A listener that doesn't do anything.
+	 */
+	RequestListener NONE = new RequestListener() {};
+
+	/**
+	 * Called once the request's URL is built.
+	 *
+	 * @param route
+	 *            the name of the route
+	 * @param nanos
+	 *            the time building the URL took
+	 */
+	default void onUrlBuilt(@Nonnull String route, long nanos) {}
+
+	/**
+	 * Called once an attempt gets past the host's rate limit.
+	 *
+	 * @param route
+	 *            the name of the route
+	 * @param attempt
+	 *            the attempt
+	 * @param nanos
+	 *            the time spent waiting for the rate limit
+	 *
+	 * @see RateLimiter
+	 */
+	default void onRateLimitWait(@Nonnull String route, int attempt, long nanos) {}
+
+	/**
+	 * Called once an attempt gets a permit from the host's concurrency limit.
+	 *
+	 * @param route
+	 *            the name of the route
+	 * @param attempt
+	 *            the attempt
+	 * @param nanos
+	 *            the time spent waiting for the permit
+	 *
+	 * @see ConcurrencyLimiter
+	 */
+	default void onConcurrencyWait(@Nonnull String route, int attempt, long nanos) {}
+
+	/**
+	 * Called once an attempt gets a free upstream slot.
+	 *
+	 * @param route
+	 *            the name of the route
+	 * @param attempt
+	 *            the attempt
+	 * @param nanos
+	 *            the time spent waiting for the slot
+	 *
+	 * @see UpstreamDispatcher
+	 */
+	default void onSlotWait(@Nonnull String route, int attempt, long nanos) {}
+
+	/**
+	 * Called once an attempt's exchange receives a response, with the time the
+	 * transport spent waiting for one of its connections to free up. It's always zero
+	 * for transports that don't limit their connections.
+	 *
+	 * @param route
+	 *            the name of the route
+	 * @param attempt
+	 *            the attempt
+	 * @param nanos
+	 *            the time spent waiting for a connection
+	 *
+	 * @see org.eu.zajc.akiwrapper.core.transport.PooledTransport
+	 */
+	default void onLeaseWait(@Nonnull String route, int attempt, long nanos) {}
+
+	/**
+	 * Called once an attempt's exchange with the host completes. The exchange covers
+	 * everything the transport does apart from waiting for a connection (see
+	 * {@link #onLeaseWait(String, int, long)}): setting up the connection, sending the
+	 * request, and receiving the whole response. Exchanges that fail include that wait,
+	 * as it isn't known.
+	 *
+	 * @param route
+	 *            the name of the route
+	 * @param attempt
+	 *            the attempt
+	 * @param nanos
+	 *            the time the exchange took
+	 * @param failure
+	 *            the exception the exchange failed with, or {@code null} if a response
+	 *            was received
+	 */
+	default void onExchange(@Nonnull String route, int attempt, long nanos, @Nullable Throwable failure) {}
+
+	/**
+	 * Called once the response of an attempt is unwrapped from its JSONP callback and
+	 * its status is decoded.
+	 *
+	 * @param route
+	 *            the name of the route
+	 * @param attempt
+	 *            the attempt
+	 * @param nanos
+	 *            the time it took
+	 */
+	default void onParse(@Nonnull String route, int attempt, long nanos) {}
+
+	/**
+	 * Called with the status an attempt's response was classified as.
+	 *
+	 * @param route
+	 *            the name of the route
+	 * @param attempt
+	 *            the attempt
+	 * @param status
+	 *            the status
+	 */
+	default void onStatus(@Nonnull String route, int attempt, @Nonnull Status status) {}
+
+	/**
+	 * Called when a failed attempt is going to be retried.
+	 *
+	 * @param route
+	 *            the name of the route
+	 * @param attempt
+	 *            the attempt that failed
+	 * @param failure
+	 *            the exception it failed with
+	 * @param delayNanos
+	 *            the time until the next attempt
+	 */
+	default void onRetry(@Nonnull String route, int attempt, @Nonnull Throwable failure, long delayNanos) {}
+
+	/**
+	 * Called once the request completes.
+	 *
+	 * @param route
+	 *            the name of the route
+	 * @param nanos
+	 *            the time the whole request took, from when it was executed
+	 * @param failure
+	 *            the exception the request failed with, or {@code null} if it
+	 *            succeeded
+	 */
+	default void onComplete(@Nonnull String route, long nanos, @Nullable Throwable failure) {}
+
+}
@@ -0,0 +1,258 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.eu.zajc.akiwrapper.core.entities.Status.Reason.SERVER_FAILURE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.*;
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import javax.annotation.Nonnull;
+
+import org.eu.zajc.akiwrapper.core.entities.Status.Reason;
+import org.eu.zajc.akiwrapper.core.exceptions.*;
+import org.slf4j.Logger;
+
+/**
+ * Decides whether and when failed upstream requests are retried. Retries are spaced
+ * out with exponential backoff and full jitter (a random delay between zero and the
+ * exponential cap), so clients that failed at the same time don't retry in lockstep.
+ * Only failures that are likely to go away on their own are retried: HTTP 5xx
+ * responses, I/O errors, timeouts, and statuses with {@link Reason#SERVER_FAILURE}. Statuses
+ * with {@link Reason#LIBRARY_FAILURE} (or any other reason) are never retried.<br>
+ * <br>
+ * All requests that share a {@link RetryScheduler} also share a retry budget: every
+ * request adds a fraction of a retry to the budget and every retry takes a whole one
+ * out, so during an outage retries can only add that fraction of extra load on top of
+ * the regular traffic. Asynchronous retries are scheduled on a shared timer thread
+ * instead of sleeping.<br>
+ * <br>
+ * A process-wide instance is available through {@link #getDefault()} and is used
+ * unless a different one is set in the {@link org.eu.zajc.akiwrapper.AkiwrapperBuilder}.
+ */
+public class RetryScheduler {
+
+	private static final Logger LOG = getLogger(RetryScheduler.class);
+
+	/**
+	 * The default maximum number of retries of a single request.
+	 */
+	public static final int DEFAULT_MAX_RETRIES = 5;
+
+	/**
+	 * The default cap of the delay before the first retry. The cap doubles with every
+	 * retry.
+	 */
+	@Nonnull public static final Duration DEFAULT_BASE_DELAY = Duration.ofMillis(200);
+
+	/**
+	 * The default maximum delay between two attempts.
+	 */
+	@Nonnull public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(3);
+
+	/**
+	 * The default fraction of requests that may be retried.
+	 */
+	public static final double DEFAULT_BUDGET_RATIO = 0.1;
+
+	/**
+	 * The default number of retries the budget can hold, which is also how many retries
+	 * are allowed before any requests have been made.
+	 */
+	public static final int DEFAULT_BUDGET_CAPACITY = 10;
+
+	private static RetryScheduler defaultScheduler;
+	private static ScheduledExecutorService timer;
+
+	private final int maxRetries;
+	private final long baseDelay;
+	private final long maxDelay;
+	private final double budgetRatio;
+	private final double budgetCapacity;
+	private double budget;
+	private long retries;
+	private long denied;
+
+	/**
+	 * Creates a new {@link RetryScheduler}.
+	 *
+	 * @param maxRetries
+	 *            the maximum number of retries of a single request
+	 * @param baseDelay
+	 *            the cap of the delay before the first retry
+	 * @param maxDelay
+	 *            the maximum delay between two attempts
+	 * @param budgetRatio
+	 *            the fraction of requests that may be retried
+	 * @param budgetCapacity
+	 *            the number of retries the budget can hold
+	 */
+	public RetryScheduler(int maxRetries, @Nonnull Duration baseDelay, @Nonnull Duration maxDelay, double budgetRatio,
+						  int budgetCapacity) {
+		if (maxRetries < 0 || budgetRatio < 0 || budgetCapacity < 0)
+			throw new IllegalArgumentException("Retry limits can't be negative");
+
+		this.maxRetries = maxRetries;
+		this.baseDelay = baseDelay.toMillis();
+		this.maxDelay = maxDelay.toMillis();
+		this.budgetRatio = budgetRatio;
+		this.budgetCapacity = budgetCapacity;
+		this.budget = budgetCapacity;
+	}
+
+	/**
+	 * Returns the process-wide {@link RetryScheduler}, creating it with the default
+	 * settings if it doesn't exist yet.
+	 *
+	 * @return the default {@link RetryScheduler}
+	 */
+	@Nonnull
+	public static synchronized RetryScheduler getDefault() {
+		if (defaultScheduler == null)
+			defaultScheduler = new RetryScheduler(DEFAULT_MAX_RETRIES, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY,
+												  DEFAULT_BUDGET_RATIO, DEFAULT_BUDGET_CAPACITY);
+
+		return defaultScheduler;
+	}
+
+	/**
+	 * Records a new request, adding to the retry budget. Must be called once per
+	 * request, not per attempt.
+	 */
+	public synchronized void onRequest() {
+		this.budget = Math.min(this.budgetCapacity, this.budget + this.budgetRatio);
+	}
+
+	/**
+	 * Decides whether a failed attempt should be retried and takes a retry out of the
+	 * budget if it should.
+	 *
+	 * @param failure
+	 *            the exception the attempt failed with
+	 * @param attempt
+	 *            the zero-based number of the attempt that failed
+	 *
+	 * @return the delay before the next attempt in milliseconds, or {@code -1} if the
+	 *         attempt shouldn't be retried
+	 */
+	public long getRetryDelay(@Nonnull Throwable failure, int attempt) {
+		if (attempt >= this.maxRetries || !isRetryable(failure))
+			return -1;
+
+		synchronized (this) {
+			if (this.budget < 1) {
+				this.denied++;
+				LOG.debug("Not retrying a failed request because the retry budget is exhausted");
+				return -1;
+			}
+
+			this.budget--;
+			this.retries++;
+		}
+
+		// full jitter, anywhere between zero and the exponential cap
+		long cap = Math.min(this.maxDelay, this.baseDelay << Math.min(attempt, 30));
+		long delay = ThreadLocalRandom.current().nextLong(cap + 1);
+		LOG.trace("Retrying a failed request after {} ms", delay);
+		return delay;
+	}
+
+	/**
+	 * Returns a {@link CompletableFuture} that completes after the given delay, without
+	 * blocking any thread in the meantime.
+	 *
+	 * @param delay
+	 *            the delay in milliseconds
+	 *
+	 * @return a {@link CompletableFuture} completed after the delay
+	 */
+	@Nonnull
+	public static CompletableFuture<Void> schedule(long delay) {
+		var future = new CompletableFuture<Void>();
+		var scheduled = getTimer().schedule(() -> future.complete(null), delay, MILLISECONDS);
+		// don't keep the task around if whoever waits for it gives up
+		future.whenComplete((r, e) -> scheduled.cancel(false));
+		return future;
+	}
+
+	/**
+	 * Returns whether a failure is worth retrying.
+	 *
+	 * @param failure
+	 *            the exception an attempt failed with
+	 *
+	 * @return whether the failure is likely to go away on its own
+	 */
+	public static boolean isRetryable(@Nonnull Throwable failure) {
+		if (failure instanceof ServerStatusException)
+			return ((ServerStatusException) failure).getStatus().getReason() == SERVER_FAILURE;
+
+		if (failure instanceof AkinatorException) {
+			var response = ((AkinatorException) failure).getResponse();
+			return response != null && response.getStatus() >= 500;
+		}
+
+		return failure instanceof UncheckedIOException || failure instanceof IOException ||
+			failure instanceof TimeoutException;
+	}
+
+	/**
+	 * @return the maximum number of retries of a single request
+	 */
+	public int getMaxRetries() {
+		return this.maxRetries;
+	}
+
+	/**
+	 * @return the number of retries currently left in the budget
+	 */
+	public synchronized double getBudget() {
+		return this.budget;
+	}
+
+	/**
+	 * @return the total number of retries made
+	 */
+	public synchronized long getRetries() {
+		return this.retries;
+	}
+
+	/**
+	 * @return the total number of retries denied because the budget was exhausted
+	 */
+	public synchronized long getDenied() {
+		return this.denied;
+	}
+
+	@Nonnull
+	private static synchronized ScheduledExecutorService getTimer() {
+		if (timer == null) {
+			var executor = new ScheduledThreadPoolExecutor(1, r -> {
+				var thread = new Thread(r, "akiwrapper-retry");
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor.setRemoveOnCancelPolicy(true);
+			timer = executor;
+		}
+		return timer;
+	}
+
+}
@@ -19,6 +19,7 @@ package org.eu.zajc.akiwrapper.core.utils;
 import static java.util.stream.Collectors.toList;
 
 import java.util.List;
+import java.util.concurrent.*;
 import java.util.stream.Stream;
 
 import javax.annotation.Nonnull;
@@ -26,6 +27,11 @@ import javax.annotation.Nonnull;
 import org.eu.zajc.akiwrapper.core.entities.Server;
 import org.eu.zajc.akiwrapper.core.entities.Server.*;
 import org.eu.zajc.akiwrapper.core.entities.impl.ServerImpl;
+import org.eu.zajc.akiwrapper.core.exceptions.DeadlineExceededException;
+import org.eu.zajc.akiwrapper.core.transport.*;
+import org.eu.zajc.akiwrapper.core.utils.UpstreamDispatcher.Priority;
+import org.eu.zajc.akiwrapper.core.utils.route.BootstrapClient;
+import org.eu.zajc.akiwrapper.core.utils.route.Route.Endpoint;
 
 import com.jcabi.xml.XMLDocument;
 
@@ -43,9 +49,15 @@ import kong.unirest.UnirestInstance;
 @SuppressFBWarnings("REC_CATCH_EXCEPTION")
 public final class Servers {
 
-	private static final String LIST_URL =
+	static final String LIST_URL =
 		"https://global3.akinator.com/ws/instances_v2.php?media_id=14&mode=https&footprint=cd8e6509f3420878e18d75b9831b317f";
 
+	// what fetching the list is reported as, see BootstrapClient
+	private static final String NAME = "SERVER_LIST";
+
+	// builders that start at the same time share the list instead of each fetching it
+	private static final SingleFlight<Transport, String> FLIGHTS = new SingleFlight<>();
+
 	private Servers() {}
 
 	/**
@@ -64,7 +76,194 @@ public final class Servers {
 	@SuppressWarnings("null")
 	public static List<ServerImpl> findServers(@Nonnull UnirestInstance unirest, @Nonnull Language localization,
 											   @Nonnull GuessType guessType) {
-		return getServers(unirest).filter(s -> s.getGuessType() == guessType)
+		return findServers(new UnirestTransport(unirest), UpstreamDispatcher.getDefault(), Priority.INTERACTIVE,
+						   localization, guessType);
+	}
+
+	/**
+	 * Finds correct {@link Server}s using given parameters
+	 *
+	 * @param transport
+	 *            the {@link Transport} to use for the request
+	 * @param dispatcher
+	 *            the {@link UpstreamDispatcher} to dispatch the request through
+	 * @param priority
+	 *            the {@link Priority} to dispatch the request with
+	 * @param localization
+	 *            language of the server to search for
+	 * @param guessType
+	 *            guessType of the server to search for
+	 *
+	 * @return a list of {@link Server}s that suit the given parameters.
+	 */
+	@Nonnull
+	public static List<ServerImpl> findServers(@Nonnull Transport transport,
+											   @Nonnull UpstreamDispatcher dispatcher, @Nonnull Priority priority,
+											   @Nonnull Language localization, @Nonnull GuessType guessType) {
+		return findServers(transport, dispatcher, priority, Deadline.none(), localization, guessType);
+	}
+
+	/**
+	 * Finds correct {@link Server}s using given parameters, giving up with a
+	 * {@link DeadlineExceededException} once the deadline passes.
+	 *
+	 * @param transport
+	 *            the {@link Transport} to use for the request
+	 * @param dispatcher
+	 *            the {@link UpstreamDispatcher} to dispatch the request through
+	 * @param priority
+	 *            the {@link Priority} to dispatch the request with
+	 * @param deadline
+	 *            the {@link Deadline} of the operation the request is a part of
+	 * @param localization
+	 *            language of the server to search for
+	 * @param guessType
+	 *            guessType of the server to search for
+	 *
+	 * @return a list of {@link Server}s that suit the given parameters.
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public static List<ServerImpl> findServers(@Nonnull Transport transport,
+											   @Nonnull UpstreamDispatcher dispatcher, @Nonnull Priority priority,
+											   @Nonnull Deadline deadline, @Nonnull Language localization,
+											   @Nonnull GuessType guessType) {
+		return findServers(BootstrapClient.of(transport, dispatcher), priority, deadline, localization, guessType);
+	}
+
+	/**
+	 * Finds correct {@link Server}s using given parameters, giving up with a
+	 * {@link DeadlineExceededException} once the deadline passes.
+	 *
+	 * @param client
+	 *            the {@link BootstrapClient} to make the request with
+	 * @param priority
+	 *            the {@link Priority} to dispatch the request with
+	 * @param deadline
+	 *            the {@link Deadline} of the operation the request is a part of
+	 * @param localization
+	 *            language of the server to search for
+	 * @param guessType
+	 *            guessType of the server to search for
+	 *
+	 * @return a list of {@link Server}s that suit the given parameters.
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public static List<ServerImpl> findServers(@Nonnull BootstrapClient client, @Nonnull Priority priority,
+											   @Nonnull Deadline deadline, @Nonnull Language localization,
+											   @Nonnull GuessType guessType) {
+		String listXml;
+		try {
+			listXml = FLIGHTS.execute(client.getTransport(), () -> fetchListXml(client, priority, deadline),
+									  deadline.getRemainingNanos());
+
+		} catch (TimeoutException e) {
+			throw new DeadlineExceededException("The deadline passed before the server list was fetched", e);
+		}
+		return filterServers(parseServers(listXml), localization, guessType);
+	}
+
+	/**
+	 * Finds correct {@link Server}s using given parameters without blocking the calling
+	 * thread.
+	 *
+	 * @param transport
+	 *            the {@link Transport} to use for the request
+	 * @param dispatcher
+	 *            the {@link UpstreamDispatcher} to dispatch the request through
+	 * @param priority
+	 *            the {@link Priority} to dispatch the request with
+	 * @param localization
+	 *            language of the server to search for
+	 * @param guessType
+	 *            guessType of the server to search for
+	 *
+	 * @return a {@link CompletableFuture} completed with a list of {@link Server}s that
+	 *         suit the given parameters.
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public static CompletableFuture<List<ServerImpl>> findServersAsync(@Nonnull Transport transport,
+																	   @Nonnull UpstreamDispatcher dispatcher,
+																	   @Nonnull Priority priority,
+																	   @Nonnull Language localization,
+																	   @Nonnull GuessType guessType) {
+		return findServersAsync(transport, dispatcher, priority, Deadline.none(), localization, guessType);
+	}
+
+	/**
+	 * Finds correct {@link Server}s using given parameters without blocking the calling
+	 * thread, giving up with a {@link DeadlineExceededException} once the deadline
+	 * passes.
+	 *
+	 * @param transport
+	 *            the {@link Transport} to use for the request
+	 * @param dispatcher
+	 *            the {@link UpstreamDispatcher} to dispatch the request through
+	 * @param priority
+	 *            the {@link Priority} to dispatch the request with
+	 * @param deadline
+	 *            the {@link Deadline} of the operation the request is a part of
+	 * @param localization
+	 *            language of the server to search for
+	 * @param guessType
+	 *            guessType of the server to search for
+	 *
+	 * @return a {@link CompletableFuture} completed with a list of {@link Server}s that
+	 *         suit the given parameters.
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public static CompletableFuture<List<ServerImpl>> findServersAsync(@Nonnull Transport transport,
+																	   @Nonnull UpstreamDispatcher dispatcher,
+																	   @Nonnull Priority priority,
+																	   @Nonnull Deadline deadline,
+																	   @Nonnull Language localization,
+																	   @Nonnull GuessType guessType) {
+		return findServersAsync(BootstrapClient.of(transport, dispatcher), priority, deadline, localization,
+								guessType);
+	}
+
+	/**
+	 * Finds correct {@link Server}s using given parameters without blocking the calling
+	 * thread, giving up with a {@link DeadlineExceededException} once the deadline
+	 * passes.
+	 *
+	 * @param client
+	 *            the {@link BootstrapClient} to make the request with
+	 * @param priority
+	 *            the {@link Priority} to dispatch the request with
+	 * @param deadline
+	 *            the {@link Deadline} of the operation the request is a part of
+	 * @param localization
+	 *            language of the server to search for
+	 * @param guessType
+	 *            guessType of the server to search for
+	 *
+	 * @return a {@link CompletableFuture} completed with a list of {@link Server}s that
+	 *         suit the given parameters.
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public static CompletableFuture<List<ServerImpl>> findServersAsync(@Nonnull BootstrapClient client,
+																	   @Nonnull Priority priority,
+																	   @Nonnull Deadline deadline,
+																	   @Nonnull Language localization,
+																	   @Nonnull GuessType guessType) {
+		// the deadline is applied to each caller's copy, since whoever joins a flight in
+		// progress may have less time left than whoever started it
+		return deadline.bound(FLIGHTS.executeAsync(client.getTransport(), () -> client
+			.getAsync(NAME, Endpoint.WEBSITE, LIST_URL, priority, deadline)
+			.thenApply(TransportResponse::getBody)))
+			.thenApply(listXml -> filterServers(parseServers(listXml), localization, guessType));
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private static List<ServerImpl> filterServers(@Nonnull Stream<ServerImpl> servers, @Nonnull Language localization,
+												  @Nonnull GuessType guessType) {
+		return servers.filter(s -> s.getGuessType() == guessType)
 			.filter(s -> s.getLanguage() == localization)
 			.collect(toList());
 	}
@@ -78,15 +277,37 @@ public final class Servers {
 	 *
 	 * @return a {@link Stream} of all available {@link Server}s.
 	 */
-	@SuppressWarnings("null")
 	public static Stream<ServerImpl> getServers(@Nonnull UnirestInstance unirest) {
-		return new XMLDocument(fetchListXml(unirest)).nodes("//RESULT/PARAMETERS/*")
+		return getServers(new UnirestTransport(unirest));
+	}
+
+	/**
+	 * Fetches and builds a {@link Stream} of {@link Server}s from the server-listing API
+	 * endpoint. All servers in this list should be up and running.
+	 *
+	 * @param transport
+	 *            the {@link Transport} to use for the request
+	 *
+	 * @return a {@link Stream} of all available {@link Server}s.
+	 */
+	@SuppressWarnings("null")
+	public static Stream<ServerImpl> getServers(@Nonnull Transport transport) {
+		return parseServers(fetchListXml(BootstrapClient.of(transport, UpstreamDispatcher.getDefault()),
+										 Priority.INTERACTIVE, Deadline.none()));
+	}
+
+	@SuppressWarnings("null")
+	private static Stream<ServerImpl> parseServers(@Nonnull String listXml) {
+		return new XMLDocument(listXml).nodes("//RESULT/PARAMETERS/*")
 			.stream()
 			.flatMap(xml -> ServerImpl.fromXml(xml).stream());
 	}
 
-	private static String fetchListXml(@Nonnull UnirestInstance unirest) {
-		return unirest.get(LIST_URL).asString().getBody();
+	// the list isn't on a game server, so it's rate limited like the website
+	@SuppressWarnings("null")
+	private static String fetchListXml(@Nonnull BootstrapClient client, @Nonnull Priority priority,
+									   @Nonnull Deadline deadline) {
+		return client.get(NAME, Endpoint.WEBSITE, LIST_URL, priority, deadline).getBody();
 	}
 
 }
@@ -0,0 +1,180 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.lang.Thread.currentThread;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.annotation.Nonnull;
+
+/**
+ * <b>Note:</b> This is an internal class and its internals are subject to change
+ * without prior deprecation. Use with caution.<br>
+ * <br>
+ * Coalesces identical calls that are in flight at the same time: the first caller for
+ * a key makes the call, and everyone who asks for the same key before it completes
+ * shares its result (or failure) instead of making their own. Nothing is cached, the
+ * next call after completion goes out again.<br>
+ * <br>
+ * Callers that join a call can stop waiting for it (by cancelling their future or
+ * being interrupted) without affecting anyone else. The call itself is owned by the
+ * caller that made it.
+ *
+ * @param <K>
+ *            the key type
+ * @param <V>
+ *            the result type
+ */
+@SuppressWarnings("javadoc") // internal util
+public class SingleFlight<K, V> {
+
+	private final ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+	private final LongAdder coalesced = new LongAdder();
+
+	/**
+	 * Makes a call, or joins the one already in flight for the same key.
+	 *
+	 * @param key
+	 *            the key identifying the call
+	 * @param call
+	 *            the call to make if none is in flight
+	 *
+	 * @return a {@link CompletableFuture} completed with the result of the call.
+	 *         Cancelling it only stops this caller from waiting.
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public CompletableFuture<V> executeAsync(@Nonnull K key, @Nonnull Supplier<CompletableFuture<V>> call) {
+		var flight = new CompletableFuture<V>();
+		var existing = this.flights.putIfAbsent(key, flight);
+		if (existing != null) {
+			this.coalesced.increment();
+			return existing.copy();
+		}
+
+		CompletableFuture<V> result;
+		try {
+			result = call.get();
+
+		} catch (Throwable e) { // NOSONAR including checked exceptions thrown with asUnchecked
+			result = CompletableFuture.failedFuture(e);
+		}
+
+		result.whenComplete((r, e) -> {
+			// removed first so that whoever comes after completion makes a new call
+			this.flights.remove(key, flight);
+			if (e != null)
+				flight.completeExceptionally(unwrapCompletion(e));
+			else
+				flight.complete(r);
+		});
+		return flight.copy();
+	}
+
+	/**
+	 * Makes a call on the calling thread, or waits for the one already in flight for the
+	 * same key.
+	 *
+	 * @param key
+	 *            the key identifying the call
+	 * @param call
+	 *            the call to make if none is in flight
+	 *
+	 * @return the result of the call
+	 */
+	public V execute(@Nonnull K key, @Nonnull Supplier<V> call) {
+		try {
+			return execute(key, call, Long.MAX_VALUE);
+
+		} catch (TimeoutException e) {
+			throw new IllegalStateException(e); // can't happen
+		}
+	}
+
+	/**
+	 * Makes a call on the calling thread, or waits for the one already in flight for the
+	 * same key for up to {@code timeoutNanos}. The call is made regardless of the
+	 * timeout, it's only applied to waiting.
+	 *
+	 * @param key
+	 *            the key identifying the call
+	 * @param call
+	 *            the call to make if none is in flight
+	 * @param timeoutNanos
+	 *            the longest time to wait for a call in flight
+	 *
+	 * @return the result of the call
+	 *
+	 * @throws TimeoutException
+	 *             if the call in flight didn't complete in time
+	 */
+	@SuppressWarnings("null")
+	public V execute(@Nonnull K key, @Nonnull Supplier<V> call, long timeoutNanos) throws TimeoutException {
+		var flight = new CompletableFuture<V>();
+		var existing = this.flights.putIfAbsent(key, flight);
+		if (existing != null) {
+			this.coalesced.increment();
+			return await(existing, timeoutNanos);
+		}
+
+		try {
+			var result = call.get();
+			this.flights.remove(key, flight);
+			flight.complete(result);
+			return result;
+
+		} catch (Throwable e) { // NOSONAR including checked exceptions thrown with asUnchecked
+			// or everyone who joins later would wait for a flight that never lands
+			this.flights.remove(key, flight);
+			flight.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	/**
+	 * @return the number of calls currently in flight
+	 */
+	public int getInFlight() {
+		return this.flights.size();
+	}
+
+	/**
+	 * @return the number of calls that were coalesced into one already in flight
+	 */
+	public long getCoalesced() {
+		return this.coalesced.sum();
+	}
+
+	private static <V> V await(@Nonnull CompletableFuture<V> flight, long timeoutNanos) throws TimeoutException {
+		try {
+			return flight.get(timeoutNanos, NANOSECONDS);
+
+		} catch (InterruptedException e) {
+			currentThread().interrupt();
+			throw asUnchecked(e);
+
+		} catch (ExecutionException e) {
+			throw asUnchecked(unwrapCompletion(e));
+		}
+	}
+
+}
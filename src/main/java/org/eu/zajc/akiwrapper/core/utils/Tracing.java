@@ -0,0 +1,167 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.*;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import javax.annotation.*;
+
+import io.opentelemetry.api.*;
+import io.opentelemetry.api.trace.*;
+
+/**
+ * OpenTelemetry tracing for Akiwrapper. Each {@link org.eu.zajc.akiwrapper.Akiwrapper}
+ * operation, each upstream request along with its attempts, and response parsing are
+ * recorded as spans under the {@value #INSTRUMENTATION_NAME} instrumentation scope.<br>
+ * <br>
+ * Spans are sent to the {@link OpenTelemetry} instance set with
+ * {@link #setOpenTelemetry(OpenTelemetry)}, or to {@link GlobalOpenTelemetry} if none
+ * was set. If neither is configured, tracing is a no-op.
+ */
+public final class Tracing {
+
+	/**
+	 * The name of Akiwrapper's instrumentation scope.
+	 */
+	public static final String INSTRUMENTATION_NAME = "org.eu.zajc.akiwrapper";
+
+	@Nullable private static volatile OpenTelemetry openTelemetry;
+
+	/**
+	 * Sets the {@link OpenTelemetry} instance Akiwrapper's spans are sent to.
+	 *
+	 * @param openTelemetry
+	 *            the {@link OpenTelemetry} instance or {@code null} to use
+	 *            {@link GlobalOpenTelemetry}
+	 */
+	public static void setOpenTelemetry(@Nullable OpenTelemetry openTelemetry) {
+		Tracing.openTelemetry = openTelemetry;
+	}
+
+	/**
+	 * @return the {@link OpenTelemetry} instance Akiwrapper's spans are sent to
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public static OpenTelemetry getOpenTelemetry() {
+		var configured = openTelemetry;
+		return configured != null ? configured : GlobalOpenTelemetry.get();
+	}
+
+	/**
+	 * @return the {@link Tracer} used for Akiwrapper's spans
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public static Tracer getTracer() {
+		return getOpenTelemetry().getTracer(INSTRUMENTATION_NAME);
+	}
+
+	/**
+	 * Runs an action within a new span, recording any exception it throws.
+	 *
+	 * @param <T>
+	 *            the result type
+	 * @param name
+	 *            the span name
+	 * @param action
+	 *            the action to run
+	 *
+	 * @return the result of the action
+	 */
+	public static <T> T traced(@Nonnull String name, @Nonnull Supplier<T> action) {
+		var span = getTracer().spanBuilder(name).startSpan();
+		try (var scope = span.makeCurrent()) {
+			return action.get();
+
+		} catch (RuntimeException e) {
+			fail(span, e);
+			throw e;
+
+		} finally {
+			span.end();
+		}
+	}
+
+	/**
+	 * Runs an action within a new span, recording any exception it throws.
+	 *
+	 * @param name
+	 *            the span name
+	 * @param action
+	 *            the action to run
+	 */
+	public static void traced(@Nonnull String name, @Nonnull Runnable action) {
+		traced(name, () -> {
+			action.run();
+			return null;
+		});
+	}
+
+	/**
+	 * Runs an asynchronous action within a new span that ends once the returned
+	 * {@link CompletableFuture} completes, recording any exception it completes with.
+	 * Exceptions thrown by the action itself are returned as a failed future.
+	 *
+	 * @param <T>
+	 *            the result type
+	 * @param name
+	 *            the span name
+	 * @param action
+	 *            the action to run
+	 *
+	 * @return a {@link CompletableFuture} completed with the result of the action
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public static <T> CompletableFuture<T> tracedAsync(@Nonnull String name,
+													   @Nonnull Supplier<CompletableFuture<T>> action) {
+		var span = getTracer().spanBuilder(name).startSpan();
+		CompletableFuture<T> result;
+		try (var scope = span.makeCurrent()) {
+			result = action.get();
+
+		} catch (RuntimeException e) {
+			result = CompletableFuture.failedFuture(e);
+		}
+
+		return propagateCancellation(result.whenComplete((r, e) -> {
+			if (e != null)
+				fail(span, unwrapCompletion(e));
+			span.end();
+		}), result);
+	}
+
+	/**
+	 * Marks a span as failed with the given exception.
+	 *
+	 * @param span
+	 *            the span
+	 * @param e
+	 *            the exception
+	 */
+	public static void fail(@Nonnull Span span, @Nonnull Throwable e) {
+		span.recordException(e);
+		span.setStatus(StatusCode.ERROR, String.valueOf(e.getMessage()));
+	}
+
+	private Tracing() {}
+
+}
@@ -22,6 +22,7 @@ import static org.eu.zajc.akiwrapper.core.utils.WorkaroundUtils.workaroundIncomp
 import javax.annotation.Nonnull;
 
 import org.eu.zajc.akiwrapper.AkiwrapperBuilder;
+import org.eu.zajc.akiwrapper.core.transport.Transport;
 
 import kong.unirest.UnirestInstance;
 
@@ -83,20 +84,9 @@ public class UnirestUtils {
 	@Nonnull
 	@SuppressWarnings("null")
 	public static UnirestInstance configureInstance(@Nonnull UnirestInstance unirest) {
-		unirest.config()
-			.addDefaultHeader("Accept",
-							  "text/javascript, application/javascript, application/ecmascript, application/x-ecmascript, */*. q=0.01")
-			.addDefaultHeader("Accept-Language", "en-US,en.q=0.9,ar.q=0.8")
-			.addDefaultHeader("X-Requested-With", "XMLHttpRequest")
-			.addDefaultHeader("Sec-Fetch-Dest", "empty")
-			.addDefaultHeader("Sec-Fetch-Mode", "cors")
-			.addDefaultHeader("Sec-Fetch-Site", "same-origin")
-			.addDefaultHeader("Connection", "keep-alive")
-			.addDefaultHeader("User-Agent",
-							  "Mozilla/5.0 (Windows NT 10.0. Win64. x64) AppleWebKit/537.36" +
-								  "(KHTML, like Gecko) Chrome/81.0.4044.92 Safari/537.36")
-			.addDefaultHeader("Referer", "https://en.akinator.com/game")
-			.cookieSpec("ignore");
+		var config = unirest.config();
+		Transport.DEFAULT_HEADERS.forEach(config::addDefaultHeader);
+		config.cookieSpec("ignore");
 		workaroundIncompleteChain(unirest.config());
 
 		return unirest;
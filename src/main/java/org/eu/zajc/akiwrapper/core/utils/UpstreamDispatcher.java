@@ -0,0 +1,459 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.lang.Thread.currentThread;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.asUnchecked;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.function.Supplier;
+
+import javax.annotation.*;
+
+/**
+ * A priority-aware gate that all upstream (Akinator) requests pass through. It
+ * limits the number of requests in flight and admits waiting requests strictly by
+ * {@link Priority}, so that requests a player is waiting on are never stuck behind
+ * background work. Lower priorities are additionally capped below the total
+ * capacity, which keeps some headroom free for interactive requests that arrive
+ * later. Requests of the same priority are admitted in the order they arrived in,
+ * whether they wait synchronously or asynchronously.<br>
+ * <br>
+ * A process-wide instance is available through {@link #getDefault()} and is used
+ * unless a different one is set in the {@link org.eu.zajc.akiwrapper.AkiwrapperBuilder}.
+ */
+public class UpstreamDispatcher {
+
+	/**
+	 * The default maximum number of concurrent upstream requests, matching Unirest's
+	 * default per-route connection limit.
+	 */
+	public static final int DEFAULT_CAPACITY = 20;
+
+	/**
+	 * The priority of an upstream request.
+	 */
+	public enum Priority {
+
+		/**
+		 * A request that a player is actively waiting on, such as answering a question or
+		 * fetching guesses. May use the entire capacity.
+		 */
+		INTERACTIVE,
+
+		/**
+		 * A request whose result nobody is waiting on, such as confirming a guess. Only
+		 * admitted when no interactive requests are waiting, and never allowed to take up
+		 * the last quarter of the capacity.
+		 */
+		BACKGROUND,
+
+		/**
+		 * A request made ahead of time in case it's needed later, such as pre-creating a
+		 * session. Only admitted when nothing else is waiting, and never allowed to take
+		 * up more than half of the capacity.
+		 */
+		SPECULATIVE
+
+	}
+
+	private static UpstreamDispatcher defaultDispatcher;
+
+	private final int capacity;
+	private final int[] limits;
+	private final Lock lock = new ReentrantLock();
+	// synchronous and asynchronous requests wait in the same queue, so that they're
+	// admitted in the order they arrived in
+	@SuppressWarnings("unchecked") private final Queue<CompletableFuture<Void>>[] waiters =
+		new Queue[Priority.values().length];
+	private int inFlight;
+
+	/**
+	 * Creates a new {@link UpstreamDispatcher}.
+	 *
+	 * @param capacity
+	 *            the maximum number of concurrent upstream requests
+	 */
+	public UpstreamDispatcher(int capacity) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("Capacity must be positive");
+
+		this.capacity = capacity;
+		this.limits = new int[] { capacity, Math.max(1, capacity - capacity / 4), Math.max(1, capacity / 2) };
+		for (int i = 0; i < this.waiters.length; i++)
+			this.waiters[i] = new ArrayDeque<>();
+	}
+
+	/**
+	 * Returns the process-wide {@link UpstreamDispatcher}, creating it with
+	 * {@link #DEFAULT_CAPACITY} if it doesn't exist yet.
+	 *
+	 * @return the default {@link UpstreamDispatcher}
+	 */
+	@Nonnull
+	public static synchronized UpstreamDispatcher getDefault() {
+		if (defaultDispatcher == null)
+			defaultDispatcher = new UpstreamDispatcher(DEFAULT_CAPACITY);
+
+		return defaultDispatcher;
+	}
+
+	/**
+	 * Blocks until a request of the given {@link Priority} may be sent. Every successful
+	 * call must be followed by a call to {@link #release()}.
+	 *
+	 * @param priority
+	 *            the priority of the request
+	 */
+	public void acquire(@Nonnull Priority priority) {
+		acquire(priority, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Blocks until a request of the given {@link Priority} may be sent or the timeout
+	 * runs out. Every successful call must be followed by a call to {@link #release()}.
+	 *
+	 * @param priority
+	 *            the priority of the request
+	 * @param timeoutNanos
+	 *            the longest time to wait in nanoseconds
+	 *
+	 * @return whether a slot was taken
+	 */
+	public boolean acquire(@Nonnull Priority priority, long timeoutNanos) {
+		var slot = acquireAsync(priority);
+		try {
+			slot.get(timeoutNanos, NANOSECONDS);
+			return true;
+
+		} catch (TimeoutException e) {
+			// the slot might have been granted just now, in which case it's ours
+			return !slot.cancel(false);
+
+		} catch (InterruptedException e) {
+			if (!slot.cancel(false))
+				release();
+			currentThread().interrupt();
+			throw asUnchecked(e);
+
+		} catch (ExecutionException e) {
+			throw asUnchecked(e.getCause()); // can't happen, slots are only ever granted or cancelled
+		}
+	}
+
+	/**
+	 * Returns a {@link CompletableFuture} that is completed once a request of the given
+	 * {@link Priority} may be sent, without blocking the calling thread. Every
+	 * successfully completed future must be followed by a call to {@link #release()}. A
+	 * future that is cancelled before it completes doesn't take up a slot.
+	 *
+	 * @param priority
+	 *            the priority of the request
+	 *
+	 * @return a {@link CompletableFuture} completed once a slot is taken
+	 */
+	@Nonnull
+	public CompletableFuture<Void> acquireAsync(@Nonnull Priority priority) {
+		return acquireAsync(priority, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Returns a {@link CompletableFuture} that is completed once a request of the given
+	 * {@link Priority} may be sent, or completed exceptionally with a
+	 * {@link TimeoutException} if the timeout runs out first. Every successfully
+	 * completed future must be followed by a call to {@link #release()}. A future that
+	 * is cancelled or times out before it completes doesn't take up a slot.
+	 *
+	 * @param priority
+	 *            the priority of the request
+	 * @param timeoutNanos
+	 *            the longest time to wait in nanoseconds
+	 *
+	 * @return a {@link CompletableFuture} completed once a slot is taken
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public CompletableFuture<Void> acquireAsync(@Nonnull Priority priority, long timeoutNanos) {
+		int index = priority.ordinal();
+		CompletableFuture<Void> slot;
+		this.lock.lock();
+		try {
+			if (this.waiters[index].isEmpty() && canAdmit(index)) {
+				this.inFlight++;
+				return CompletableFuture.completedFuture(null);
+			}
+
+			slot = new CompletableFuture<>();
+			this.waiters[index].add(slot);
+
+		} finally {
+			this.lock.unlock();
+		}
+
+		// give up our place right away if the caller stops waiting
+		slot.whenComplete((v, e) -> {
+			if (e != null)
+				abandon(index, slot);
+		});
+		if (timeoutNanos != Long.MAX_VALUE)
+			slot.orTimeout(timeoutNanos, NANOSECONDS);
+		return slot;
+	}
+
+	/**
+	 * Frees up the slot taken by a previous call to {@link #acquire(Priority)}.
+	 */
+	public void release() {
+		List<CompletableFuture<Void>> granted;
+		this.lock.lock();
+		try {
+			this.inFlight--;
+			granted = signalNext();
+
+		} finally {
+			this.lock.unlock();
+		}
+		grant(granted);
+	}
+
+	/**
+	 * Runs the supplied request within a slot of the given {@link Priority}.
+	 *
+	 * @param <T>
+	 *            the result type
+	 * @param priority
+	 *            the priority of the request
+	 * @param request
+	 *            the request to run
+	 *
+	 * @return the result of the request
+	 */
+	public <T> T execute(@Nonnull Priority priority, @Nonnull Supplier<T> request) {
+		acquire(priority);
+		try {
+			return request.get();
+
+		} finally {
+			release();
+		}
+	}
+
+	/**
+	 * Runs the supplied request within a slot of the given {@link Priority}, or fails
+	 * with a {@link TimeoutException} if no slot is free before the timeout runs out.
+	 *
+	 * @param <T>
+	 *            the result type
+	 * @param priority
+	 *            the priority of the request
+	 * @param timeoutNanos
+	 *            the longest time to wait for a slot in nanoseconds
+	 * @param request
+	 *            the request to run
+	 *
+	 * @return the result of the request
+	 *
+	 * @throws TimeoutException
+	 *             if no slot was free in time
+	 */
+	public <T> T execute(@Nonnull Priority priority, long timeoutNanos,
+						 @Nonnull Supplier<T> request) throws TimeoutException {
+		if (!acquire(priority, timeoutNanos))
+			throw new TimeoutException("No upstream slot was free in time");
+
+		try {
+			return request.get();
+
+		} finally {
+			release();
+		}
+	}
+
+	/**
+	 * Runs the supplied asynchronous request within a slot of the given
+	 * {@link Priority}, without blocking the calling thread. The slot is held until the
+	 * future returned by the request completes.
+	 *
+	 * @param <T>
+	 *            the result type
+	 * @param priority
+	 *            the priority of the request
+	 * @param request
+	 *            the request to run
+	 *
+	 * @return a {@link CompletableFuture} completed with the result of the request
+	 */
+	@Nonnull
+	public <T> CompletableFuture<T> executeAsync(@Nonnull Priority priority,
+												 @Nonnull Supplier<CompletableFuture<T>> request) {
+		return executeAsync(priority, Long.MAX_VALUE, request);
+	}
+
+	/**
+	 * Runs the supplied asynchronous request within a slot of the given
+	 * {@link Priority}, without blocking the calling thread, or fails with a
+	 * {@link TimeoutException} if no slot is free before the timeout runs out.
+	 * Cancelling the returned future either gives up the place in the queue or cancels
+	 * the future returned by the request.
+	 *
+	 * @param <T>
+	 *            the result type
+	 * @param priority
+	 *            the priority of the request
+	 * @param timeoutNanos
+	 *            the longest time to wait for a slot in nanoseconds
+	 * @param request
+	 *            the request to run
+	 *
+	 * @return a {@link CompletableFuture} completed with the result of the request
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public <T> CompletableFuture<T> executeAsync(@Nonnull Priority priority, long timeoutNanos,
+												 @Nonnull Supplier<CompletableFuture<T>> request) {
+		var slot = acquireAsync(priority, timeoutNanos);
+		var running = new AtomicReference<CompletableFuture<T>>();
+		var cancelled = new AtomicBoolean();
+		var result = slot.thenCompose(v -> {
+			CompletableFuture<T> exchange;
+			try {
+				exchange = request.get();
+
+			} catch (RuntimeException e) {
+				release();
+				throw e;
+			}
+
+			running.set(exchange);
+			if (cancelled.get())
+				exchange.cancel(true);
+			return exchange.whenComplete((r, e) -> release());
+		});
+
+		// cancelling the result gives up the slot, or aborts the request that's using it
+		result.whenComplete((r, e) -> {
+			if (!result.isCancelled())
+				return;
+
+			cancelled.set(true);
+			slot.cancel(false);
+			var exchange = running.get();
+			if (exchange != null)
+				exchange.cancel(true);
+		});
+		return result;
+	}
+
+	/**
+	 * @return the maximum number of concurrent upstream requests
+	 */
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * @return the number of upstream requests currently in flight
+	 */
+	public int getInFlight() {
+		this.lock.lock();
+		try {
+			return this.inFlight;
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * @param priority
+	 *            the priority to check
+	 *
+	 * @return the number of requests of the given {@link Priority} waiting for a slot
+	 */
+	public int getWaiting(@Nonnull Priority priority) {
+		this.lock.lock();
+		try {
+			return this.waiters[priority.ordinal()].size();
+		} finally {
+			this.lock.unlock();
+		}
+	}
+
+	private boolean canAdmit(int index) {
+		if (this.inFlight >= this.limits[index])
+			return false;
+
+		for (int i = 0; i < index; i++) {
+			if (!this.waiters[i].isEmpty())
+				return false;
+		}
+
+		return true;
+	}
+
+	@Nullable
+	private List<CompletableFuture<Void>> signalNext() {
+		List<CompletableFuture<Void>> granted = null;
+		int i = 0;
+		while (i < this.waiters.length) {
+			if (this.waiters[i].isEmpty()) {
+				i++;
+				continue;
+			}
+
+			if (!canAdmit(i))
+				break;
+
+			var next = this.waiters[i].poll();
+			this.inFlight++;
+			if (granted == null)
+				granted = new ArrayList<>();
+			granted.add(next);
+			i = 0;
+		}
+		return granted;
+	}
+
+	private void abandon(int index, @Nonnull CompletableFuture<Void> slot) {
+		List<CompletableFuture<Void>> granted;
+		this.lock.lock();
+		try {
+			if (!this.waiters[index].remove(slot))
+				return;
+
+			granted = signalNext();
+
+		} finally {
+			this.lock.unlock();
+		}
+		grant(granted);
+	}
+
+	private void grant(@Nullable List<CompletableFuture<Void>> granted) {
+		// completed outside of the lock because this runs whatever was waiting on the slot
+		if (granted != null) {
+			for (var slot : granted) {
+				if (!slot.complete(null))
+					release(); // cancelled while waiting
+			}
+		}
+	}
+
+}
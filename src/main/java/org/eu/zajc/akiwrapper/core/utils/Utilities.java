@@ -18,6 +18,8 @@ package org.eu.zajc.akiwrapper.core.utils;
 
 import static java.lang.Thread.*;
 
+import java.util.concurrent.*;
+
 import javax.annotation.Nonnull;
 
 /**
@@ -66,6 +68,50 @@ public class Utilities {
 		}
 	}
 
+	/**
+	 * Unwraps the {@link CompletionException}s and {@link ExecutionException}s that
+	 * {@link CompletableFuture} wraps exceptions in.
+	 *
+	 * @param ex
+	 *            the exception to unwrap
+	 *
+	 * @return the original exception
+	 */
+	@Nonnull
+	public static Throwable unwrapCompletion(@Nonnull Throwable ex) {
+		var unwrapped = ex;
+		while ((unwrapped instanceof CompletionException || unwrapped instanceof ExecutionException) &&
+			unwrapped.getCause() != null)
+			unwrapped = unwrapped.getCause();
+		return unwrapped;
+	}
+
+	/**
+	 * Cancels {@code source} once {@code dependent} is cancelled. A
+	 * {@link CompletableFuture} doesn't pass cancellation on to the future it was
+	 * derived from, so cancelling the result of, say,
+	 * {@link CompletableFuture#thenApply(java.util.function.Function)} would otherwise
+	 * leave the original work running.
+	 *
+	 * @param <T>
+	 *            the result type
+	 * @param dependent
+	 *            the future derived from {@code source}
+	 * @param source
+	 *            the future to cancel along with {@code dependent}
+	 *
+	 * @return {@code dependent}, for chaining
+	 */
+	@Nonnull
+	public static <T> CompletableFuture<T> propagateCancellation(@Nonnull CompletableFuture<T> dependent,
+																 @Nonnull Future<?> source) {
+		dependent.whenComplete((r, e) -> {
+			if (dependent.isCancelled())
+				source.cancel(true);
+		});
+		return dependent;
+	}
+
 	private Utilities() {}
 
 }
@@ -38,6 +38,20 @@ import kong.unirest.Config;
  */
 public class WorkaroundUtils {
 
+	/**
+	 * The maximum number of TLS sessions the shared {@link SSLContext} keeps around for
+	 * resumption.
+	 */
+	public static final int SESSION_CACHE_SIZE = 256;
+
+	/**
+	 * How long, in seconds, the shared {@link SSLContext} keeps TLS sessions around for
+	 * resumption.
+	 */
+	public static final int SESSION_TIMEOUT = 60 * 60;
+
+	private static SSLContext incompleteChainWorkaroundSSLContext;
+
 	/**
 	 * <b>Note:</b> even though this method returns a {@link Config}, the instance you
 	 * pass to it is itself mutated and returned. The return value is only there for ease
@@ -70,13 +84,26 @@ public class WorkaroundUtils {
 	}
 
 	/**
+	 * Returns the {@link SSLContext} used to workaround the
+	 * {@code PKIX path building failed} exception. The context is created the first
+	 * time it's needed and shared by everything that uses it afterwards, so the
+	 * keystore is only loaded once and connections to a host that has been connected
+	 * to before can resume their TLS session instead of doing a full handshake.
+	 *
 	 * @return the {@link SSLContext} used to workaround the
 	 *         {@code PKIX path building failed} exception.
 	 *
 	 * @see #workaroundIncompleteChain(Config)
 	 */
 	@Nonnull
-	public static SSLContext getIncompleteChainWorkaroundSSLContext() {
+	public static synchronized SSLContext getIncompleteChainWorkaroundSSLContext() {
+		if (incompleteChainWorkaroundSSLContext == null)
+			incompleteChainWorkaroundSSLContext = createIncompleteChainWorkaroundSSLContext();
+		return incompleteChainWorkaroundSSLContext;
+	}
+
+	@Nonnull
+	private static SSLContext createIncompleteChainWorkaroundSSLContext() {
 		try {
 			var defaultTrust = getDefaultTrustManager();
 			var customTrust = getIncompleteChainWorkaroundCustomTrustManager();
@@ -84,6 +111,12 @@ public class WorkaroundUtils {
 
 			var sslContext = SSLContext.getInstance("TLS");
 			sslContext.init(null, new TrustManager[] { combinedTrust }, null);
+
+			// client sessions are cached per host and port and are what resumption is done
+			// from
+			var sessions = sslContext.getClientSessionContext();
+			sessions.setSessionCacheSize(SESSION_CACHE_SIZE);
+			sessions.setSessionTimeout(SESSION_TIMEOUT);
 			return sslContext;
 		} catch (GeneralSecurityException | IOException e) {
 			throw new RuntimeException("Could not create a workaround SSLContext", e);
@@ -0,0 +1,95 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.jfr;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.core.entities.Status;
+import org.eu.zajc.akiwrapper.core.transport.TransportResponse;
+
+import jdk.jfr.*;
+
+/**
+ * A JDK Flight Recorder event for a single exchange with an Akinator server, from the
+ * moment the request is sent until its response is received. The status returned by
+ * the server is filled in once the response has been parsed, and the time spent
+ * waiting for a connection, which the event's duration includes, once the response is
+ * received.
+ */
+@Name(ExchangeEvent.NAME)
+@Label("Akinator Exchange")
+@Category("Akiwrapper")
+@Description("An exchange with an Akinator server")
+@StackTrace(false)
+@SuppressWarnings("javadoc") // internal util
+public final class ExchangeEvent extends Event {
+
+	public static final String NAME = "org.eu.zajc.akiwrapper.Exchange";
+
+	@Label("Route") private String route;
+	@Label("Host") private String host;
+	@Label("Attempt") private int attempt;
+	@Label("Lease Wait") @Timespan private long leaseWait;
+	@Label("HTTP Status") private int httpStatus;
+	@Label("Status Level") private String level;
+	@Label("Status Reason") private String reason;
+	@Label("Response Size") @DataAmount private long responseSize;
+	@Label("Failure") private String failure;
+
+	public ExchangeEvent(@Nonnull String route, @Nonnull String host, int attempt) {
+		this.route = route;
+		this.host = host;
+		this.attempt = attempt;
+	}
+
+	public void responded(@Nonnull TransportResponse response) {
+		this.httpStatus = response.getStatus();
+		this.leaseWait = response.getLeaseWait();
+		if (isEnabled())
+			this.responseSize = utf8Length(response.getBody());
+	}
+
+	public void parsed(@Nonnull Status status) {
+		this.level = status.getLevel().name();
+		this.reason = status.getReason().name();
+	}
+
+	public void failed(@Nonnull Throwable failure) {
+		this.failure = failure.getClass().getName();
+	}
+
+	// the transports only hand out the decoded body, so this counts what it took on the
+	// wire without encoding it again
+	private static long utf8Length(@Nonnull String body) {
+		long length = 0;
+		for (int i = 0; i < body.length(); i++) {
+			char c = body.charAt(i);
+			if (c < 0x80) {
+				length += 1;
+			} else if (c < 0x800) {
+				length += 2;
+			} else if (Character.isHighSurrogate(c)) {
+				length += 4;
+				i++;
+			} else {
+				length += 3;
+			}
+		}
+		return length;
+	}
+
+}
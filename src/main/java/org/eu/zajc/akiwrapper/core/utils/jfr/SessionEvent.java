@@ -0,0 +1,57 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.jfr;
+
+import javax.annotation.*;
+
+import jdk.jfr.*;
+
+/**
+ * A JDK Flight Recorder event for an operation on an Akinator session, such as
+ * creating it, answering a question, or suggesting a guess. It spans all upstream
+ * exchanges the operation makes, which are recorded as separate {@link ExchangeEvent}s.
+ */
+@Name(SessionEvent.NAME)
+@Label("Akinator Session Operation")
+@Category("Akiwrapper")
+@Description("An operation on an Akinator session")
+@SuppressWarnings("javadoc") // internal util
+public final class SessionEvent extends Event {
+
+	public static final String NAME = "org.eu.zajc.akiwrapper.SessionOperation";
+
+	@Label("Operation") private String operation;
+	@Label("Server") private String server;
+	@Label("Session") private int session;
+	@Label("Step") private int step;
+	@Label("Failure") private String failure;
+
+	public SessionEvent(@Nonnull String operation) {
+		this.operation = operation;
+	}
+
+	public void completed(@Nullable String server, int session, int step) {
+		this.server = server;
+		this.session = session;
+		this.step = step;
+	}
+
+	public void failed(@Nonnull Throwable failure) {
+		this.failure = failure.getClass().getName();
+	}
+
+}
@@ -0,0 +1,318 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.*;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.*;
+
+import java.net.URI;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.core.exceptions.*;
+import org.eu.zajc.akiwrapper.core.transport.*;
+import org.eu.zajc.akiwrapper.core.utils.*;
+import org.eu.zajc.akiwrapper.core.utils.ConcurrencyLimiter.Permit;
+import org.eu.zajc.akiwrapper.core.utils.UpstreamDispatcher.Priority;
+import org.eu.zajc.akiwrapper.core.utils.jfr.ExchangeEvent;
+import org.eu.zajc.akiwrapper.core.utils.route.Route.Endpoint;
+
+/**
+ * <b>Note:</b> This is an internal class and its internals are subject to change
+ * without prior deprecation. Use with caution.<br>
+ * <br>
+ * Makes the requests that aren't made to a {@link Route}: fetching the server list
+ * and the API key, and warming connections. Like a {@link Request}, each of them waits
+ * for the host's {@link RateLimiter}, a {@link ConcurrencyLimiter} permit and an
+ * {@link UpstreamDispatcher} slot before it's sent, but it's never retried.<br>
+ * <br>
+ * Fetches are reported to the {@link RequestListener}, the {@link LatencyTracker} and
+ * JFR under the name they're made with, as a single attempt that's never parsed.
+ * Warming a connection isn't reported, as there's no response to time.
+ */
+@SuppressWarnings("javadoc") // internal util
+public class BootstrapClient {
+
+	@Nonnull private final Transport transport;
+	@Nonnull private final UpstreamDispatcher dispatcher;
+	@Nonnull private final RateLimiter limiter;
+	@Nonnull private final ConcurrencyLimiter concurrency;
+	@Nonnull private final RequestListener listener;
+	@Nonnull private final LatencyTracker latencies;
+
+	public BootstrapClient(@Nonnull Transport transport, @Nonnull UpstreamDispatcher dispatcher,
+						   @Nonnull RateLimiter limiter, @Nonnull ConcurrencyLimiter concurrency,
+						   @Nonnull RequestListener listener, @Nonnull LatencyTracker latencies) {
+		this.transport = transport;
+		this.dispatcher = dispatcher;
+		this.limiter = limiter;
+		this.concurrency = concurrency;
+		this.listener = GuardedListener.of(listener);
+		this.latencies = latencies;
+	}
+
+	// for the callers that predate the limiters, with their defaults
+	@Nonnull
+	@SuppressWarnings("null")
+	public static BootstrapClient of(@Nonnull Transport transport, @Nonnull UpstreamDispatcher dispatcher) {
+		return new BootstrapClient(transport, dispatcher, RateLimiter.getDefault(), ConcurrencyLimiter.getDefault(),
+								   RequestListener.NONE, LatencyTracker.getDefault());
+	}
+
+	@Nonnull
+	public Transport getTransport() {
+		return this.transport;
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	public TransportResponse get(@Nonnull String name, @Nonnull Endpoint endpoint, @Nonnull String url,
+								 @Nonnull Priority priority, @Nonnull Deadline deadline) {
+		var host = hostOf(url);
+		long start = nanoTime();
+		Throwable failure = null;
+		try {
+			deadline.check();
+			long waitStart = nanoTime();
+			long wait = reserveToken(endpoint, host, deadline.getRemainingNanos());
+			if (wait > 0)
+				sleepUnchecked(wait);
+			this.listener.onRateLimitWait(name, 0, nanoTime() - waitStart);
+
+			waitStart = nanoTime();
+			var permit = this.concurrency.acquire(host, deadline.getRemainingNanos());
+			if (permit == null)
+				throw waitedForPermit();
+			this.listener.onConcurrencyWait(name, 0, nanoTime() - waitStart);
+
+			try {
+				waitStart = nanoTime();
+				if (!this.dispatcher.acquire(priority, deadline.getRemainingNanos()))
+					throw waitedForSlot();
+				this.listener.onSlotWait(name, 0, nanoTime() - waitStart);
+
+				TransportResponse response;
+				try {
+					response = exchange(name, host, url, deadline, permit);
+				} finally {
+					this.dispatcher.release();
+				}
+				permit.complete(null);
+				return response;
+
+			} catch (RuntimeException e) {
+				if (!(e instanceof DeadlineExceededException))
+					permit.complete(e);
+				throw e;
+
+			} finally {
+				permit.release(); // unless the outcome was already recorded
+			}
+
+		} catch (RuntimeException e) {
+			failure = e;
+			throw e;
+
+		} finally {
+			finished(name, host, start, failure);
+		}
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	public CompletableFuture<TransportResponse> getAsync(@Nonnull String name, @Nonnull Endpoint endpoint,
+														 @Nonnull String url, @Nonnull Priority priority,
+														 @Nonnull Deadline deadline) {
+		var host = hostOf(url);
+		long start = nanoTime();
+		CompletableFuture<Void> throttled;
+		try {
+			deadline.check();
+			long wait = reserveToken(endpoint, host, deadline.getRemainingNanos());
+			throttled = wait > 0 ? RetryScheduler.schedule(wait) : CompletableFuture.completedFuture(null);
+
+		} catch (AkinatorException e) {
+			finished(name, host, start, e);
+			return CompletableFuture.failedFuture(e);
+		}
+
+		return throttled.thenCompose(v -> {
+			this.listener.onRateLimitWait(name, 0, nanoTime() - start);
+			return acquirePermitAsync(name, host, deadline);
+
+		}).thenCompose(permit -> {
+			long slotStart = nanoTime();
+			var sent = new AtomicBoolean();
+			return this.dispatcher.executeAsync(priority, deadline.getRemainingNanos(), () -> {
+				this.listener.onSlotWait(name, 0, nanoTime() - slotStart);
+				sent.set(true);
+				return exchangeAsync(name, host, url, deadline, permit);
+
+			}).handle((response, e) -> {
+				if (e == null) {
+					permit.complete(null);
+					return response;
+				}
+
+				var cause = unwrapCompletion(e);
+				if (!sent.get() || cause instanceof DeadlineExceededException) {
+					permit.release(); // nothing reached the host
+					throw asUnchecked(!sent.get() && cause instanceof TimeoutException ? waitedForSlot() : cause);
+				}
+				permit.complete(cause);
+				throw asUnchecked(cause);
+			});
+
+		}).whenComplete((response, e) -> finished(name, host, start, e == null ? null : unwrapCompletion(e)));
+	}
+
+	/**
+	 * Warms the connection to the host of a URL once it gets past the host's limits,
+	 * see {@link Transport#warm(String)}. Warming is done with
+	 * {@link Priority#SPECULATIVE} and gives up right away if it would have to wait
+	 * longer than allowed for the rate limit.
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public CompletableFuture<Void> warm(@Nonnull Endpoint endpoint, @Nonnull String url) {
+		var host = hostOf(url);
+		long wait;
+		try {
+			wait = reserveToken(endpoint, host, Long.MAX_VALUE);
+
+		} catch (AkinatorException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+
+		var throttled = wait > 0 ? RetryScheduler.schedule(wait) : CompletableFuture.<Void>completedFuture(null);
+		return throttled.thenCompose(v -> this.concurrency.acquireAsync(host))
+			.thenCompose(permit -> this.dispatcher.executeAsync(Priority.SPECULATIVE, () -> {
+				permit.begin();
+				return this.transport.warm(url);
+
+			}).whenComplete((r, e) -> permit.release())); // the handshakes would skew the round trip
+	}
+
+	@Nonnull
+	private TransportResponse exchange(@Nonnull String name, @Nonnull String host, @Nonnull String url,
+									   @Nonnull Deadline deadline, @Nonnull Permit permit) {
+		var exchange = new ExchangeEvent(name, host, 0);
+		long exchangeStart = nanoTime();
+		exchange.begin();
+		permit.begin();
+		TransportResponse response;
+		try {
+			response = this.transport.get(url, deadline.getRemaining());
+
+		} catch (RuntimeException e) {
+			exchanged(name, exchange, exchangeStart, null, e);
+			throw e;
+		}
+		exchanged(name, exchange, exchangeStart, response, null);
+		return response;
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private CompletableFuture<TransportResponse> exchangeAsync(@Nonnull String name, @Nonnull String host,
+															   @Nonnull String url, @Nonnull Deadline deadline,
+															   @Nonnull Permit permit) {
+		var exchange = new ExchangeEvent(name, host, 0);
+		long exchangeStart = nanoTime();
+		exchange.begin();
+		permit.begin();
+		CompletableFuture<TransportResponse> pending;
+		try {
+			pending = this.transport.getAsync(url, deadline.getRemaining());
+
+		} catch (Throwable e) { // NOSONAR including checked exceptions thrown with asUnchecked
+			pending = CompletableFuture.failedFuture(e);
+		}
+
+		return pending.whenComplete((response, e) -> exchanged(name, exchange, exchangeStart, response,
+															   e == null ? null : unwrapCompletion(e)));
+	}
+
+	private void exchanged(@Nonnull String name, @Nonnull ExchangeEvent exchange, long exchangeStart,
+						   @Nullable TransportResponse response, @Nullable Throwable failure) {
+		exchange.end();
+		long leaseWait = 0;
+		if (response != null) {
+			exchange.responded(response);
+			leaseWait = response.getLeaseWait();
+			this.listener.onLeaseWait(name, 0, leaseWait);
+		} else {
+			exchange.failed(failure);
+		}
+		exchange.commit();
+		this.listener.onExchange(name, 0, nanoTime() - exchangeStart - leaseWait, failure);
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private CompletableFuture<Permit> acquirePermitAsync(@Nonnull String name, @Nonnull String host,
+														 @Nonnull Deadline deadline) {
+		long permitStart = nanoTime();
+		var permit = this.concurrency.acquireAsync(host);
+		if (!permit.isDone())
+			permit.orTimeout(deadline.getRemainingNanos(), NANOSECONDS);
+
+		return permit.handle((p, e) -> {
+			if (e != null) {
+				var cause = unwrapCompletion(e);
+				throw asUnchecked(cause instanceof TimeoutException ? waitedForPermit() : cause);
+			}
+			this.listener.onConcurrencyWait(name, 0, nanoTime() - permitStart);
+			return p;
+		});
+	}
+
+	// in milliseconds, rounded up
+	private long reserveToken(@Nonnull Endpoint endpoint, @Nonnull String host, long timeoutNanos) {
+		long wait = this.limiter.reserve(endpoint, host, timeoutNanos);
+		if (wait < 0)
+			throw new RateLimitedException(host);
+		return NANOSECONDS.toMillis(wait + MILLISECONDS.toNanos(1) - 1);
+	}
+
+	private void finished(@Nonnull String name, @Nonnull String host, long start, @Nullable Throwable failure) {
+		long elapsed = nanoTime() - start;
+		if (!(failure instanceof CancellationException))
+			this.latencies.record(name, host, elapsed);
+		this.listener.onComplete(name, elapsed, failure);
+	}
+
+	@Nonnull
+	private static DeadlineExceededException waitedForSlot() {
+		return new DeadlineExceededException("The deadline passed while waiting for a free upstream slot");
+	}
+
+	@Nonnull
+	private static DeadlineExceededException waitedForPermit() {
+		return new DeadlineExceededException("The deadline passed while waiting for the upstream host to take more "
+			+ "requests");
+	}
+
+	@Nonnull
+	private static String hostOf(@Nonnull String url) {
+		return String.valueOf(URI.create(url).getHost());
+	}
+
+}
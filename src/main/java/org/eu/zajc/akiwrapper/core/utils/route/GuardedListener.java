@@ -0,0 +1,138 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+import javax.annotation.*;
+
+import org.eu.zajc.akiwrapper.core.entities.Status;
+import org.eu.zajc.akiwrapper.core.utils.RequestListener;
+import org.slf4j.Logger;
+
+// keeps a failing listener from failing the request it listens to
+@SuppressWarnings("javadoc") // internal util
+final class GuardedListener implements RequestListener {
+
+	private static final Logger LOG = getLogger(GuardedListener.class);
+
+	@Nonnull private final RequestListener listener;
+
+	private GuardedListener(@Nonnull RequestListener listener) {
+		this.listener = listener;
+	}
+
+	@Nonnull
+	static RequestListener of(@Nonnull RequestListener listener) {
+		return listener == NONE ? NONE : new GuardedListener(listener);
+	}
+
+	@Override
+	public void onUrlBuilt(String route, long nanos) {
+		try {
+			this.listener.onUrlBuilt(route, nanos);
+		} catch (RuntimeException e) {
+			failed(e);
+		}
+	}
+
+	@Override
+	public void onRateLimitWait(String route, int attempt, long nanos) {
+		try {
+			this.listener.onRateLimitWait(route, attempt, nanos);
+		} catch (RuntimeException e) {
+			failed(e);
+		}
+	}
+
+	@Override
+	public void onConcurrencyWait(String route, int attempt, long nanos) {
+		try {
+			this.listener.onConcurrencyWait(route, attempt, nanos);
+		} catch (RuntimeException e) {
+			failed(e);
+		}
+	}
+
+	@Override
+	public void onSlotWait(String route, int attempt, long nanos) {
+		try {
+			this.listener.onSlotWait(route, attempt, nanos);
+		} catch (RuntimeException e) {
+			failed(e);
+		}
+	}
+
+	@Override
+	public void onLeaseWait(String route, int attempt, long nanos) {
+		try {
+			this.listener.onLeaseWait(route, attempt, nanos);
+		} catch (RuntimeException e) {
+			failed(e);
+		}
+	}
+
+	@Override
+	public void onExchange(String route, int attempt, long nanos, @Nullable Throwable failure) {
+		try {
+			this.listener.onExchange(route, attempt, nanos, failure);
+		} catch (RuntimeException e) {
+			failed(e);
+		}
+	}
+
+	@Override
+	public void onParse(String route, int attempt, long nanos) {
+		try {
+			this.listener.onParse(route, attempt, nanos);
+		} catch (RuntimeException e) {
+			failed(e);
+		}
+	}
+
+	@Override
+	public void onStatus(String route, int attempt, Status status) {
+		try {
+			this.listener.onStatus(route, attempt, status);
+		} catch (RuntimeException e) {
+			failed(e);
+		}
+	}
+
+	@Override
+	public void onRetry(String route, int attempt, Throwable failure, long delayNanos) {
+		try {
+			this.listener.onRetry(route, attempt, failure, delayNanos);
+		} catch (RuntimeException e) {
+			failed(e);
+		}
+	}
+
+	@Override
+	public void onComplete(String route, long nanos, @Nullable Throwable failure) {
+		try {
+			this.listener.onComplete(route, nanos, failure);
+		} catch (RuntimeException e) {
+			failed(e);
+		}
+	}
+
+	private static void failed(@Nonnull RuntimeException e) {
+		LOG.warn("A request listener failed", e);
+	}
+
+}
@@ -16,44 +16,93 @@
  */
 package org.eu.zajc.akiwrapper.core.utils.route;
 
+import static io.opentelemetry.api.common.AttributeKey.longKey;
+import static io.opentelemetry.api.trace.SpanKind.CLIENT;
 import static java.lang.String.format;
-import static java.time.Duration.ofSeconds;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.*;
+import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.joining;
 import static org.eu.zajc.akiwrapper.core.entities.Status.Level.ERROR;
-import static org.eu.zajc.akiwrapper.core.utils.Utilities.sleepUnchecked;
+import static org.eu.zajc.akiwrapper.core.utils.Tracing.*;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.*;
 import static org.eu.zajc.akiwrapper.core.utils.route.Route.*;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.net.URI;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 import javax.annotation.*;
 
-import org.eu.zajc.akiwrapper.core.entities.impl.StatusImpl;
 import org.eu.zajc.akiwrapper.core.exceptions.*;
-import org.json.*;
+import org.eu.zajc.akiwrapper.core.impl.AkiwrapperImpl;
+import org.eu.zajc.akiwrapper.core.transport.*;
+import org.eu.zajc.akiwrapper.core.utils.*;
+import org.eu.zajc.akiwrapper.core.utils.ConcurrencyLimiter.Permit;
+import org.eu.zajc.akiwrapper.core.utils.UpstreamDispatcher.Priority;
+import org.eu.zajc.akiwrapper.core.utils.jfr.ExchangeEvent;
+import org.json.JSONException;
 import org.slf4j.Logger;
 
-import kong.unirest.*;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.context.Context;
 
 @SuppressWarnings("javadoc") // internal util
 public class Request {
 
 	private static final Logger LOG = getLogger(Request.class);
 
-	private static final int MAX_RETRIES = 5;
-	private static final long RETRY_SLEEP = ofSeconds(2).toMillis();
+	// keyed by the request's URL, which identifies the route, the session and the
+	// parameters
+	private static final SingleFlight<String, Response> COALESCED = new SingleFlight<>();
 
 	@Nonnull private final String url;
-	@Nonnull private final UnirestInstance unirest;
+	@Nonnull private final Route route;
+	@Nonnull private final Transport transport;
+	@Nonnull private final UpstreamDispatcher dispatcher;
+	@Nonnull private final RetryScheduler retries;
+	@Nonnull private final CircuitBreakers breakers;
+	@Nonnull private final RateLimiter limiter;
+	@Nonnull private final ConcurrencyLimiter concurrency;
+	@Nonnull private final RequestListener listener;
+	@Nonnull private final LatencyTracker latencies;
+	@Nonnull private final String serverUrl;
+	@Nonnull private final String host;
+	@Nonnull private Priority priority;
+	@Nonnull private final Deadline deadline;
 	private Set<String> mandatoryParameters;
 	private Map<String, String> parameters;
 	private final boolean urlHasQuerystring;
+	@Nonnull private final AkiwrapperImpl api;
+	@Nonnull private final Set<Request> inFlight;
+	private volatile boolean cancelled;
+	@Nullable private Thread executingThread;
+	@Nullable private volatile Future<?> pending;
 
-	Request(@Nonnull String url, @Nonnull UnirestInstance unirest, @Nullable Set<String> mandatoryParameters,
-			@Nullable Map<String, String> parameters, boolean pathHasQuerystring) {
+	@SuppressWarnings("null")
+	Request(@Nonnull String url, @Nonnull Route route, @Nonnull AkiwrapperImpl api, @Nonnull Deadline deadline,
+			@Nullable Set<String> mandatoryParameters, @Nullable Map<String, String> parameters,
+			boolean pathHasQuerystring) {
 		this.url = url;
-		this.unirest = unirest;
+		this.route = route;
+		this.transport = api.getTransport();
+		this.dispatcher = api.getDispatcher();
+		this.retries = api.getRetryScheduler();
+		this.breakers = api.getCircuitBreakers();
+		this.limiter = api.getRateLimiter();
+		this.concurrency = api.getConcurrencyLimiter();
+		this.listener = GuardedListener.of(api.getRequestListener());
+		this.latencies = api.getLatencyTracker();
+		this.serverUrl = api.getServer().getUrl();
+		this.host = String.valueOf(URI.create(url).getHost());
+		this.priority = route.getPriority();
+		this.deadline = deadline;
 		this.urlHasQuerystring = pathHasQuerystring;
+		this.api = api;
+		this.inFlight = api.getInFlightRequests();
 
 		if (mandatoryParameters != null)
 			this.mandatoryParameters = new HashSet<>(mandatoryParameters);
@@ -87,57 +136,639 @@ public class Request {
 		return this;
 	}
 
+	@Nonnull
+	public Request priority(@Nonnull Priority priority) {
+		this.priority = priority;
+		return this;
+	}
+
 	@Nonnull
 	@SuppressWarnings("null")
 	public Response execute() {
 		checkState();
 
+		long start = nanoTime();
+		var processedUrl = processUrl();
+		var span = startSpan(processedUrl);
+		enterFlight();
+		Throwable failure = null;
+		try (var scope = span.makeCurrent()) {
+			setExecutingThread(Thread.currentThread());
+			checkCancelled();
+			return executeCoalesced(span, processedUrl);
+
+		} catch (Exception e) {
+			failure = this.cancelled ? cancelled(e) : e;
+			fail(span, failure);
+			throw asUnchecked(failure);
+
+		} finally {
+			setExecutingThread(null);
+			this.inFlight.remove(this);
+			span.end();
+			finished(start, failure);
+		}
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private Response executeCoalesced(@Nonnull Span span, @Nonnull String processedUrl) {
+		if (!this.route.isCoalesced())
+			return executeAttempts(span, processedUrl);
+
+		try {
+			return COALESCED.execute(withoutCacheBuster(processedUrl), () -> executeAttempts(span, processedUrl),
+									 this.deadline.getRemainingNanos());
+
+		} catch (TimeoutException e) {
+			throw deadlineExceeded(e);
+
+		} catch (CancelledException e) {
+			if (this.cancelled)
+				throw e;
+			// the request this one joined was cancelled, not this one
+			return executeAttempts(span, processedUrl);
+		}
+	}
+
+	@Nonnull
+	private Response executeAttempts(@Nonnull Span span, @Nonnull String processedUrl) {
+		this.retries.onRequest();
+		for (int attempt = 0;; attempt++) {
+			checkCancelled();
+			this.deadline.check();
+			long waitStart = nanoTime();
+			throttle(span);
+			this.listener.onRateLimitWait(this.route.getName(), attempt, nanoTime() - waitStart);
+
+			waitStart = nanoTime();
+			var permit = acquirePermit();
+			this.listener.onConcurrencyWait(this.route.getName(), attempt, nanoTime() - waitStart);
+			boolean admitted = false;
+			boolean recorded = false;
+			try {
+				awaitSlot(attempt);
+				try {
+					checkCircuit();
+
+				} catch (CircuitOpenException e) {
+					this.dispatcher.release();
+					throw e;
+				}
+				admitted = true;
+				var exchange = new ExchangeEvent(this.route.getName(), this.host, attempt);
+				var response = handleResponse(span, processedUrl, attempt, exchange,
+											  executeRequest(processedUrl, attempt, permit, exchange));
+				recorded = true;
+				this.breakers.record(this.serverUrl, null);
+				permit.complete(null);
+				return response;
+
+			} catch (RuntimeException e) {
+				// either nothing was sent and there's nothing to record, or it's not the
+				// server's fault
+				if (!admitted || this.cancelled || e instanceof DeadlineExceededException)
+					throw e;
+
+				recorded = true;
+				this.breakers.record(this.serverUrl, e);
+				permit.complete(e);
+				long delay = this.retries.getRetryDelay(e, attempt);
+				if (delay < 0)
+					throw e;
+
+				if (!hasTimeFor(delay))
+					throw deadlineExceeded(e);
+
+				span.addEvent("retry", Attributes.of(longKey("akinator.retry.delay_ms"), delay));
+				this.listener.onRetry(this.route.getName(), attempt, e, MILLISECONDS.toNanos(delay));
+				sleepUnchecked(delay);
+
+			} finally {
+				// cancelled, or interrupted with a checked exception that skipped the catch
+				if (admitted && !recorded)
+					this.breakers.abandon(this.serverUrl);
+				permit.release(); // unless the outcome was already recorded
+			}
+		}
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	public CompletableFuture<Response> executeAsync() {
+		checkState();
+
+		long start = nanoTime();
+		var processedUrl = processUrl();
+		var span = startSpan(processedUrl);
+		var context = Context.current().with(span);
+		var result = new CompletableFuture<Response>();
+		enterFlight();
+		CompletableFuture<Response> attempts;
+		try {
+			checkCancelled();
+			attempts = executeCoalescedAsync(processedUrl, span, context);
+
+		} catch (CancelledException e) {
+			attempts = CompletableFuture.failedFuture(e);
+		}
+		attempts.whenComplete((response, e) -> {
+			this.inFlight.remove(this);
+			if (e == null) {
+				span.end();
+				finished(start, null);
+				result.complete(response);
+				return;
+			}
+
+			var failure = this.cancelled ? cancelled(unwrapCompletion(e)) : unwrapCompletion(e);
+			fail(span, failure);
+			span.end();
+			finished(start, failure);
+			result.completeExceptionally(failure);
+		});
+
+		result.whenComplete((r, e) -> {
+			if (result.isCancelled())
+				cancel();
+		});
+		return result;
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private CompletableFuture<Response> executeCoalescedAsync(@Nonnull String processedUrl, @Nonnull Span span,
+															  @Nonnull Context context) {
+		if (!this.route.isCoalesced())
+			return executeAttemptsAsync(processedUrl, span, context);
+
+		var leading = new AtomicBoolean();
+		var shared = COALESCED.executeAsync(withoutCacheBuster(processedUrl), () -> {
+			leading.set(true);
+			return executeAttemptsAsync(processedUrl, span, context);
+		});
+		if (leading.get())
+			return shared;
+
+		// this request only waits for the one it joined, so that's what cancelling it
+		// and the deadline apply to
+		return track(shared).orTimeout(this.deadline.getRemainingNanos(), NANOSECONDS).handle((response, e) -> {
+			if (e == null)
+				return CompletableFuture.completedFuture(response);
+
+			var cause = unwrapCompletion(e);
+			if (cause instanceof CancelledException && !this.cancelled)
+				return executeAttemptsAsync(processedUrl, span, context); // the one this joined was cancelled
+
+			return CompletableFuture.<Response>failedFuture(cause instanceof TimeoutException ? deadlineExceeded(cause)
+				: cause);
+		}).thenCompose(identity());
+	}
+
+	// like executeAttempts(), only requests that are actually sent add to the retry budget
+	@Nonnull
+	private CompletableFuture<Response> executeAttemptsAsync(@Nonnull String processedUrl, @Nonnull Span span,
+															 @Nonnull Context context) {
+		this.retries.onRequest();
+		return executeAsync(processedUrl, span, context, 0);
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private CompletableFuture<Response> executeAsync(@Nonnull String processedUrl, @Nonnull Span span,
+													 @Nonnull Context context, int attempt) {
+		long throttleStart = nanoTime();
+		CompletableFuture<Void> throttled;
+		try {
+			checkCancelled();
+			this.deadline.check();
+			throttled = throttleAsync(span);
+
+		} catch (AkinatorException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+
+		return throttled.thenCompose(v -> {
+			this.listener.onRateLimitWait(this.route.getName(), attempt, nanoTime() - throttleStart);
+			long permitStart = nanoTime();
+			return acquirePermitAsync().thenApply(permit -> {
+				this.listener.onConcurrencyWait(this.route.getName(), attempt, nanoTime() - permitStart);
+				return permit;
+			});
+		}).thenCompose(permit -> executeAttemptAsync(processedUrl, span, context, attempt, permit));
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private CompletableFuture<Response> executeAttemptAsync(@Nonnull String processedUrl, @Nonnull Span span,
+															@Nonnull Context context, int attempt,
+															@Nonnull Permit permit) {
+		try {
+			checkCancelled();
+
+		} catch (AkinatorException e) {
+			permit.release();
+			return CompletableFuture.failedFuture(e);
+		}
+
+		return awaitSlotAsync(attempt).handle((v, e) -> {
+			if (e != null) {
+				permit.release(); // nothing was sent, so there's nothing to record
+				return CompletableFuture.<Response>failedFuture(unwrapCompletion(e));
+			}
+
+			try {
+				checkCancelled();
+				checkCircuit();
+
+			} catch (AkinatorException ex) {
+				this.dispatcher.release();
+				permit.release();
+				return CompletableFuture.<Response>failedFuture(ex);
+			}
+
+			return executeAdmittedAsync(processedUrl, span, context, attempt, permit);
+		}).thenCompose(identity());
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private CompletableFuture<Response> executeAdmittedAsync(@Nonnull String processedUrl, @Nonnull Span span,
+															 @Nonnull Context context, int attempt,
+															 @Nonnull Permit permit) {
+		var exchange = new ExchangeEvent(this.route.getName(), this.host, attempt);
+		return executeRequestAsync(processedUrl, context, attempt, permit, exchange).thenApply(response -> {
+			try (var scope = context.makeCurrent()) {
+				return handleResponse(span, processedUrl, attempt, exchange, response);
+			}
+		}).handle((response, e) -> {
+			if (e == null) {
+				this.breakers.record(this.serverUrl, null);
+				permit.complete(null);
+				return CompletableFuture.completedFuture(response);
+			}
+
+			var cause = unwrapCompletion(e);
+			if (this.cancelled || cause instanceof DeadlineExceededException) {
+				this.breakers.abandon(this.serverUrl);
+				permit.release();
+				return CompletableFuture.<Response>failedFuture(cause); // not the server's fault
+			}
+
+			this.breakers.record(this.serverUrl, cause);
+			permit.complete(cause);
+			long delay = this.retries.getRetryDelay(cause, attempt);
+			if (delay < 0) {
+				var failure = cause instanceof TimeoutException ? deadlineExceeded(cause) : cause;
+				return CompletableFuture.<Response>failedFuture(failure);
+			}
+
+			if (!hasTimeFor(delay))
+				return CompletableFuture.<Response>failedFuture(deadlineExceeded(cause));
+
+			span.addEvent("retry", Attributes.of(longKey("akinator.retry.delay_ms"), delay));
+			this.listener.onRetry(this.route.getName(), attempt, cause, MILLISECONDS.toNanos(delay));
+			// nothing is blocked while waiting, the next attempt is simply scheduled later
+			return track(RetryScheduler.schedule(delay))
+				.thenCompose(v -> executeAsync(processedUrl, span, context, attempt + 1));
+		}).thenCompose(identity());
+	}
+
+	/**
+	 * Cancels this request if it's in flight. Its exchange is aborted if the transport
+	 * allows it and no further attempts are made, and the request fails with a
+	 * {@link CancelledException}.
+	 */
+	public void cancel() {
+		this.cancelled = true;
+
+		var current = this.pending;
+		if (current != null)
+			current.cancel(true);
+
+		synchronized (this) {
+			// only interrupted while executing, so the interrupt can't leak into
+			// whatever the thread does next
+			if (this.executingThread != null)
+				this.executingThread.interrupt();
+		}
+	}
+
+	private synchronized void setExecutingThread(@Nullable Thread thread) {
+		this.executingThread = thread;
+		if (thread == null && this.cancelled)
+			Thread.interrupted(); // clears the interrupt cancel() may have left behind
+	}
+
+	@Nonnull
+	private <T> CompletableFuture<T> track(@Nonnull CompletableFuture<T> future) {
+		this.pending = future;
+		if (this.cancelled)
+			future.cancel(true);
+		return future;
+	}
+
+	@Nonnull
+	private static CancelledException cancelled(@Nonnull Throwable cause) {
+		if (cause instanceof CancelledException)
+			return (CancelledException) cause;
+		return new CancelledException("The request was cancelled", cause);
+	}
+
+	private boolean hasTimeFor(long delay) {
+		return MILLISECONDS.toNanos(delay) < this.deadline.getRemainingNanos();
+	}
+
+	@Nonnull
+	private static DeadlineExceededException deadlineExceeded(@Nonnull Throwable lastFailure) {
+		return new DeadlineExceededException("The deadline passed before the request could succeed", lastFailure);
+	}
+
+	// the session may have been cancelled between its calls, before this was in flight
+	private void enterFlight() {
+		this.inFlight.add(this);
+		if (this.api.isCancelled())
+			cancel();
+	}
+
+	private void checkCancelled() {
+		if (this.cancelled)
+			throw new CancelledException("The request was cancelled");
+	}
+
+	// done before the circuit is checked so that a rejected request can't take up the
+	// probe of a half-open circuit
+	private void throttle(@Nonnull Span span) {
+		long wait = reserveToken(span);
+		if (wait > 0)
+			sleepUnchecked(wait);
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private CompletableFuture<Void> throttleAsync(@Nonnull Span span) {
+		long wait = reserveToken(span);
+		if (wait > 0)
+			return track(RetryScheduler.schedule(wait));
+		else
+			return CompletableFuture.completedFuture(null);
+	}
+
+	private long reserveToken(@Nonnull Span span) {
+		long wait = this.limiter.reserve(this.route.getEndpoint(), this.host, this.deadline.getRemainingNanos());
+		if (wait < 0)
+			throw new RateLimitedException(this.host);
+
+		long waitMillis = NANOSECONDS.toMillis(wait + MILLISECONDS.toNanos(1) - 1); // rounded up
+		if (waitMillis > 0)
+			span.addEvent("throttled", Attributes.of(longKey("akinator.throttle.delay_ms"), waitMillis));
+		return waitMillis;
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private Permit acquirePermit() {
+		var permit = this.concurrency.acquire(this.host, this.deadline.getRemainingNanos());
+		if (permit == null)
+			throw waitedForPermit();
+		return permit;
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private CompletableFuture<Permit> acquirePermitAsync() {
+		var permit = this.concurrency.acquireAsync(this.host);
+		if (permit.isDone())
+			return permit;
+
+		var result = new CompletableFuture<Permit>();
+		track(permit).orTimeout(this.deadline.getRemainingNanos(), NANOSECONDS).whenComplete((p, e) -> {
+			if (e == null)
+				result.complete(p);
+			else
+				result.completeExceptionally(unwrapCompletion(e) instanceof TimeoutException ? waitedForPermit()
+					: unwrapCompletion(e));
+		});
+		return result;
+	}
+
+	// like throttling and permits, the slot is waited for before the circuit is checked,
+	// so that waiting on our side never counts against the server or the retry budget
+	private void awaitSlot(int attempt) {
+		long slotStart = nanoTime();
+		if (!this.dispatcher.acquire(this.priority, this.deadline.getRemainingNanos()))
+			throw waitedForSlot();
+		this.listener.onSlotWait(this.route.getName(), attempt, nanoTime() - slotStart);
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private CompletableFuture<Void> awaitSlotAsync(int attempt) {
+		long slotStart = nanoTime();
+		var slot = this.dispatcher.acquireAsync(this.priority, this.deadline.getRemainingNanos());
+		var result = new CompletableFuture<Void>();
+		track(slot).whenComplete((v, e) -> {
+			if (e == null) {
+				this.listener.onSlotWait(this.route.getName(), attempt, nanoTime() - slotStart);
+				result.complete(null);
+			} else {
+				result.completeExceptionally(unwrapCompletion(e) instanceof TimeoutException ? waitedForSlot()
+					: unwrapCompletion(e));
+			}
+		});
+		return result;
+	}
+
+	@Nonnull
+	private static DeadlineExceededException waitedForSlot() {
+		return new DeadlineExceededException("The deadline passed while waiting for a free upstream slot");
+	}
+
+	@Nonnull
+	private static DeadlineExceededException waitedForPermit() {
+		return new DeadlineExceededException("The deadline passed while waiting for the upstream host to take more "
+			+ "requests");
+	}
+
+	private void finished(long start, @Nullable Throwable failure) {
+		long elapsed = nanoTime() - start;
+		if (!this.cancelled)
+			this.latencies.record(this.route.getName(), this.host, elapsed);
+		this.listener.onComplete(this.route.getName(), elapsed, failure);
+	}
+
+	private void leased(int attempt, @Nonnull TransportResponse response) {
+		this.listener.onLeaseWait(this.route.getName(), attempt, response.getLeaseWait());
+	}
+
+	void urlBuilt(long nanos) {
+		this.listener.onUrlBuilt(this.route.getName(), nanos);
+	}
+
+	private void checkCircuit() {
+		if (!this.breakers.allowRequest(this.serverUrl))
+			throw new CircuitOpenException(this.serverUrl);
+	}
+
+	@Nonnull
+	private String processUrl() {
 		String processedUrl = this.url;
 		boolean hasQuerystring = this.urlHasQuerystring;
 
 		if (this.parameters != null && !this.parameters.isEmpty())
 			processedUrl += formatQuerystring(formatParameters(this.parameters), hasQuerystring);
 
-		var response = executeRequest(processedUrl, this.unirest, 0);
+		return processedUrl;
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private Span startSpan(@Nonnull String processedUrl) {
+		return getTracer().spanBuilder("akinator " + this.route.getName())
+			.setSpanKind(CLIENT)
+			.setAttribute("akinator.route", this.route.getName())
+			.setAttribute("server.address", this.host)
+			.startSpan();
+	}
+
+	@Nonnull
+	private Response handleResponse(@Nonnull Span span, @Nonnull String processedUrl, int attempt,
+									@Nonnull ExchangeEvent exchange, @Nonnull TransportResponse response) {
+		try {
+			if (response.getStatus() >= 500) {
+				var message = format("Got HTTP %d %s", response.getStatus(), response.getStatusText());
+				throw new AkinatorException(message, processedUrl, response);
+			}
+
+			long parseStart = nanoTime();
+			var parsed = traced("akinator parse", () -> parse(processedUrl, response));
+			this.listener.onParse(this.route.getName(), attempt, nanoTime() - parseStart);
+			this.listener.onStatus(this.route.getName(), attempt, parsed.getStatus());
+			exchange.parsed(parsed.getStatus());
+			span.setAttribute("akinator.status", parsed.getStatus().toString());
+
+			if (parsed.getStatus().getLevel() == ERROR)
+				throw new ServerStatusException(parsed.getStatus(), processedUrl, response);
+
+			return parsed;
+
+		} catch (RuntimeException e) {
+			exchange.failed(e);
+			throw e;
+
+		} finally {
+			exchange.commit();
+		}
+	}
+
+	@Nonnull
+	private static Response parse(@Nonnull String processedUrl, @Nonnull TransportResponse response) {
 		var json = response.getBody();
 
 		LOG.trace("<-- {}", json);
-		json = json.substring(7 /* "jQuery(" */, json.length() - 1 /* ")" */); // cut the callback
 
 		try {
-			var body = new JSONObject(json);
-			var status = StatusImpl.fromJson(body);
-			if (status.getLevel() == ERROR)
-				throw new ServerStatusException(status, processedUrl, response);
-
-			return new Response(status, body);
+			return Response.fromJsonp(json);
 
 		} catch (JSONException e) {
 			throw new AkinatorException("Couldn't parse a server response", e, processedUrl, response);
 		}
 	}
 
+	// releases the slot taken by awaitSlot(), which is only held for the exchange itself
+	// so that retry delays don't block other requests
 	@Nonnull
-	private static HttpResponse<String> executeRequest(@Nonnull String processedUrl, @Nonnull UnirestInstance unirest,
-													   int attempt) {
-		LOG.trace("--> {}", processedUrl);
-		var response = unirest.get(processedUrl).asString();
+	private TransportResponse executeRequest(@Nonnull String processedUrl, int attempt, @Nonnull Permit permit,
+											 @Nonnull ExchangeEvent exchange) {
+		try {
+			LOG.trace("--> {}", processedUrl);
+			var attemptSpan = startAttemptSpan(Context.current(), attempt);
+			try (var scope = attemptSpan.makeCurrent()) {
+				TransportResponse response;
+				long exchangeStart = nanoTime();
+				exchange.begin();
+				try {
+					permit.begin();
+					response = this.transport.get(processedUrl, this.deadline.getRemaining());
 
-		if (response.getStatus() >= 500) {
-			if (attempt < MAX_RETRIES) {
-				LOG.trace("Got HTTP {} {}, retrying after {} ms", response.getStatus(), response.getStatusText(),
-						  RETRY_SLEEP);
-				sleepUnchecked(RETRY_SLEEP);
-				return executeRequest(processedUrl, unirest, attempt + 1);
+				} catch (RuntimeException e) {
+					exchange.end();
+					exchange.failed(e);
+					exchange.commit();
+					this.listener.onExchange(this.route.getName(), attempt, nanoTime() - exchangeStart, e);
+					throw e;
+				}
+				exchange.end();
+				exchange.responded(response);
+				leased(attempt, response);
+				this.listener.onExchange(this.route.getName(), attempt,
+										 nanoTime() - exchangeStart - response.getLeaseWait(), null);
+				attemptSpan.setAttribute("http.response.status_code", response.getStatus());
+				return response;
 
-			} else {
-				var message = format("Got HTTP %d %s and exceeded re-attempts (%d)", response.getStatus(),
-									 response.getStatusText(), MAX_RETRIES);
-				throw new AkinatorException(message);
+			} catch (RuntimeException e) {
+				fail(attemptSpan, e);
+				throw e;
+
+			} finally {
+				attemptSpan.end();
 			}
+
+		} finally {
+			this.dispatcher.release();
 		}
+	}
 
-		return response;
+	@Nonnull
+	@SuppressWarnings("null")
+	private CompletableFuture<TransportResponse> executeRequestAsync(@Nonnull String processedUrl,
+																	 @Nonnull Context context, int attempt,
+																	 @Nonnull Permit permit,
+																	 @Nonnull ExchangeEvent exchange) {
+		LOG.trace("--> {}", processedUrl);
+		var attemptSpan = startAttemptSpan(context, attempt);
+		long exchangeStart = nanoTime();
+		exchange.begin();
+		permit.begin();
+		CompletableFuture<TransportResponse> pending;
+		try {
+			pending = this.transport.getAsync(processedUrl, this.deadline.getRemaining());
+
+		} catch (Throwable e) { // NOSONAR including checked exceptions thrown with asUnchecked
+			pending = CompletableFuture.failedFuture(e);
+		}
+
+		// the slot taken by awaitSlotAsync() is held until the exchange completes
+		return track(pending)
+			.whenComplete((response, e) -> {
+				this.dispatcher.release();
+				exchange.end();
+				if (e == null) {
+					exchange.responded(response);
+					leased(attempt, response);
+				} else {
+					exchange.failed(unwrapCompletion(e));
+					exchange.commit();
+				}
+				this.listener.onExchange(this.route.getName(), attempt,
+										 nanoTime() - exchangeStart - (e == null ? response.getLeaseWait() : 0),
+										 e == null ? null : unwrapCompletion(e));
+
+				if (e != null)
+					fail(attemptSpan, unwrapCompletion(e));
+				else
+					attemptSpan.setAttribute("http.response.status_code", response.getStatus());
+				attemptSpan.end();
+			});
+	}
+
+	@Nonnull
+	@SuppressWarnings("null")
+	private static Span startAttemptSpan(@Nonnull Context parent, int attempt) {
+		return getTracer().spanBuilder("akinator attempt")
+			.setParent(parent)
+			.setAttribute("akinator.attempt", attempt)
+			.startSpan();
 	}
 
 	private void checkState() {
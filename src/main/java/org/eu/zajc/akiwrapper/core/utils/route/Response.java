@@ -19,17 +19,57 @@ package org.eu.zajc.akiwrapper.core.utils.route;
 import javax.annotation.Nonnull;
 
 import org.eu.zajc.akiwrapper.core.entities.Status;
-import org.json.JSONObject;
+import org.eu.zajc.akiwrapper.core.entities.impl.StatusImpl;
+import org.eu.zajc.akiwrapper.core.utils.JSONReader;
+import org.json.JSONException;
 
 @SuppressWarnings("javadoc") // internal util
 public class Response {
 
+	private static final int NO_PARAMETERS = -1;
+
 	@Nonnull private final Status status;
-	@Nonnull private final JSONObject body;
+	@Nonnull private final JSONReader reader;
+	private final int parameters;
 
-	public Response(@Nonnull Status status, @Nonnull JSONObject body) {
+	private Response(@Nonnull Status status, @Nonnull JSONReader reader, int parameters) {
 		this.status = status;
-		this.body = body;
+		this.reader = reader;
+		this.parameters = parameters;
+	}
+
+	/**
+	 * Decodes the status of a JSONP response. The parameters are only skipped over and
+	 * are decoded later, straight from the body, by whoever reads them.
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public static Response fromJsonp(@Nonnull String body) {
+		var reader = JSONReader.ofJsonp(body);
+		String completion = null;
+		int parameters = NO_PARAMETERS;
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+				case "completion":
+					completion = reader.nextString();
+					break;
+
+				case "parameters":
+					parameters = reader.position();
+					reader.skipValue();
+					break;
+
+				default:
+					reader.skipValue();
+			}
+		}
+
+		if (completion == null)
+			throw JSONReader.missing("completion");
+
+		return new Response(StatusImpl.fromCompletion(completion), reader, parameters);
 	}
 
 	@Nonnull
@@ -37,10 +77,15 @@ public class Response {
 		return this.status;
 	}
 
+	/**
+	 * @return a new reader positioned at the response's parameters
+	 */
 	@Nonnull
-	@SuppressWarnings("null")
-	public JSONObject getBody() {
-		return this.body.getJSONObject("parameters");
+	public JSONReader getBody() {
+		if (this.parameters == NO_PARAMETERS)
+			throw JSONReader.missing("parameters");
+
+		return this.reader.at(this.parameters);
 	}
 
 }
@@ -17,6 +17,7 @@
 package org.eu.zajc.akiwrapper.core.utils.route;
 
 import static java.lang.String.format;
+import static java.lang.System.nanoTime;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.stream.Collectors.joining;
 import static org.eu.zajc.akiwrapper.core.utils.route.Route.Endpoint.GAME_SERVER;
@@ -24,18 +25,28 @@ import static org.eu.zajc.akiwrapper.core.utils.route.Route.Endpoint.GAME_SERVER
 import java.net.URLEncoder;
 import java.util.*;
 import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 import javax.annotation.*;
 
+import org.eu.zajc.akiwrapper.core.exceptions.CancelledException;
 import org.eu.zajc.akiwrapper.core.impl.AkiwrapperImpl;
+import org.eu.zajc.akiwrapper.core.utils.Deadline;
+import org.eu.zajc.akiwrapper.core.utils.UpstreamDispatcher.Priority;
 
 @SuppressWarnings("javadoc") // internal util
 public final class Route {
 
 	public static final String WEBSITE_URL = "https://en.akinator.com";
 
+	// the cache buster changes with every request, so it's left out when comparing them
+	private static final Pattern CACHE_BUSTER = Pattern.compile("([?&]_=)\\d+");
+
+	@Nonnull private final String name;
 	@Nonnull private final String path;
 	@Nonnull private final Endpoint endpoint;
+	@Nonnull private final Priority priority;
+	private final boolean coalesced;
 	private final boolean requiresSession;
 	private final boolean requiresFrontaddr;
 	private final boolean requiresUidExtSession;
@@ -47,13 +58,17 @@ public final class Route {
 	@Nullable private Map<String, String> parameters;
 	private boolean pathHasQuerystring;
 
-	Route(@Nonnull String path, @Nonnull Endpoint endpoint, boolean requiresSession, boolean requiresFrontaddr,
-		  boolean requiresUidExtSession, boolean requiresUrlApiWs,
+	Route(@Nonnull String name, @Nonnull String path, @Nonnull Endpoint endpoint, @Nonnull Priority priority,
+		  boolean coalesced, boolean requiresSession, boolean requiresFrontaddr, boolean requiresUidExtSession,
+		  boolean requiresUrlApiWs,
 		  @Nullable Map<String, Supplier<String>> automaticParameters, @Nullable String profanityDisabledQuerystring,
 		  @Nullable String profanityEnabledQuerystring, @Nullable Set<String> mandatoryParameters,
 		  @Nullable Map<String, String> parameters, boolean pathHasQuerystring) {
+		this.name = name;
 		this.path = path;
 		this.endpoint = endpoint;
+		this.priority = priority;
+		this.coalesced = coalesced;
 		this.requiresSession = requiresSession;
 		this.requiresFrontaddr = requiresFrontaddr;
 		this.requiresUidExtSession = requiresUidExtSession;
@@ -68,7 +83,11 @@ public final class Route {
 
 	@Nonnull
 	@SuppressWarnings({ "resource", "null" })
-	public Request createRequest(@Nonnull AkiwrapperImpl api) {
+	public Request createRequest(@Nonnull AkiwrapperImpl api, @Nonnull Deadline deadline) {
+		if (api.isCancelled())
+			throw new CancelledException("The session was cancelled");
+
+		long start = nanoTime();
 		boolean hasQuerystring = this.pathHasQuerystring;
 
 		var url = new StringBuilder();
@@ -125,7 +144,48 @@ public final class Route {
 			hasQuerystring = true;
 		}
 
-		return new Request(url.toString(), api.getUnirest(), this.mandatoryParameters, this.parameters, hasQuerystring);
+		var request = new Request(url.toString(), this, api, deadline, this.mandatoryParameters, this.parameters,
+								  hasQuerystring);
+		request.urlBuilt(nanoTime() - start);
+		return request;
+	}
+
+	@Nonnull
+	public String getName() {
+		return this.name;
+	}
+
+	@Nonnull
+	public String getPath() {
+		return this.path;
+	}
+
+	@Nonnull
+	public Endpoint getEndpoint() {
+		return this.endpoint;
+	}
+
+	@Nonnull
+	public Priority getPriority() {
+		return this.priority;
+	}
+
+	/**
+	 * @return whether identical requests to this route that are in flight at the same
+	 *         time are coalesced into one
+	 */
+	public boolean isCoalesced() {
+		return this.coalesced;
+	}
+
+	/**
+	 * Strips the value of the cache busting {@code _} parameter from a URL, so URLs of
+	 * otherwise identical requests can be compared.
+	 */
+	@Nonnull
+	@SuppressWarnings("null")
+	public static String withoutCacheBuster(@Nonnull String url) {
+		return CACHE_BUSTER.matcher(url).replaceAll("$1");
 	}
 
 	@Nonnull
@@ -145,7 +205,7 @@ public final class Route {
 		}).collect(joining("&"));
 	}
 
-	enum Endpoint {
+	public enum Endpoint {
 		WEBSITE, // en.akinator.com
 		GAME_SERVER // srvX.akinator.com
 	}
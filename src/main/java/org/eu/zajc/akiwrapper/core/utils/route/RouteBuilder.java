@@ -18,6 +18,7 @@ package org.eu.zajc.akiwrapper.core.utils.route;
 
 import static java.lang.System.currentTimeMillis;
 import static org.eu.zajc.akiwrapper.core.utils.route.Route.formatParameters;
+import static org.eu.zajc.akiwrapper.core.utils.UpstreamDispatcher.Priority.INTERACTIVE;
 import static org.eu.zajc.akiwrapper.core.utils.route.Route.Endpoint.GAME_SERVER;
 
 import java.util.*;
@@ -25,13 +26,17 @@ import java.util.function.Supplier;
 
 import javax.annotation.*;
 
+import org.eu.zajc.akiwrapper.core.utils.UpstreamDispatcher.Priority;
 import org.eu.zajc.akiwrapper.core.utils.route.Route.Endpoint;
 
 @SuppressWarnings("javadoc") // internal util
 public class RouteBuilder {
 
 	@Nonnull private final String path;
+	@Nonnull private String name;
 	@Nonnull private Endpoint endpoint = GAME_SERVER;
+	@Nonnull private Priority priority = INTERACTIVE;
+	private boolean coalesced = false;
 	private boolean requiresSession = false;
 	private boolean requiresFrontaddr = false;
 	private boolean requiresUidExtSession = false;
@@ -45,6 +50,13 @@ public class RouteBuilder {
 
 	public RouteBuilder(@Nonnull String path) {
 		this.path = path;
+		this.name = path;
+	}
+
+	@Nonnull
+	public RouteBuilder name(@Nonnull String name) {
+		this.name = name;
+		return this;
 	}
 
 	@Nonnull
@@ -53,6 +65,18 @@ public class RouteBuilder {
 		return this;
 	}
 
+	@Nonnull
+	public RouteBuilder priority(@Nonnull Priority priority) {
+		this.priority = priority;
+		return this;
+	}
+
+	@Nonnull
+	public RouteBuilder coalesced() {
+		this.coalesced = true;
+		return this;
+	}
+
 	@Nonnull
 	public RouteBuilder requiresSession() {
 		this.requiresSession = true;
@@ -157,7 +181,8 @@ public class RouteBuilder {
 		String profanityEnabledQuerystring =
 			this.profanityDisabledParameters == null ? null : formatParameters(this.profanityEnabledParameters);
 
-		return new Route(processedPath, this.endpoint, this.requiresSession, this.requiresFrontaddr,
+		return new Route(this.name, processedPath, this.endpoint, this.priority, this.coalesced, this.requiresSession,
+						 this.requiresFrontaddr,
 						 this.requiresUidExtSession, this.requiresUrlApiWs, this.automaticParameters,
 						 profanityDisabledQuerystring, profanityEnabledQuerystring, this.mandatoryParameters,
 						 this.parameters, this.constantParameters != null);
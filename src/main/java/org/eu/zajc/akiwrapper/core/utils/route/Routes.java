@@ -16,6 +16,7 @@
  */
 package org.eu.zajc.akiwrapper.core.utils.route;
 
+import static org.eu.zajc.akiwrapper.core.utils.UpstreamDispatcher.Priority.BACKGROUND;
 import static org.eu.zajc.akiwrapper.core.utils.route.Route.Endpoint.*;
 
 @SuppressWarnings("javadoc") // internal util
@@ -45,6 +46,7 @@ public final class Routes {
 	 * <i>This route takes no parameters.</i>
 	 */
 	public static final Route NEW_SESSION = new RouteBuilder("/new_session").endpoint(WEBSITE)
+		.name("NEW_SESSION")
 		.requiresUrlApiWs()
 		.requiresFrontaddr()
 		.requiresUidExtSession()
@@ -70,6 +72,7 @@ public final class Routes {
 	 * <b>This route requires a session</b>
 	 */
 	public static final Route ANSWER = new RouteBuilder("/answer_api").endpoint(WEBSITE)
+		.name("ANSWER")
 		.requiresUrlApiWs()
 		.requiresFrontaddr()
 		.requiresSession()
@@ -88,6 +91,7 @@ public final class Routes {
 	 * <b>This route requires a session</b>
 	 */
 	public static final Route CANCEL_ANSWER = new RouteBuilder("/cancel_answer").endpoint(GAME_SERVER)
+		.name("CANCEL_ANSWER")
 		.requiresSession()
 		.constantParameter(PARAMETER_ANSWER, "-1")
 		.profanityEnabledParameter(PARAMETER_QUESTION_FILTER, VALUE_QUESTION_FILTER_PROFANITY_ENABLED)
@@ -111,6 +115,8 @@ public final class Routes {
 	 * <b>This route requires a session</b>
 	 */
 	public static final Route LIST = new RouteBuilder("/list").endpoint(GAME_SERVER)
+		.name("LIST")
+		.coalesced() // refreshing a UI can easily ask for the same guesses twice
 		.requiresSession()
 		.constantParameter("pref_photos", "VO-OK") // ?
 		.constantParameter("duel_allowed", "1") // ?
@@ -138,6 +144,7 @@ public final class Routes {
 	 *          that this excludes the top guess.
 	 */
 	public static final Route EXCLUSION = new RouteBuilder("/exclusion").endpoint(GAME_SERVER)
+		.name("EXCLUSION")
 		.requiresSession()
 		.constantParameter("forward_answer", "1") // ?
 		.mandatoryParameter(PARAMETER_STEP)
@@ -156,9 +163,11 @@ public final class Routes {
 	 * step</li>
 	 * <li>{@link Routes#PARAMETER_ELEMENT}: the guess ID to confirm</li>
 	 * </ul>
-	 * <b>This route requires a session</b>
+	 * <b>This route requires a session and is dispatched in the background</b>
 	 */
 	public static final Route CHOICE = new RouteBuilder("/choice").endpoint(GAME_SERVER)
+		.name("CHOICE")
+		.priority(BACKGROUND)
 		.requiresSession()
 		.constantParameter("duel_allowed", "1") // ?
 		.mandatoryParameter(PARAMETER_STEP)
@@ -0,0 +1,99 @@
+package com.renkdomingues.guessingapi;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.Test;
+
+class ConsistentHashRingTest {
+
+    private static final List<String> NODES = List.of("http://a:8080", "http://b:8080", "http://c:8080");
+    private static final int KEYS = 10_000;
+
+    @Test
+    void emptyRingOwnsNothing() {
+        assertNull(new ConsistentHashRing(16, List.of()).ownerOf("game"));
+    }
+
+    @Test
+    void ownershipDoesNotDependOnNodeOrder() {
+        var ring = ring(NODES);
+        var reversed = new ArrayList<>(NODES);
+        Collections.reverse(reversed);
+        var other = ring(reversed);
+
+        for (int i = 0; i < KEYS; i++)
+            assertEquals(ring.ownerOf("game-" + i), other.ownerOf("game-" + i));
+    }
+
+    @Test
+    void spreadsKeysEvenly() {
+        var counts = owners(ring(NODES)).values().stream()
+                .collect(HashMap<String, Integer>::new, (m, n) -> m.merge(n, 1, Integer::sum), Map::putAll);
+
+        assertEquals(NODES.size(), counts.size());
+        for (var count : counts.values())
+            assertTrue(Math.abs(count - KEYS / NODES.size()) < KEYS / 10, "uneven share: " + counts);
+    }
+
+    @Test
+    void addingANodeOnlyMovesKeysToIt() {
+        var ring = ring(NODES);
+        var before = owners(ring);
+        ring.addNode("http://d:8080");
+        var after = owners(ring);
+
+        int moved = 0;
+        for (var key : before.keySet()) {
+            if (!before.get(key).equals(after.get(key))) {
+                assertEquals("http://d:8080", after.get(key));
+                moved++;
+            }
+        }
+        assertTrue(moved > KEYS / 8 && moved < KEYS * 3 / 8, "moved " + moved);
+    }
+
+    @Test
+    void removingANodeOnlyMovesItsKeys() {
+        var ring = ring(NODES);
+        var before = owners(ring);
+        ring.removeNode("http://b:8080");
+        var after = owners(ring);
+
+        for (var key : before.keySet()) {
+            if (!before.get(key).equals("http://b:8080"))
+                assertEquals(before.get(key), after.get(key));
+            else
+                assertNotEquals("http://b:8080", after.get(key));
+        }
+        assertEquals(Set.of("http://a:8080", "http://c:8080"), ring.getNodes());
+    }
+
+    @Test
+    void addingAnExistingNodeChangesNothing() {
+        var ring = ring(NODES);
+        var before = owners(ring);
+        ring.addNode("http://a:8080");
+
+        assertEquals(before, owners(ring));
+        assertEquals(new LinkedHashSet<>(NODES), ring.getNodes());
+    }
+
+    @Test
+    void rejectsRingsWithoutVirtualNodes() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(0, NODES));
+    }
+
+    private static ConsistentHashRing ring(List<String> nodes) {
+        return new ConsistentHashRing(ConsistentHashRing.DEFAULT_VIRTUAL_NODES, nodes);
+    }
+
+    private static Map<String, String> owners(ConsistentHashRing ring) {
+        var owners = new HashMap<String, String>();
+        for (int i = 0; i < KEYS; i++)
+            owners.put("game-" + i, ring.ownerOf("game-" + i));
+        return owners;
+    }
+
+}
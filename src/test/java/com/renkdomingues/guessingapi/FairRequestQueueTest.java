@@ -0,0 +1,118 @@
+package com.renkdomingues.guessingapi;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.*;
+
+class FairRequestQueueTest {
+
+    private final BlockingQueue<String> admitted = new LinkedBlockingQueue<>();
+    private final List<Thread> threads = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (var thread : threads) {
+            thread.interrupt();
+            thread.join(1000);
+        }
+    }
+
+    @Test
+    void admitsUpToCapacity() throws InterruptedException {
+        var queue = new FairRequestQueue(2, 2, 8, 50, Map.of());
+        assertTrue(queue.acquire("a"));
+        assertTrue(queue.acquire("a"));
+        assertFalse(queue.acquire("b"));
+        assertEquals(2, queue.getInFlight());
+        assertEquals(0, queue.getWaiting());
+
+        queue.release("a");
+        assertTrue(queue.acquire("b"));
+    }
+
+    @Test
+    void limitsSlotsPerClient() throws InterruptedException {
+        var queue = new FairRequestQueue(4, 1, 8, 50, Map.of());
+        assertTrue(queue.acquire("a"));
+        assertFalse(queue.acquire("a"));
+        assertTrue(queue.acquire("b"));
+        assertEquals(2, queue.getInFlight());
+    }
+
+    @Test
+    void rejectsClientsWithTooManyWaiting() throws InterruptedException {
+        var queue = new FairRequestQueue(1, 1, 1, 5000, Map.of());
+        assertTrue(queue.acquire("x"));
+        startWaiting(queue, "a", 1);
+
+        assertFalse(queue.acquire("a"));
+
+        queue.release("x");
+        assertEquals("a", admitted.poll(1, SECONDS));
+    }
+
+    @Test
+    void interleavesClientsInsteadOfServingInArrivalOrder() throws InterruptedException {
+        var queue = new FairRequestQueue(1, 5, 10, 5000, Map.of());
+        assertTrue(queue.acquire("x"));
+        startWaiting(queue, "heavy", 1);
+        startWaiting(queue, "heavy", 2);
+        startWaiting(queue, "heavy", 3);
+        startWaiting(queue, "light", 4);
+
+        assertEquals(List.of("heavy", "light", "heavy", "heavy"), drain(queue, "x", 4));
+    }
+
+    @Test
+    void givesWeightedClientsALargerShare() throws InterruptedException {
+        var queue = new FairRequestQueue(1, 5, 10, 5000, Map.of("heavy", 2));
+        assertTrue(queue.acquire("x"));
+        startWaiting(queue, "heavy", 1);
+        startWaiting(queue, "heavy", 2);
+        startWaiting(queue, "heavy", 3);
+        startWaiting(queue, "light", 4);
+        startWaiting(queue, "light", 5);
+
+        // unweighted, this would be heavy, light, heavy, light, heavy
+        assertEquals(List.of("heavy", "light", "heavy", "heavy", "light"), drain(queue, "x", 5));
+    }
+
+    private void startWaiting(FairRequestQueue queue, String client, int expectedWaiting)
+            throws InterruptedException {
+        var thread = new Thread(() -> {
+            try {
+                if (queue.acquire(client))
+                    admitted.add(client);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        threads.add(thread);
+        thread.start();
+
+        // wait for it to queue up, so that the order of the tickets is known
+        long deadline = System.nanoTime() + SECONDS.toNanos(1);
+        while (queue.getWaiting() < expectedWaiting) {
+            if (System.nanoTime() > deadline)
+                fail("The request never started waiting");
+            Thread.sleep(1);
+        }
+    }
+
+    private List<String> drain(FairRequestQueue queue, String holder, int count) throws InterruptedException {
+        var order = new ArrayList<String>();
+        var releasing = holder;
+        for (int i = 0; i < count; i++) {
+            queue.release(releasing);
+            releasing = admitted.poll(1, SECONDS);
+            assertNotNull(releasing);
+            order.add(releasing);
+        }
+        return order;
+    }
+
+}
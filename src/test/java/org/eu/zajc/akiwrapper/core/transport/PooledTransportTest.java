@@ -0,0 +1,213 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.transport;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.eu.zajc.akiwrapper.core.exceptions.DeadlineExceededException;
+import org.junit.jupiter.api.*;
+
+class PooledTransportTest {
+
+	private static final String WEBSITE_URL = "https://en.akinator.com/game";
+	private static final String SERVER_URL = "https://srv1.akinator.com:9000/ws/answer";
+	private static final String SERVER_ORIGIN = "https://srv1.akinator.com:9000";
+
+	private final List<FakeTransport> created = new CopyOnWriteArrayList<>();
+	private final PooledTransport transport = new PooledTransport(size -> {
+		var fake = new FakeTransport(size);
+		this.created.add(fake);
+		return fake;
+	}, 4, 1);
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	void givesEachOriginItsOwnPool() {
+		this.transport.getAsync(WEBSITE_URL);
+		this.transport.getAsync(SERVER_URL);
+		this.transport.getAsync("https://srv2.akinator.com:9000/ws/answer");
+
+		assertEquals(3, this.transport.getPools().size());
+		assertEquals(4, this.transport.getPools().get("https://en.akinator.com").getCapacity());
+		assertEquals(1, server().getCapacity());
+		assertEquals(List.of(4, 1, 1), sizes());
+	}
+
+	@Test
+	void handsTheLeaseStraightToTheNextWaiter() {
+		var first = this.transport.getAsync(SERVER_URL);
+		var second = this.transport.getAsync(SERVER_URL);
+		var fake = this.created.get(0);
+
+		assertEquals(1, fake.exchanges.size());
+		assertEquals(1, server().getPending());
+
+		fake.exchanges.get(0).complete(response());
+		assertTrue(first.isDone());
+		assertEquals(2, fake.exchanges.size());
+		assertEquals(1, server().getLeased());
+		assertEquals(0, server().getPending());
+
+		fake.exchanges.get(1).complete(response());
+		assertTrue(second.isDone());
+		assertEquals(0, server().getLeased());
+		assertEquals(2, server().getLeaseCount());
+	}
+
+	@Test
+	void cancelledWaitersGiveUpTheirPlace() {
+		this.transport.getAsync(SERVER_URL);
+		var cancelled = this.transport.getAsync(SERVER_URL);
+		var fake = this.created.get(0);
+
+		cancelled.cancel(true);
+		assertEquals(0, server().getPending());
+
+		fake.exchanges.get(0).complete(response());
+		assertEquals(1, fake.exchanges.size());
+		assertEquals(0, server().getLeased());
+	}
+
+	@Test
+	void cancellingTheResponseCancelsTheExchange() {
+		var response = this.transport.getAsync(SERVER_URL);
+		var fake = this.created.get(0);
+
+		response.cancel(true);
+		assertTrue(fake.exchanges.get(0).isCancelled());
+		assertEquals(0, server().getLeased());
+	}
+
+	@Test
+	void asyncWaitersTimeOut() {
+		this.transport.getAsync(SERVER_URL);
+		var timedOut = this.transport.getAsync(SERVER_URL, Duration.ofMillis(20));
+
+		var e = assertThrows(ExecutionException.class, () -> timedOut.get(1, SECONDS));
+		assertTrue(e.getCause() instanceof DeadlineExceededException);
+		assertEquals(0, server().getPending());
+		assertEquals(1, server().getLeased());
+	}
+
+	@Test
+	void exchangeTimeoutsAreLeftAlone() {
+		var response = this.transport.getAsync(SERVER_URL, Duration.ofSeconds(5));
+		var timeout = new TimeoutException();
+		this.created.get(0).exchanges.get(0).completeExceptionally(timeout);
+
+		var e = assertThrows(ExecutionException.class, () -> response.get(1, SECONDS));
+		assertSame(timeout, e.getCause());
+	}
+
+	@Test
+	void responsesCarryTheLeaseWait() throws Exception {
+		this.transport.getAsync(SERVER_URL);
+		var waiting = this.transport.getAsync(SERVER_URL);
+		var fake = this.created.get(0);
+		MILLISECONDS.sleep(20);
+
+		fake.exchanges.get(0).complete(response());
+		fake.exchanges.get(1).complete(response());
+		assertTrue(waiting.get(1, SECONDS).getLeaseWait() >= MILLISECONDS.toNanos(20));
+	}
+
+	@Test
+	void syncWaitersGetTheLeaseHandedOver() throws Exception {
+		this.transport.getAsync(SERVER_URL);
+		var fake = this.created.get(0);
+		var sync = this.executor.submit(() -> this.transport.get(SERVER_URL, Duration.ofSeconds(5)));
+		while (server().getPending() == 0)
+			MILLISECONDS.sleep(1);
+
+		fake.exchanges.get(0).complete(response());
+		assertEquals(200, sync.get(1, SECONDS).getStatus());
+		assertEquals(0, server().getLeased());
+	}
+
+	@Test
+	void syncWaitersTimeOut() {
+		this.transport.getAsync(SERVER_URL);
+
+		assertThrows(DeadlineExceededException.class, () -> this.transport.get(SERVER_URL, Duration.ofMillis(20)));
+		assertEquals(0, server().getPending());
+		assertEquals(1, server().getLeased());
+	}
+
+	@Test
+	void closesThePools() {
+		this.transport.getAsync(SERVER_URL);
+		this.transport.close();
+
+		assertTrue(this.created.get(0).closed);
+		assertThrows(IllegalStateException.class, () -> this.transport.getAsync(SERVER_URL));
+	}
+
+	private List<Integer> sizes() {
+		var sizes = new ArrayList<Integer>();
+		this.created.forEach(t -> sizes.add(t.size));
+		return sizes;
+	}
+
+	private PooledTransport.Pool server() {
+		return this.transport.getPools().get(SERVER_ORIGIN);
+	}
+
+	private static TransportResponse response() {
+		return new TransportResponse(200, "OK", Map.of(), "");
+	}
+
+	private static final class FakeTransport implements Transport, Closeable {
+
+		private final int size;
+		private final List<CompletableFuture<TransportResponse>> exchanges = new CopyOnWriteArrayList<>();
+		private volatile boolean closed;
+
+		private FakeTransport(int size) {
+			this.size = size;
+		}
+
+		@Override
+		public TransportResponse get(String url, Duration timeout) {
+			return response();
+		}
+
+		@Override
+		public CompletableFuture<TransportResponse> getAsync(String url, Duration timeout) {
+			var exchange = new CompletableFuture<TransportResponse>();
+			this.exchanges.add(exchange);
+			return exchange;
+		}
+
+		@Override
+		public void close() {
+			this.closed = true;
+		}
+
+	}
+
+}
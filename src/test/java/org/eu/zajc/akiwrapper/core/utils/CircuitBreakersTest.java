@@ -0,0 +1,124 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static org.eu.zajc.akiwrapper.core.utils.CircuitBreakers.State.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakersTest {
+
+	private static final String SERVER = "https://srv1.akinator.com:9000/ws";
+	private static final Duration OPEN_DURATION = Duration.ofMillis(50);
+
+	private final CircuitBreakers breakers = new CircuitBreakers(3, OPEN_DURATION, Duration.ofSeconds(1));
+
+	@Test
+	void opensAfterConsecutiveFailures() {
+		fail(2);
+		assertEquals(CLOSED, this.breakers.getState(SERVER));
+		assertTrue(this.breakers.allowRequest(SERVER));
+
+		fail(1);
+		assertEquals(OPEN, this.breakers.getState(SERVER));
+		assertTrue(this.breakers.isOpen(SERVER));
+		assertFalse(this.breakers.allowRequest(SERVER));
+	}
+
+	@Test
+	void successResetsFailures() {
+		fail(2);
+		this.breakers.record(SERVER, null);
+		fail(2);
+		assertEquals(CLOSED, this.breakers.getState(SERVER));
+	}
+
+	@Test
+	void failuresThatAreNotTheServersFaultDontCount() {
+		for (int i = 0; i < 5; i++)
+			this.breakers.record(SERVER, new IllegalStateException());
+		assertEquals(CLOSED, this.breakers.getState(SERVER));
+	}
+
+	@Test
+	void letsOneProbeThroughOnceOpenPeriodPasses() throws InterruptedException {
+		fail(3);
+		Thread.sleep(OPEN_DURATION.toMillis() * 2);
+
+		assertEquals(HALF_OPEN, this.breakers.getState(SERVER));
+		assertFalse(this.breakers.isOpen(SERVER));
+		assertTrue(this.breakers.allowRequest(SERVER));
+		assertFalse(this.breakers.allowRequest(SERVER));
+
+		this.breakers.record(SERVER, null);
+		assertEquals(CLOSED, this.breakers.getState(SERVER));
+		assertTrue(this.breakers.allowRequest(SERVER));
+	}
+
+	@Test
+	void failedProbeOpensAgainForLonger() throws InterruptedException {
+		fail(3);
+		Thread.sleep(OPEN_DURATION.toMillis() * 2);
+		assertTrue(this.breakers.allowRequest(SERVER));
+
+		fail(1);
+		assertEquals(OPEN, this.breakers.getState(SERVER));
+
+		// the open period doubled, so it's still open after the first one
+		Thread.sleep(OPEN_DURATION.toMillis() + 10);
+		assertEquals(OPEN, this.breakers.getState(SERVER));
+
+		Thread.sleep(OPEN_DURATION.toMillis() * 2);
+		assertEquals(HALF_OPEN, this.breakers.getState(SERVER));
+	}
+
+	@Test
+	void abandonedProbeLetsAnotherOneThrough() throws InterruptedException {
+		fail(3);
+		Thread.sleep(OPEN_DURATION.toMillis() * 2);
+		assertTrue(this.breakers.allowRequest(SERVER));
+		assertFalse(this.breakers.allowRequest(SERVER));
+
+		this.breakers.abandon(SERVER);
+		assertEquals(HALF_OPEN, this.breakers.getState(SERVER));
+		assertTrue(this.breakers.allowRequest(SERVER));
+
+		this.breakers.record(SERVER, null);
+		assertEquals(CLOSED, this.breakers.getState(SERVER));
+	}
+
+	@Test
+	void abandonLeavesOtherStatesAlone() {
+		this.breakers.abandon(SERVER);
+		assertEquals(CLOSED, this.breakers.getState(SERVER));
+
+		fail(3);
+		this.breakers.abandon(SERVER);
+		assertEquals(OPEN, this.breakers.getState(SERVER));
+		assertFalse(this.breakers.allowRequest(SERVER));
+	}
+
+	private void fail(int times) {
+		for (int i = 0; i < times; i++)
+			this.breakers.record(SERVER, new IOException());
+	}
+
+}
@@ -0,0 +1,138 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+
+import org.eu.zajc.akiwrapper.core.exceptions.ConcurrencyLimitExceededException;
+import org.eu.zajc.akiwrapper.core.utils.ConcurrencyLimiter.*;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimiterTest {
+
+	private static final String HOST = "srv1.akinator.com";
+
+	@Test
+	void growsWhileTheLimitIsUsed() {
+		var limiter = new ConcurrencyLimiter(4, 1, 8);
+		begun(limiter).complete(null);
+		for (int round = 0; round < 10; round++) {
+			var permits = new ArrayList<Permit>();
+			for (int i = 0; i < limitOf(limiter).getLimit(); i++)
+				permits.add(begun(limiter));
+			permits.forEach(p -> p.complete(null));
+		}
+
+		assertTrue(limitOf(limiter).getLimit() > 4);
+		assertEquals(0, limitOf(limiter).getInFlight());
+	}
+
+	@Test
+	void doesNotGrowFromPermitsThatHaveNotStarted() {
+		var limiter = new ConcurrencyLimiter(4, 1, 8);
+		// held by requests that are still waiting on our side, for example for a slot
+		var waiting = new ArrayList<Permit>();
+		for (int i = 0; i < 3; i++)
+			waiting.add(limiter.acquire(HOST, 0));
+
+		for (int i = 0; i < 20; i++)
+			begun(limiter).complete(null);
+
+		assertEquals(4, limitOf(limiter).getLimit());
+		waiting.forEach(Permit::release);
+		assertEquals(0, limitOf(limiter).getInFlight());
+	}
+
+	@Test
+	void backsOffOnRetryableFailures() {
+		var limiter = new ConcurrencyLimiter(10, 1, 20);
+		begun(limiter).complete(new IOException());
+
+		assertEquals(9, limitOf(limiter).getLimit());
+	}
+
+	@Test
+	void backsOffOnSlowRoundTrips() throws InterruptedException {
+		var limiter = new ConcurrencyLimiter(10, 1, 20);
+		begun(limiter).complete(null);
+
+		var slow = begun(limiter);
+		MILLISECONDS.sleep(30);
+		slow.complete(null);
+
+		assertEquals(9, limitOf(limiter).getLimit());
+	}
+
+	@Test
+	void learnsNothingFromReleasedPermits() throws InterruptedException {
+		var limiter = new ConcurrencyLimiter(10, 1, 20);
+		var permit = begun(limiter);
+		MILLISECONDS.sleep(30);
+		permit.release();
+
+		assertEquals(10, limitOf(limiter).getLimit());
+		assertNull(limitOf(limiter).getMinRtt());
+		assertEquals(0, limitOf(limiter).getInFlight());
+	}
+
+	@Test
+	void shedsWhenTooManyAreWaiting() {
+		var limiter = new ConcurrencyLimiter(1, 1, 1);
+		var first = limiter.acquireAsync(HOST).join();
+		var queued = limiter.acquireAsync(HOST);
+		var shed = limiter.acquireAsync(HOST);
+
+		assertFalse(queued.isDone());
+		var e = assertThrows(CompletionException.class, shed::join);
+		assertTrue(e.getCause() instanceof ConcurrencyLimitExceededException);
+		assertEquals(1, limitOf(limiter).getShed());
+
+		first.release();
+		assertTrue(queued.isDone());
+		queued.join().release();
+		assertEquals(0, limitOf(limiter).getInFlight());
+	}
+
+	@Test
+	void timedOutWaitersGiveUpTheirPlace() {
+		var limiter = new ConcurrencyLimiter(1, 1, 1);
+		var held = limiter.acquire(HOST, 0);
+
+		assertNull(limiter.acquire(HOST, MILLISECONDS.toNanos(10)));
+		assertEquals(0, limitOf(limiter).getQueued());
+
+		held.release();
+		assertNotNull(limiter.acquire(HOST, 0));
+	}
+
+	private static Permit begun(ConcurrencyLimiter limiter) {
+		var permit = limiter.acquire(HOST, 0);
+		assertNotNull(permit);
+		permit.begin();
+		return permit;
+	}
+
+	private static Limit limitOf(ConcurrencyLimiter limiter) {
+		return limiter.getLimits().iterator().next();
+	}
+
+}
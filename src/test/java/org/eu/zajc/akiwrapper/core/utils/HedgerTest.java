@@ -0,0 +1,93 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+import org.eu.zajc.akiwrapper.core.exceptions.*;
+import org.junit.jupiter.api.Test;
+
+class HedgerTest {
+
+	private final Hedger hedger = new Hedger(Duration.ofSeconds(10), Duration.ofSeconds(10));
+	private final List<CompletableFuture<String>> attempts = new CopyOnWriteArrayList<>();
+
+	@Test
+	void movesOnWhenTheServerFails() {
+		var result = this.hedger.hedge("test", candidates(3));
+		this.attempts.get(0).completeExceptionally(new IOException());
+		assertEquals(2, this.attempts.size());
+
+		this.attempts.get(1).completeExceptionally(new CircuitOpenException("https://srv1.akinator.com"));
+		assertEquals(3, this.attempts.size());
+
+		this.attempts.get(2).complete("third");
+		assertEquals("third", result.join());
+	}
+
+	@Test
+	void failsRightAwayOnLocalFailures() {
+		var result = this.hedger.hedge("test", candidates(3));
+		var failure = new RateLimitedException("en.akinator.com");
+		this.attempts.get(0).completeExceptionally(failure);
+
+		assertEquals(1, this.attempts.size());
+		var e = assertThrows(CompletionException.class, result::join);
+		assertSame(failure, e.getCause());
+	}
+
+	@Test
+	void failsWithTheLastFailureOnceCandidatesRunOut() {
+		var result = this.hedger.hedge("test", candidates(2));
+		this.attempts.get(0).completeExceptionally(new IOException("first"));
+		this.attempts.get(1).completeExceptionally(new IOException("second"));
+
+		var e = assertThrows(CompletionException.class, result::join);
+		assertEquals("second", e.getCause().getMessage());
+	}
+
+	@Test
+	void cancelsTheOthersOnceOneSucceeds() {
+		var fast = new Hedger(Duration.ZERO, Duration.ZERO);
+		var result = fast.hedge("test", candidates(2));
+		while (this.attempts.size() < 2)
+			Thread.onSpinWait();
+
+		this.attempts.get(1).complete("second");
+		assertEquals("second", result.join());
+		assertTrue(this.attempts.get(0).isCancelled());
+	}
+
+	private List<Supplier<CompletableFuture<String>>> candidates(int count) {
+		var candidates = new ArrayList<Supplier<CompletableFuture<String>>>();
+		for (int i = 0; i < count; i++) {
+			candidates.add(() -> {
+				var attempt = new CompletableFuture<String>();
+				this.attempts.add(attempt);
+				return attempt;
+			});
+		}
+		return candidates;
+	}
+
+}
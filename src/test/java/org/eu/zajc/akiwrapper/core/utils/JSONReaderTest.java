@@ -0,0 +1,161 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+
+class JSONReaderTest {
+
+	@Test
+	void readsJsonpInPlace() {
+		var reader = JSONReader.ofJsonp("jQuery({\"completion\":\"OK\",\"parameters\":{\"step\":3}})");
+		reader.beginObject();
+
+		assertTrue(reader.hasNext());
+		assertEquals("completion", reader.nextName());
+		assertEquals("OK", reader.nextString());
+
+		assertTrue(reader.hasNext());
+		assertEquals("parameters", reader.nextName());
+		reader.beginObject();
+		assertTrue(reader.hasNext());
+		assertEquals("step", reader.nextName());
+		assertEquals(3, reader.nextInt());
+		assertFalse(reader.hasNext());
+
+		assertFalse(reader.hasNext());
+	}
+
+	@Test
+	void readsQuotedAndUnquotedNumbersAlike() {
+		var reader = reader("[\"3\", 3, \"-12\", 45.67, \"45.67\", 1e3, true]");
+		reader.beginArray();
+
+		reader.hasNext();
+		assertEquals(3, reader.nextInt());
+		reader.hasNext();
+		assertEquals(3L, reader.nextLong());
+		reader.hasNext();
+		assertEquals(-12, reader.nextInt());
+		reader.hasNext();
+		assertEquals(45.67, reader.nextDouble());
+		reader.hasNext();
+		assertEquals(45.67, reader.nextDouble());
+		reader.hasNext();
+		assertEquals(1000, reader.nextLong());
+		reader.hasNext();
+		assertEquals("true", reader.nextString());
+		assertFalse(reader.hasNext());
+	}
+
+	@Test
+	void decodesEscapes() {
+		var reader = reader("[\"plain\", \"a\\\"b\\\\c\\/d\", \"\\u00e9\\n\\t\"]");
+		reader.beginArray();
+
+		reader.hasNext();
+		assertEquals("plain", reader.nextString());
+		reader.hasNext();
+		assertEquals("a\"b\\c/d", reader.nextString());
+		reader.hasNext();
+		assertEquals("\u00e9\n\t", reader.nextString());
+		assertFalse(reader.hasNext());
+	}
+
+	@Test
+	void skipsNestedValues() {
+		var reader = reader("{\"skipped\": {\"a\": [1, {\"b\": \"]}\\\"\"}], \"c\": null}, \"kept\": \"yes\"}");
+		reader.beginObject();
+
+		reader.hasNext();
+		assertEquals("skipped", reader.nextName());
+		reader.skipValue();
+
+		reader.hasNext();
+		assertEquals("kept", reader.nextName());
+		assertEquals("yes", reader.nextString());
+		assertFalse(reader.hasNext());
+	}
+
+	@Test
+	void rereadsFromAPosition() {
+		var reader = reader("{\"elements\": [{\"id\": 1}, {\"id\": 2}]}");
+		reader.beginObject();
+		reader.hasNext();
+		reader.nextName();
+		int start = reader.position();
+		reader.skipValue();
+		assertFalse(reader.hasNext());
+
+		var again = reader.at(start);
+		var ids = new ArrayList<Integer>();
+		again.beginArray();
+		while (again.hasNext()) {
+			again.beginObject();
+			again.hasNext();
+			again.nextName();
+			ids.add(again.nextInt());
+			assertFalse(again.hasNext());
+		}
+		assertEquals(List.of(1, 2), ids);
+	}
+
+	@Test
+	void readsWithinBounds() {
+		var json = "xx[1]yy";
+		var reader = new JSONReader(json, 2, 5);
+		reader.beginArray();
+		reader.hasNext();
+		assertEquals(1, reader.nextInt());
+		assertFalse(reader.hasNext());
+		assertThrows(JSONException.class, reader::beginArray);
+	}
+
+	@Test
+	void rejectsMalformedInput() {
+		assertThrows(JSONException.class, () -> JSONReader.ofJsonp("{\"completion\":\"OK\"}"));
+		assertThrows(JSONException.class, () -> reader("\"unterminated").nextString());
+		assertThrows(JSONException.class, () -> reader("\"\\u12\"").nextString());
+		assertThrows(JSONException.class, () -> reader("[1]").beginObject());
+		assertThrows(JSONException.class, () -> reader("\"abc\"").nextInt());
+		assertThrows(JSONException.class, () -> reader("null").nextString());
+		assertThrows(JSONException.class, () -> reader("3000000000").nextInt());
+		assertThrows(JSONException.class, () -> reader("99999999999999999999").nextLong());
+
+		var reader = reader("{\"name\" 1}");
+		reader.beginObject();
+		reader.hasNext();
+		assertThrows(JSONException.class, reader::nextName);
+	}
+
+	@Test
+	void requiresPresentValues() {
+		assertEquals("value", JSONReader.require("value", "key"));
+		var e = assertThrows(JSONException.class, () -> JSONReader.require(null, "key"));
+		assertEquals("\"key\" not found", e.getMessage());
+	}
+
+	private static JSONReader reader(String json) {
+		return new JSONReader(json, 0, json.length());
+	}
+
+}
@@ -0,0 +1,122 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.eu.zajc.akiwrapper.core.utils.route.Route.Endpoint.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.eu.zajc.akiwrapper.core.utils.RateLimiter.Bucket;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+	private static final String WEBSITE_HOST = "en.akinator.com";
+	private static final String SERVER_HOST = "srv1.akinator.com";
+
+	@Test
+	void grantsTheBurstRightAway() {
+		var limiter = limiter(Duration.ofSeconds(5));
+		for (int i = 0; i < 3; i++)
+			assertEquals(0, limiter.reserve(GAME_SERVER, SERVER_HOST, Long.MAX_VALUE));
+
+		assertEquals(3, bucket(limiter, SERVER_HOST).getGranted());
+	}
+
+	@Test
+	void queuesRequestsBehindEachOther() {
+		var limiter = limiter(Duration.ofSeconds(5));
+		for (int i = 0; i < 3; i++)
+			limiter.reserve(GAME_SERVER, SERVER_HOST, Long.MAX_VALUE);
+
+		long first = limiter.reserve(GAME_SERVER, SERVER_HOST, Long.MAX_VALUE);
+		long second = limiter.reserve(GAME_SERVER, SERVER_HOST, Long.MAX_VALUE);
+		assertTrue(first > MILLISECONDS.toNanos(900) && first <= SECONDS.toNanos(1), "waited " + first);
+		assertTrue(second > first + MILLISECONDS.toNanos(900), "waited " + second);
+
+		var bucket = bucket(limiter, SERVER_HOST);
+		assertEquals(2, bucket.getDelayed());
+		assertTrue(bucket.getAvailable() < -1);
+		assertEquals(second, bucket.getMaxWait().toNanos());
+	}
+
+	@Test
+	void rejectsRequestsThatWouldWaitTooLong() {
+		var limiter = limiter(Duration.ofMillis(500));
+		for (int i = 0; i < 3; i++)
+			limiter.reserve(GAME_SERVER, SERVER_HOST, Long.MAX_VALUE);
+
+		assertEquals(-1, limiter.reserve(GAME_SERVER, SERVER_HOST, Long.MAX_VALUE));
+		var bucket = bucket(limiter, SERVER_HOST);
+		assertEquals(1, bucket.getRejected());
+		// no token was taken for the rejected request
+		assertTrue(bucket.getAvailable() >= 0);
+	}
+
+	@Test
+	void waitsNoLongerThanTheTimeout() {
+		var limiter = limiter(Duration.ofSeconds(5));
+		for (int i = 0; i < 3; i++)
+			limiter.reserve(GAME_SERVER, SERVER_HOST, Long.MAX_VALUE);
+
+		assertEquals(-1, limiter.reserve(GAME_SERVER, SERVER_HOST, MILLISECONDS.toNanos(100)));
+	}
+
+	@Test
+	void refillsOverTime() throws InterruptedException {
+		var limiter = new RateLimiter(100, 1, 100, 1, Duration.ZERO);
+		assertEquals(0, limiter.reserve(GAME_SERVER, SERVER_HOST, Long.MAX_VALUE));
+		assertEquals(-1, limiter.reserve(GAME_SERVER, SERVER_HOST, Long.MAX_VALUE));
+
+		MILLISECONDS.sleep(30);
+		assertEquals(0, limiter.reserve(GAME_SERVER, SERVER_HOST, Long.MAX_VALUE));
+	}
+
+	@Test
+	void keepsABucketPerHost() {
+		var limiter = limiter(Duration.ZERO);
+		assertEquals(0, limiter.reserve(WEBSITE, WEBSITE_HOST, Long.MAX_VALUE));
+		assertEquals(-1, limiter.reserve(WEBSITE, WEBSITE_HOST, Long.MAX_VALUE));
+
+		for (int i = 0; i < 3; i++)
+			assertEquals(0, limiter.reserve(GAME_SERVER, SERVER_HOST, Long.MAX_VALUE));
+		assertEquals(0, limiter.reserve(GAME_SERVER, "srv2.akinator.com", Long.MAX_VALUE));
+
+		var website = bucket(limiter, WEBSITE_HOST);
+		assertEquals(1, website.getBurst());
+		assertEquals(2.0, website.getRate());
+		assertEquals(3, bucket(limiter, SERVER_HOST).getBurst());
+		assertEquals(3, limiter.getBuckets().size());
+	}
+
+	@Test
+	void rejectsInvalidLimits() {
+		assertThrows(IllegalArgumentException.class, () -> new RateLimiter(0, 1, 1, 1, Duration.ZERO));
+		assertThrows(IllegalArgumentException.class, () -> new RateLimiter(1, 1, 1, 0, Duration.ZERO));
+	}
+
+	private static RateLimiter limiter(Duration maxWait) {
+		return new RateLimiter(2, 1, 1, 3, maxWait);
+	}
+
+	private static Bucket bucket(RateLimiter limiter, String host) {
+		return limiter.getBuckets().stream().filter(b -> b.getHost().equals(host)).findAny().orElseThrow();
+	}
+
+}
@@ -0,0 +1,124 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import org.eu.zajc.akiwrapper.core.exceptions.AkinatorException;
+import org.eu.zajc.akiwrapper.core.transport.TransportResponse;
+import org.junit.jupiter.api.Test;
+
+class RetrySchedulerTest {
+
+	private static final Duration BASE_DELAY = Duration.ofMillis(100);
+	private static final Duration MAX_DELAY = Duration.ofMillis(250);
+
+	@Test
+	void spendsTheInitialBudget() {
+		var retries = scheduler(5, 0.1, 3);
+		for (int i = 0; i < 3; i++)
+			assertTrue(retries.getRetryDelay(new IOException(), 0) >= 0);
+
+		assertEquals(-1, retries.getRetryDelay(new IOException(), 0));
+		assertEquals(3, retries.getRetries());
+		assertEquals(1, retries.getDenied());
+	}
+
+	@Test
+	void requestsRefillTheBudget() {
+		var retries = scheduler(5, 0.25, 1);
+		retries.getRetryDelay(new IOException(), 0);
+		assertEquals(-1, retries.getRetryDelay(new IOException(), 0));
+
+		for (int i = 0; i < 4; i++)
+			retries.onRequest();
+		assertTrue(retries.getRetryDelay(new IOException(), 0) >= 0);
+		assertEquals(-1, retries.getRetryDelay(new IOException(), 0));
+	}
+
+	@Test
+	void budgetIsCapped() {
+		var retries = scheduler(5, 0.5, 2);
+		for (int i = 0; i < 100; i++)
+			retries.onRequest();
+
+		assertEquals(2.0, retries.getBudget());
+	}
+
+	@Test
+	void stopsAfterMaxRetriesWithoutSpending() {
+		var retries = scheduler(2, 0.1, 10);
+		assertEquals(-1, retries.getRetryDelay(new IOException(), 2));
+		assertEquals(10.0, retries.getBudget());
+		assertEquals(0, retries.getDenied());
+	}
+
+	@Test
+	void doesNotRetryOrSpendOnPermanentFailures() {
+		var retries = scheduler(5, 0.1, 10);
+		assertEquals(-1, retries.getRetryDelay(new IllegalStateException(), 0));
+		assertEquals(-1, retries.getRetryDelay(new AkinatorException("not found", "url", response(404)), 0));
+		assertEquals(10.0, retries.getBudget());
+	}
+
+	@Test
+	void delayIsCappedExponentially() {
+		var retries = scheduler(10, 1, 1000);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(retries.getRetryDelay(new IOException(), 0) <= 100);
+			assertTrue(retries.getRetryDelay(new IOException(), 1) <= 200);
+			assertTrue(retries.getRetryDelay(new IOException(), 5) <= 250);
+		}
+	}
+
+	@Test
+	void retriesTransientFailures() {
+		assertTrue(RetryScheduler.isRetryable(new IOException()));
+		assertTrue(RetryScheduler.isRetryable(new UncheckedIOException(new IOException())));
+		assertTrue(RetryScheduler.isRetryable(new TimeoutException()));
+		assertTrue(RetryScheduler.isRetryable(new AkinatorException("unavailable", "url", response(503))));
+
+		assertFalse(RetryScheduler.isRetryable(new AkinatorException("no response")));
+		assertFalse(RetryScheduler.isRetryable(new AkinatorException("not found", "url", response(404))));
+		assertFalse(RetryScheduler.isRetryable(new IllegalArgumentException()));
+	}
+
+	@Test
+	void schedulesWithoutBlocking() throws Exception {
+		long start = System.nanoTime();
+		var delay = RetryScheduler.schedule(20);
+		assertFalse(delay.isDone());
+
+		delay.get(1, SECONDS);
+		assertTrue(System.nanoTime() - start >= Duration.ofMillis(20).toNanos());
+	}
+
+	private static RetryScheduler scheduler(int maxRetries, double budgetRatio, int budgetCapacity) {
+		return new RetryScheduler(maxRetries, BASE_DELAY, MAX_DELAY, budgetRatio, budgetCapacity);
+	}
+
+	private static TransportResponse response(int status) {
+		return new TransportResponse(status, "", Map.of(), "");
+	}
+
+}
@@ -0,0 +1,136 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.eu.zajc.akiwrapper.core.utils.Utilities.asUnchecked;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+	private final SingleFlight<String, String> flights = new SingleFlight<>();
+
+	@Test
+	void coalescesCallsInFlight() throws Exception {
+		var calls = new AtomicInteger();
+		var started = new CountDownLatch(1);
+		var release = new CountDownLatch(1);
+		var executor = Executors.newSingleThreadExecutor();
+		try {
+			var leader = executor.submit(() -> this.flights.execute("key", () -> {
+				calls.incrementAndGet();
+				started.countDown();
+				await(release);
+				return "result";
+			}));
+			assertTrue(started.await(5, SECONDS));
+
+			var follower = this.flights.executeAsync("key", () -> {
+				calls.incrementAndGet();
+				return CompletableFuture.completedFuture("other");
+			});
+			release.countDown();
+
+			assertEquals("result", leader.get(5, SECONDS));
+			assertEquals("result", follower.get(5, SECONDS));
+			assertEquals(1, calls.get());
+			assertEquals(1, this.flights.getCoalesced());
+			assertEquals(0, this.flights.getInFlight());
+
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void callsAgainAfterCompletion() {
+		var calls = new AtomicInteger();
+		this.flights.execute("key", () -> "first" + calls.incrementAndGet());
+		assertEquals("first2", this.flights.execute("key", () -> "first" + calls.incrementAndGet()));
+		assertEquals(0, this.flights.getCoalesced());
+	}
+
+	@Test
+	void sharesFailures() throws Exception {
+		var failure = new IllegalStateException();
+		var flight = new CompletableFuture<String>();
+		var leader = this.flights.executeAsync("key", () -> flight);
+		var follower = this.flights.executeAsync("key", CompletableFuture::new);
+		flight.completeExceptionally(failure);
+
+		var e = assertThrows(ExecutionException.class, () -> follower.get(5, SECONDS));
+		assertSame(failure, e.getCause());
+		assertTrue(leader.isCompletedExceptionally());
+		assertEquals(0, this.flights.getInFlight());
+	}
+
+	@Test
+	void landsFlightWhenCallThrowsChecked() {
+		// InterruptedException is thrown with asUnchecked when a request is cancelled
+		assertThrows(InterruptedException.class, () -> this.flights.execute("key", () -> {
+			throw asUnchecked(new InterruptedException());
+		}));
+		assertEquals(0, this.flights.getInFlight());
+		assertEquals("next", this.flights.execute("key", () -> "next"));
+	}
+
+	@Test
+	void landsAsyncFlightWhenCallThrowsChecked() {
+		var result = this.flights.executeAsync("key", () -> {
+			throw asUnchecked(new InterruptedException());
+		});
+		assertTrue(result.isCompletedExceptionally());
+		assertEquals(0, this.flights.getInFlight());
+	}
+
+	@Test
+	void followerStopsWaitingAfterTimeout() throws Exception {
+		var flight = new CompletableFuture<String>();
+		var leader = this.flights.executeAsync("key", () -> flight);
+
+		assertThrows(TimeoutException.class,
+					 () -> this.flights.execute("key", () -> "other", MILLISECONDS.toNanos(10)));
+
+		flight.complete("result");
+		assertEquals("result", leader.get(5, SECONDS));
+	}
+
+	@Test
+	void cancellingFollowerLeavesCallAlone() throws Exception {
+		var flight = new CompletableFuture<String>();
+		var leader = this.flights.executeAsync("key", () -> flight);
+		this.flights.executeAsync("key", CompletableFuture::new).cancel(true);
+
+		assertFalse(flight.isCancelled());
+		flight.complete("result");
+		assertEquals("result", leader.get(5, SECONDS));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			throw asUnchecked(e);
+		}
+	}
+
+}
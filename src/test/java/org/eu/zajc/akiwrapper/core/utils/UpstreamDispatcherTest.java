@@ -0,0 +1,102 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils;
+
+import static java.util.concurrent.TimeUnit.*;
+import static org.eu.zajc.akiwrapper.core.utils.UpstreamDispatcher.Priority.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.jupiter.api.*;
+
+class UpstreamDispatcherTest {
+
+	private final UpstreamDispatcher dispatcher = new UpstreamDispatcher(1);
+	private final ExecutorService executor = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void tearDown() {
+		this.executor.shutdownNow();
+	}
+
+	@Test
+	void admitsSyncAndAsyncWaitersInArrivalOrder() throws Exception {
+		this.dispatcher.acquire(INTERACTIVE);
+		var order = Collections.synchronizedList(new ArrayList<String>());
+
+		this.dispatcher.acquireAsync(INTERACTIVE).thenRun(() -> order.add("async 1"));
+		var sync = this.executor.submit(() -> {
+			this.dispatcher.acquire(INTERACTIVE);
+			order.add("sync");
+		});
+		awaitWaiting(2);
+		this.dispatcher.acquireAsync(INTERACTIVE).thenRun(() -> order.add("async 2"));
+		awaitWaiting(3);
+
+		this.dispatcher.release();
+		this.dispatcher.release();
+		sync.get(1, SECONDS);
+		this.dispatcher.release();
+
+		assertEquals(List.of("async 1", "sync", "async 2"), order);
+	}
+
+	@Test
+	void admitsHigherPrioritiesFirst() {
+		this.dispatcher.acquire(INTERACTIVE);
+		var background = this.dispatcher.acquireAsync(BACKGROUND);
+		var interactive = this.dispatcher.acquireAsync(INTERACTIVE);
+
+		this.dispatcher.release();
+		assertTrue(interactive.isDone());
+		assertFalse(background.isDone());
+
+		this.dispatcher.release();
+		assertTrue(background.isDone());
+	}
+
+	@Test
+	void timedOutWaitersGiveUpTheirPlace() {
+		this.dispatcher.acquire(INTERACTIVE);
+
+		assertFalse(this.dispatcher.acquire(INTERACTIVE, MILLISECONDS.toNanos(10)));
+		assertEquals(0, this.dispatcher.getWaiting(INTERACTIVE));
+
+		this.dispatcher.release();
+		assertEquals(0, this.dispatcher.getInFlight());
+	}
+
+	@Test
+	void cancelledWaitersGiveUpTheirPlace() {
+		this.dispatcher.acquire(INTERACTIVE);
+		var cancelled = this.dispatcher.acquireAsync(INTERACTIVE);
+		var next = this.dispatcher.acquireAsync(INTERACTIVE);
+
+		cancelled.cancel(false);
+		this.dispatcher.release();
+		assertTrue(next.isDone());
+		assertEquals(1, this.dispatcher.getInFlight());
+	}
+
+	private void awaitWaiting(int waiting) throws InterruptedException {
+		while (this.dispatcher.getWaiting(INTERACTIVE) < waiting)
+			MILLISECONDS.sleep(1);
+	}
+
+}
@@ -0,0 +1,132 @@
+//SPDX-License-Identifier: GPL-3.0
+/*
+ * Akiwrapper, the Java API wrapper for Akinator
+ * Copyright (C) 2017-2023 Marko Zajc
+ *
+ * This program is free software: you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation, version 3.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with this
+ * program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.eu.zajc.akiwrapper.core.utils.route;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.eu.zajc.akiwrapper.core.utils.UpstreamDispatcher.Priority.INTERACTIVE;
+import static org.eu.zajc.akiwrapper.core.utils.route.Route.Endpoint.WEBSITE;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.eu.zajc.akiwrapper.core.exceptions.RateLimitedException;
+import org.eu.zajc.akiwrapper.core.transport.*;
+import org.eu.zajc.akiwrapper.core.utils.*;
+import org.junit.jupiter.api.Test;
+
+class BootstrapClientTest {
+
+	private static final String URL = "https://en.akinator.com/game";
+	private static final String HOST = "en.akinator.com";
+
+	private final List<String> sent = new CopyOnWriteArrayList<>();
+	private final RateLimiter limiter = new RateLimiter(1, 1, 1, 1, Duration.ZERO);
+	private final ConcurrencyLimiter concurrency = new ConcurrencyLimiter(1, 1, 1);
+	private final UpstreamDispatcher dispatcher = new UpstreamDispatcher(1);
+	private final List<String> phases = new CopyOnWriteArrayList<>();
+	private final LatencyTracker latencies = new LatencyTracker(3);
+	private final BootstrapClient client = new BootstrapClient(new FakeTransport(), this.dispatcher, this.limiter,
+															   this.concurrency, new PhaseListener(), this.latencies);
+
+	@Test
+	void fetchesGoThroughTheLimits() throws Exception {
+		assertEquals(200, this.client.get("TEST", WEBSITE, URL, INTERACTIVE, Deadline.none()).getStatus());
+
+		assertEquals(List.of(URL), this.sent);
+		assertEquals(1, bucket().getGranted());
+		assertEquals(0, limit().getInFlight());
+		assertEquals(0, this.dispatcher.getInFlight());
+	}
+
+	@Test
+	void fetchesAreReported() throws Exception {
+		this.client.get("TEST", WEBSITE, URL, INTERACTIVE, Deadline.none());
+
+		assertEquals(List.of("TEST exchange", "TEST complete"), this.phases);
+		assertEquals(1, this.latencies.snapshot().getRoutes().get("TEST").getTotal().getTotalCount());
+	}
+
+	@Test
+	void rateLimitedFetchesAreNotSent() {
+		this.client.get("TEST", WEBSITE, URL, INTERACTIVE, Deadline.none());
+
+		var deadline = Deadline.none();
+		assertThrows(RateLimitedException.class, () -> this.client.get("TEST", WEBSITE, URL, INTERACTIVE, deadline));
+		var async = this.client.getAsync("TEST", WEBSITE, URL, INTERACTIVE, deadline);
+		var e = assertThrows(ExecutionException.class, () -> async.get(1, SECONDS));
+		assertTrue(e.getCause() instanceof RateLimitedException);
+		assertEquals(1, this.sent.size());
+	}
+
+	@Test
+	void asyncFetchesGiveTheirPermitBack() throws Exception {
+		var response = this.client.getAsync("TEST", WEBSITE, URL, INTERACTIVE, Deadline.none()).get(1, SECONDS);
+
+		assertEquals(200, response.getStatus());
+		assertEquals(0, limit().getInFlight());
+		assertEquals(0, this.dispatcher.getInFlight());
+	}
+
+	@Test
+	void warmingTakesATokenToo() throws Exception {
+		this.client.warm(WEBSITE, URL).get(1, SECONDS);
+
+		assertEquals(List.of(URL), this.sent);
+		assertEquals(1, bucket().getGranted());
+		assertThrows(ExecutionException.class, () -> this.client.warm(WEBSITE, URL).get(1, SECONDS));
+	}
+
+	private RateLimiter.Bucket bucket() {
+		return this.limiter.getBuckets().stream().filter(b -> b.getHost().equals(HOST)).findAny().orElseThrow();
+	}
+
+	private ConcurrencyLimiter.Limit limit() {
+		return this.concurrency.getLimits().stream().filter(l -> l.getHost().equals(HOST)).findAny().orElseThrow();
+	}
+
+	private final class PhaseListener implements RequestListener {
+
+		@Override
+		public void onExchange(String route, int attempt, long nanos, Throwable failure) {
+			BootstrapClientTest.this.phases.add(route + " exchange");
+		}
+
+		@Override
+		public void onComplete(String route, long nanos, Throwable failure) {
+			BootstrapClientTest.this.phases.add(route + " complete");
+		}
+
+	}
+
+	private final class FakeTransport implements Transport {
+
+		@Override
+		public TransportResponse get(String url, Duration timeout) {
+			BootstrapClientTest.this.sent.add(url);
+			return new TransportResponse(200, "OK", Map.of(), "");
+		}
+
+		@Override
+		public CompletableFuture<TransportResponse> getAsync(String url, Duration timeout) {
+			return CompletableFuture.completedFuture(get(url, timeout));
+		}
+
+	}
+
+}